@@ -0,0 +1,76 @@
+package com.example.AppNotiDo.config;
+
+import com.example.AppNotiDo.domain.IdGenerators;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Cale les générateurs de id_generators au-dessus des ids existants avant la première insertion.
+ * Nécessaire sur une base créée avec IDENTITY : sans cela, le premier bloc réservé par Hibernate
+ * repartirait de 1 et entrerait en collision avec les lignes déjà présentes.
+ * Avec l'optimiseur pooled, une valeur stockée v garantit que les ids supérieurs à v - ALLOCATION_SIZE
+ * sont libres : on stocke donc au moins MAX(id) + ALLOCATION_SIZE.
+ */
+@Component
+public class IdGeneratorInitializer implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorInitializer.class);
+
+    // Les clés des générateurs sont les noms des tables
+    private static final List<String> TABLES = List.of(
+            IdGenerators.TASK,
+            IdGenerators.SUBTASK,
+            IdGenerators.NOTIFICATION,
+            IdGenerators.MESSAGE,
+            IdGenerators.PROJECT_MEMBER
+    );
+
+    private static final String RAISE_SQL =
+            "UPDATE " + IdGenerators.TABLE + " SET " + IdGenerators.VALUE_COLUMN + " = ? " +
+            "WHERE " + IdGenerators.KEY_COLUMN + " = ? AND " + IdGenerators.VALUE_COLUMN + " < ?";
+
+    private static final String COUNT_SQL =
+            "SELECT COUNT(*) FROM " + IdGenerators.TABLE + " WHERE " + IdGenerators.KEY_COLUMN + " = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO " + IdGenerators.TABLE + " (" + IdGenerators.KEY_COLUMN + ", " +
+            IdGenerators.VALUE_COLUMN + ") VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdGeneratorInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String table : TABLES) {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            long floor = (maxId != null ? maxId : 0L) + IdGenerators.ALLOCATION_SIZE;
+            raise(table, floor);
+            logger.debug("Id generator '{}' set to at least {}", table, floor);
+        }
+    }
+
+    private void raise(String key, long floor) {
+        if (jdbcTemplate.update(RAISE_SQL, floor, key, floor) > 0) {
+            return;
+        }
+        Long rows = jdbcTemplate.queryForObject(COUNT_SQL, Long.class, key);
+        if (rows != null && rows > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_SQL, key, floor);
+        } catch (DuplicateKeyException e) {
+            // Une autre instance a créé la ligne entre-temps
+            jdbcTemplate.update(RAISE_SQL, floor, key, floor);
+        }
+    }
+}
@@ -4,7 +4,10 @@ import com.example.AppNotiDo.domain.GlobalRole;
 import com.example.AppNotiDo.dto.AdminStatsDTO;
 import com.example.AppNotiDo.dto.AdminStatsDTO.ProjectAdminDTO;
 import com.example.AppNotiDo.dto.AdminStatsDTO.UserAdminDTO;
+import com.example.AppNotiDo.scheduler.RecurrenceMaterializer;
 import com.example.AppNotiDo.service.AdminService;
+import com.example.AppNotiDo.security.CurrentUserCache;
+import com.example.AppNotiDo.security.JwtUserPrincipal;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -25,6 +28,8 @@ public class AdminController {
 
     private final AdminService adminService;
     private final com.example.AppNotiDo.repository.UserRepository userRepository;
+    private final CurrentUserCache currentUserCache;
+    private final RecurrenceMaterializer recurrenceMaterializer;
 
     // ========================================
     // STATISTIQUES
@@ -41,6 +46,28 @@ public class AdminController {
         return ResponseEntity.ok(adminService.getGlobalStats());
     }
 
+    @Operation(summary = "Statistiques du cache de l'utilisateur connecté (hits / misses)")
+    @GetMapping("/stats/user-cache")
+    public ResponseEntity<Map<String, Object>> getUserCacheStats(
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        Long currentUserId = getCurrentUserId(userDetails);
+        adminService.requireSuperAdmin(currentUserId);
+
+        return ResponseEntity.ok(currentUserCache.getStats());
+    }
+
+    @Operation(summary = "Métriques de la dernière matérialisation des tâches récurrentes")
+    @GetMapping("/stats/recurrence")
+    public ResponseEntity<Map<String, Object>> getRecurrenceStats(
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        Long currentUserId = getCurrentUserId(userDetails);
+        adminService.requireSuperAdmin(currentUserId);
+
+        return ResponseEntity.ok(recurrenceMaterializer.getStats());
+    }
+
     // ========================================
     // GESTION DES UTILISATEURS
     // ========================================
@@ -185,6 +212,10 @@ public class AdminController {
     // ========================================
 
     private Long getCurrentUserId(UserDetails userDetails) {
+        // L'id est porté par le token : pas de lecture en base
+        if (userDetails instanceof JwtUserPrincipal principal) {
+            return principal.getId();
+        }
         return userRepository.findByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"))
                 .getId();
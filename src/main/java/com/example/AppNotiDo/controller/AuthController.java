@@ -48,10 +48,10 @@ public class AuthController {
         }
 
         // Le password sera encodé dans UserService.createUser()
-        userService.createUser(user);
+        User createdUser = userService.createUser(user);
 
         // Connexion automatique après inscription
-        String token = jwtService.generateToken(user.getUsername());
+        String token = jwtService.generateToken(createdUser);
 
         // ✅ Créer le cookie HttpOnly avec SameSite=Lax
         ResponseCookie cookie = ResponseCookie.from("token", token)
@@ -77,7 +77,7 @@ public class AuthController {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
 
-            String token = jwtService.generateToken(user.getUsername());
+            String token = jwtService.generateToken(user);
 
             // ✅ Créer le cookie HttpOnly avec SameSite=Lax
             ResponseCookie cookie = ResponseCookie.from("token", token)
@@ -1,5 +1,6 @@
 package com.example.AppNotiDo.controller;
 
+import com.example.AppNotiDo.dto.CursorPageDTO;
 import com.example.AppNotiDo.dto.MessageDTO;
 import com.example.AppNotiDo.service.MessageService;
 import lombok.RequiredArgsConstructor;
@@ -24,6 +25,16 @@ public class MessageController {
         return ResponseEntity.ok(messageService.getAllMessages());
     }
 
+    /**
+     * GET /api/messages/feed?cursor=&size= - Mes messages page par page (curseur)
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<CursorPageDTO<MessageDTO>> getMessageFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(messageService.getMessageFeed(cursor, size));
+    }
+
     /**
      * GET /api/messages/unread - Messages non lus
      */
@@ -1,5 +1,6 @@
 package com.example.AppNotiDo.controller;
 
+import com.example.AppNotiDo.dto.CursorPageDTO;
 import com.example.AppNotiDo.dto.NotificationDTO;
 import com.example.AppNotiDo.service.NotificationService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -27,6 +28,15 @@ public class NotificationController {
         return ResponseEntity.ok(notificationService.getAllNotifications());
     }
 
+    @Operation(summary = "Récupérer les notifications page par page (curseur)",
+            description = "Passer le nextCursor de la réponse précédente pour obtenir la page suivante")
+    @GetMapping("/feed")
+    public ResponseEntity<CursorPageDTO<NotificationDTO>> getNotificationFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(notificationService.getNotificationFeed(cursor, size));
+    }
+
     @Operation(summary = "Récupérer les notifications non lues")
     @GetMapping("/unread")
     public ResponseEntity<List<NotificationDTO>> getUnreadNotifications() {
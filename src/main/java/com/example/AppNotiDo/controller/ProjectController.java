@@ -2,22 +2,20 @@ package com.example.AppNotiDo.controller;
 
 import com.example.AppNotiDo.domain.Project;
 import com.example.AppNotiDo.dto.ProjectDTO;
-import com.example.AppNotiDo.mapper.ProjectMapper;
 import com.example.AppNotiDo.service.ProjectService;
-import com.example.AppNotiDo.service.ProjectMemberService;
+import com.example.AppNotiDo.util.CursorUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Tag(name = "Projects", description = "API de gestion des projets")
 @RestController
@@ -25,24 +23,15 @@ import java.util.stream.Collectors;
 public class ProjectController {
 
     private final ProjectService projectService;
-    private final com.example.AppNotiDo.repository.UserRepository userRepository;
-    private final ProjectMemberService projectMemberService;
 
-    public ProjectController(ProjectService projectService,
-                             com.example.AppNotiDo.repository.UserRepository userRepository,
-                             ProjectMemberService projectMemberService) {
+    public ProjectController(ProjectService projectService) {
         this.projectService = projectService;
-        this.userRepository = userRepository;
-        this.projectMemberService = projectMemberService;
     }
 
     @Operation(summary = "Créer un nouveau projet")
     @PostMapping
     public ResponseEntity<ProjectDTO> createProject(
-            @Valid @RequestBody ProjectDTO projectDTO,
-            @AuthenticationPrincipal UserDetails userDetails) {
-
-        Long currentUserId = getCurrentUserId(userDetails);
+            @Valid @RequestBody ProjectDTO projectDTO) {
 
         Project project = new Project();
         project.setName(projectDTO.getName());
@@ -52,7 +41,7 @@ public class ProjectController {
 
         Project createdProject = projectService.createProject(project);
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(ProjectMapper.toDTO(createdProject, currentUserId, projectMemberService));
+                .body(projectService.toDTO(createdProject));
     }
 
     @Operation(summary = "Récupérer tous les projets")
@@ -60,17 +49,15 @@ public class ProjectController {
     public ResponseEntity<List<ProjectDTO>> getAllProjects(
             @Parameter(description = "Inclure les projets archivés")
             @RequestParam(defaultValue = "false") boolean includeArchived,
-            @AuthenticationPrincipal UserDetails userDetails
+            @Parameter(description = "Numéro de la page (optionnel, tout est retourné si absent)")
+            @RequestParam(required = false) Integer page,
+            @Parameter(description = "Nombre d'éléments par page (optionnel)")
+            @RequestParam(required = false) Integer size
     ) {
-        Long currentUserId = getCurrentUserId(userDetails);
-
-        List<Project> projects = includeArchived
-                ? projectService.getAllProjectsIncludingArchived()
-                : projectService.getAllProjects();
-
-        List<ProjectDTO> dtos = projects.stream()
-                .map(project -> ProjectMapper.toDTO(project, currentUserId, projectMemberService))
-                .collect(Collectors.toList());
+        Pageable pageable = toPageable(page, size);
+        List<ProjectDTO> dtos = includeArchived
+                ? projectService.getAllProjectsIncludingArchived(pageable)
+                : projectService.getAllProjects(pageable);
 
         return ResponseEntity.ok(dtos);
     }
@@ -78,38 +65,26 @@ public class ProjectController {
     @Operation(summary = "Récupérer les projets archivés")
     @GetMapping("/archived")
     public ResponseEntity<List<ProjectDTO>> getArchivedProjects(
-            @AuthenticationPrincipal UserDetails userDetails) {
-
-        Long currentUserId = getCurrentUserId(userDetails);
-
-        List<Project> projects = projectService.getArchivedProjects();
-        List<ProjectDTO> dtos = projects.stream()
-                .map(project -> ProjectMapper.toDTO(project, currentUserId, projectMemberService))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(projectService.getArchivedProjects(toPageable(page, size)));
     }
 
     @Operation(summary = "Récupérer un projet par ID")
     @GetMapping("/{id}")
     public ResponseEntity<ProjectDTO> getProjectById(
-            @PathVariable Long id,
-            @AuthenticationPrincipal UserDetails userDetails) {
-
-        Long currentUserId = getCurrentUserId(userDetails);
+            @PathVariable Long id) {
 
         Project project = projectService.getProjectById(id);
-        return ResponseEntity.ok(ProjectMapper.toDTO(project, currentUserId, projectMemberService));
+        return ResponseEntity.ok(projectService.toDTO(project));
     }
 
     @Operation(summary = "Mettre à jour un projet")
     @PutMapping("/{id}")
     public ResponseEntity<ProjectDTO> updateProject(
             @PathVariable Long id,
-            @Valid @RequestBody ProjectDTO projectDTO,
-            @AuthenticationPrincipal UserDetails userDetails
+            @Valid @RequestBody ProjectDTO projectDTO
     ) {
-        Long currentUserId = getCurrentUserId(userDetails);
-
         Project projectToUpdate = new Project();
         projectToUpdate.setName(projectDTO.getName());
         projectToUpdate.setDescription(projectDTO.getDescription());
@@ -118,31 +93,25 @@ public class ProjectController {
         projectToUpdate.setDisplayOrder(projectDTO.getDisplayOrder());
 
         Project updatedProject = projectService.updateProject(id, projectToUpdate);
-        return ResponseEntity.ok(ProjectMapper.toDTO(updatedProject, currentUserId, projectMemberService));
+        return ResponseEntity.ok(projectService.toDTO(updatedProject));
     }
 
     @Operation(summary = "Archiver un projet")
     @PostMapping("/{id}/archive")
     public ResponseEntity<ProjectDTO> archiveProject(
-            @PathVariable Long id,
-            @AuthenticationPrincipal UserDetails userDetails) {
-
-        Long currentUserId = getCurrentUserId(userDetails);
+            @PathVariable Long id) {
 
         Project project = projectService.archiveProject(id);
-        return ResponseEntity.ok(ProjectMapper.toDTO(project, currentUserId, projectMemberService));
+        return ResponseEntity.ok(projectService.toDTO(project));
     }
 
     @Operation(summary = "Désarchiver un projet")
     @PostMapping("/{id}/unarchive")
     public ResponseEntity<ProjectDTO> unarchiveProject(
-            @PathVariable Long id,
-            @AuthenticationPrincipal UserDetails userDetails) {
-
-        Long currentUserId = getCurrentUserId(userDetails);
+            @PathVariable Long id) {
 
         Project project = projectService.unarchiveProject(id);
-        return ResponseEntity.ok(ProjectMapper.toDTO(project, currentUserId, projectMemberService));
+        return ResponseEntity.ok(projectService.toDTO(project));
     }
 
     @Operation(summary = "Supprimer un projet (garde les tâches)")
@@ -164,15 +133,10 @@ public class ProjectController {
     public ResponseEntity<List<ProjectDTO>> searchProjects(
             @Parameter(description = "Terme de recherche")
             @RequestParam String q,
-            @AuthenticationPrincipal UserDetails userDetails
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size
     ) {
-        Long currentUserId = getCurrentUserId(userDetails);
-
-        List<Project> projects = projectService.searchProjects(q);
-        List<ProjectDTO> dtos = projects.stream()
-                .map(project -> ProjectMapper.toDTO(project, currentUserId, projectMemberService))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+        return ResponseEntity.ok(projectService.searchProjects(q, toPageable(page, size)));
     }
 
     @Operation(summary = "Compter les projets")
@@ -189,9 +153,11 @@ public class ProjectController {
         return ResponseEntity.ok().build();
     }
 
-    private Long getCurrentUserId(UserDetails userDetails) {
-        return userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"))
-                .getId();
+    // Sans page ni size : liste complète (compatibilité), sinon LIMIT/OFFSET en base
+    private static Pageable toPageable(Integer page, Integer size) {
+        if (page == null && size == null) {
+            return Pageable.unpaged();
+        }
+        return PageRequest.of(page != null ? Math.max(page, 0) : 0, CursorUtils.clampSize(size));
     }
 }
@@ -3,6 +3,7 @@ package com.example.AppNotiDo.controller;
 import com.example.AppNotiDo.domain.ProjectRole;
 import com.example.AppNotiDo.dto.ProjectMemberDTO;
 import com.example.AppNotiDo.service.ProjectMemberService;
+import com.example.AppNotiDo.security.JwtUserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -83,6 +84,10 @@ public class ProjectMemberController {
     }
 
     private Long getCurrentUserId(UserDetails userDetails) {
+        // L'id est porté par le token : pas de lecture en base
+        if (userDetails instanceof JwtUserPrincipal principal) {
+            return principal.getId();
+        }
         return userRepository.findByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"))
                 .getId();
@@ -0,0 +1,32 @@
+package com.example.AppNotiDo.controller;
+
+import com.example.AppNotiDo.service.SseService;
+import com.example.AppNotiDo.util.SecurityUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Tag(name = "Temps réel", description = "Flux Server-Sent Events des notifications et messages")
+@RestController
+@RequestMapping("/api/stream")
+public class StreamController {
+
+    private final SseService sseService;
+    private final SecurityUtils securityUtils;
+
+    public StreamController(SseService sseService, SecurityUtils securityUtils) {
+        this.sseService = sseService;
+        this.securityUtils = securityUtils;
+    }
+
+    @Operation(summary = "Ouvrir le flux des nouvelles notifications, messages et compteurs non lus",
+            description = "Évènements : notification, notification-count, message, message-count")
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return sseService.subscribe(securityUtils.getCurrentUserId());
+    }
+}
@@ -4,9 +4,12 @@ import com.example.AppNotiDo.domain.Task;
 import com.example.AppNotiDo.domain.TaskPriority;
 import com.example.AppNotiDo.domain.TaskStatus;
 import com.example.AppNotiDo.domain.RecurrenceType;
-import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.dto.BulkTaskRequestDTO;
+import com.example.AppNotiDo.dto.BulkTaskResultDTO;
 import com.example.AppNotiDo.dto.TaskDTO;
+import com.example.AppNotiDo.dto.TaskOccurrenceDTO;
 import com.example.AppNotiDo.mapper.TaskMapper;
+import com.example.AppNotiDo.security.JwtUserPrincipal;
 import com.example.AppNotiDo.service.TaskService;
 import com.example.AppNotiDo.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,12 +19,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Tag(name = "Tasks", description = "API de gestion des tâches")
@@ -75,6 +80,42 @@ public class TaskController {
         return taskPage.map(TaskMapper::toDTO);
     }
 
+    @Operation(
+            summary = "Calculer les occurrences des tâches récurrentes sur une période",
+            description = "Développe les règles de récurrence (RRULE ou champs historiques) entre from et to " +
+                    "sans créer de tâche. templateId limite le calcul à un seul template."
+    )
+    @GetMapping("/occurrences")
+    public List<TaskOccurrenceDTO> getOccurrences(
+            @Parameter(description = "Début de la période (ISO 8601)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Fin de la période (ISO 8601, 366 jours maximum)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "ID du template (optionnel)")
+            @RequestParam(required = false) Long templateId
+    ) {
+        return taskService.getOccurrences(from, to, templateId);
+    }
+
+    @Operation(
+            summary = "Écrire en base une occurrence d'une tâche récurrente",
+            description = "À appeler avant d'agir sur une occurrence calculée (terminer, démarrer le timer, modifier). " +
+                    "Renvoie la tâche de l'occurrence, créée si besoin ; les appels répétés renvoient la même tâche."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tâche de l'occurrence"),
+            @ApiResponse(responseCode = "400", description = "La date n'est pas une occurrence du template")
+    })
+    @PostMapping("/{id}/occurrences")
+    public ResponseEntity<TaskDTO> materializeOccurrence(
+            @Parameter(description = "ID du template") @PathVariable Long id,
+            @Parameter(description = "Date prévue de l'occurrence (ISO 8601), telle que renvoyée par /occurrences")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime occurrenceDate
+    ) {
+        Task occurrence = taskService.materializeOccurrence(id, occurrenceDate);
+        return ResponseEntity.ok(TaskMapper.toDTO(occurrence));
+    }
+
     @Operation(summary = "Récupérer une tâche par son ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Tâche trouvée"),
@@ -94,6 +135,12 @@ public class TaskController {
         taskService.deleteTask(id);
     }
 
+    @Operation(summary = "Appliquer une action groupée (statut, priorité, projet, tags ou suppression) à plusieurs tâches")
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkTaskResultDTO> bulkUpdateTasks(@RequestBody BulkTaskRequestDTO request) {
+        return ResponseEntity.ok(taskService.bulkUpdate(request));
+    }
+
     @Operation(summary = "Mettre à jour une tâche existante")
     @PutMapping("/{id}")
     public ResponseEntity<TaskDTO> updateTask(
@@ -133,6 +180,7 @@ public class TaskController {
         taskToUpdate.setRecurrenceDays(taskDTO.getRecurrenceDays());
         taskToUpdate.setRecurrenceDayOfMonth(taskDTO.getRecurrenceDayOfMonth() != null ? taskDTO.getRecurrenceDayOfMonth() : 1);
         taskToUpdate.setRecurrenceEndDate(taskDTO.getRecurrenceEndDate());
+        taskToUpdate.setRecurrenceRule(taskDTO.getRecurrenceRule());
         // ================================
 
         // Utiliser la méthode avec projet
@@ -199,8 +247,7 @@ public class TaskController {
             @PathVariable Long id,
             @AuthenticationPrincipal UserDetails userDetails
     ) {
-        User user = userService.getUserByUsername(userDetails.getUsername());
-        Task updated = taskService.startTask(id, user);
+        Task updated = taskService.startTask(id, getCurrentUserId(userDetails));
         return ResponseEntity.ok(TaskMapper.toDTO(updated));
     }
 
@@ -210,8 +257,7 @@ public class TaskController {
             @PathVariable Long id,
             @AuthenticationPrincipal UserDetails userDetails
     ) {
-        User user = userService.getUserByUsername(userDetails.getUsername());
-        Task updated = taskService.pauseTask(id, user);
+        Task updated = taskService.pauseTask(id, getCurrentUserId(userDetails));
         return ResponseEntity.ok(TaskMapper.toDTO(updated));
     }
 
@@ -221,8 +267,15 @@ public class TaskController {
             @PathVariable Long id,
             @AuthenticationPrincipal UserDetails userDetails
     ) {
-        User user = userService.getUserByUsername(userDetails.getUsername());
-        Task updated = taskService.stopTask(id, user);
+        Task updated = taskService.stopTask(id, getCurrentUserId(userDetails));
         return ResponseEntity.ok(TaskMapper.toDTO(updated));
     }
+
+    private Long getCurrentUserId(UserDetails userDetails) {
+        // L'id est porté par le token : pas de lecture en base
+        if (userDetails instanceof JwtUserPrincipal principal) {
+            return principal.getId();
+        }
+        return userService.getUserByUsername(userDetails.getUsername()).getId();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.example.AppNotiDo.domain;
+
+/**
+ * Paramètres communs des générateurs d'identifiants par table (GenerationType.TABLE, optimiseur pooled).
+ * Contrairement à IDENTITY, Hibernate connaît l'id avant l'INSERT : les insertions peuvent être
+ * regroupées en batch JDBC (hibernate.jdbc.batch_size) et une réservation de ALLOCATION_SIZE ids
+ * ne coûte qu'un aller-retour sur la table des générateurs.
+ */
+public final class IdGenerators {
+
+    public static final String TABLE = "id_generators";
+    public static final String KEY_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+
+    // Aligné sur hibernate.jdbc.batch_size
+    public static final int ALLOCATION_SIZE = 50;
+
+    // Clés des générateurs (une ligne par entité dans id_generators)
+    public static final String TASK = "task";
+    public static final String SUBTASK = "subtasks";
+    public static final String NOTIFICATION = "notifications";
+    public static final String MESSAGE = "messages";
+    public static final String PROJECT_MEMBER = "project_members";
+
+    private IdGenerators() {
+    }
+}
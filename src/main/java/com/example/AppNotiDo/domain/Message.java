@@ -7,7 +7,10 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        @Index(name = "idx_message_recipient_read_created", columnList = "recipient_id, is_read, created_at"),
+        @Index(name = "idx_message_recipient_created", columnList = "recipient_id, created_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,7 +19,10 @@ import java.time.LocalDateTime;
 public class Message {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "message_id")
+    @TableGenerator(name = "message_id", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.KEY_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.MESSAGE, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     // Destinataire du message
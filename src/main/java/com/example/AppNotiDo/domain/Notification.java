@@ -3,20 +3,23 @@ package com.example.AppNotiDo.domain;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notification_user_read_created", columnList = "user_id, is_read, created_at"),
+        @Index(name = "idx_notification_user_created", columnList = "user_id, created_at")
+})
 @Data
 @NoArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
 public class Notification {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "notification_id")
+    @TableGenerator(name = "notification_id", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.KEY_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.NOTIFICATION, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -40,7 +43,6 @@ public class Notification {
     @Column(name = "is_read", nullable = false)
     private Boolean isRead = false;
 
-    @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -56,4 +58,12 @@ public class Notification {
         this.type = type;
         this.isRead = false;
     }
-}
\ No newline at end of file
+
+    // Date fournie conservée (distribution depuis l'outbox), maintenant sinon
+    @PrePersist
+    public void prePersist() {
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.AppNotiDo.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notification en attente, écrite dans la même transaction que la modification qui la déclenche
+ * puis déplacée vers la table notifications par NotificationOutboxDispatcher.
+ * Pas de clé étrangère : l'insertion ne verrouille ni users, ni task, ni notifications.
+ * Les modifications de tâche (coalescable) restent en attente jusqu'à availableAt et
+ * les modifications suivantes de la même tâche sont fusionnées dans la même ligne.
+ * Lorsque la fusion est active, NotificationService.notifyTaskChanged verrouille la ligne task
+ * (SELECT ... FOR UPDATE) avant de chercher la ligne en attente, jusqu'à la fin de la transaction
+ * de la modification : les modifications concurrentes d'une même tâche sont sérialisées.
+ */
+@Entity
+@Table(name = "notification_outbox", indexes = {
+        @Index(name = "idx_outbox_available_at", columnList = "available_at"),
+        @Index(name = "idx_outbox_task_coalescable", columnList = "task_id, coalescable")
+})
+@Data
+@NoArgsConstructor
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "task_id")
+    private Long taskId;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(length = 500)
+    private String message;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private NotificationType type;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Date à partir de laquelle la notification peut être distribuée
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(nullable = false)
+    private Boolean coalescable = false;
+
+    // Modifications cumulées (uniquement pour les lignes coalescable)
+    @Column(name = "old_status")
+    private String oldStatus;
+
+    @Column(name = "new_status")
+    private String newStatus;
+
+    @Column(name = "old_priority")
+    private String oldPriority;
+
+    @Column(name = "new_priority")
+    private String newPriority;
+
+    // Libellés des champs modifiés, séparés par des virgules
+    @Column(length = 500)
+    private String changes;
+
+    public NotificationOutbox(Long userId, Long taskId, String title, String message, NotificationType type) {
+        this.userId = userId;
+        this.taskId = taskId;
+        this.title = title;
+        this.message = message;
+        this.type = type;
+        this.createdAt = LocalDateTime.now();
+        this.availableAt = this.createdAt;
+    }
+}
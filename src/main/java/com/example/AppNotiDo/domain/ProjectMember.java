@@ -22,7 +22,10 @@ import java.time.LocalDateTime;
 public class ProjectMember {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "project_member_id")
+    @TableGenerator(name = "project_member_id", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.KEY_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.PROJECT_MEMBER, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,36 @@
+package com.example.AppNotiDo.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bail d'un job planifié : une ligne par job, détenue par une instance de l'application jusqu'à expiresAt.
+ * Lu et écrit en JDBC par SchedulerLeaseManager ; l'entité sert à la création du schéma.
+ */
+@Entity
+@Table(name = SchedulerLease.TABLE)
+@Data
+@NoArgsConstructor
+public class SchedulerLease {
+
+    public static final String TABLE = "scheduler_leases";
+    public static final String NAME_COLUMN = "lease_name";
+    public static final String OWNER_COLUMN = "owner_id";
+    public static final String EXPIRES_AT_COLUMN = "expires_at";
+
+    @Id
+    @Column(name = NAME_COLUMN, length = 100)
+    private String name;
+
+    @Column(name = OWNER_COLUMN, nullable = false, length = 200)
+    private String ownerId;
+
+    @Column(name = EXPIRES_AT_COLUMN, nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -17,7 +17,10 @@ import java.time.LocalDateTime;
 public class Subtask {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "subtask_id")
+    @TableGenerator(name = "subtask_id", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.KEY_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.SUBTASK, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank(message = "Le titre de la sous-tâche ne peut pas être vide")
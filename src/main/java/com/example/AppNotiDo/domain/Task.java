@@ -16,10 +16,22 @@ import java.util.List;
 @Entity
 @Data
 @EntityListeners(AuditingEntityListener.class)
+@Table(indexes = {
+        @Index(name = "idx_task_status_due_date", columnList = "status, due_date"),
+        @Index(name = "idx_task_notified_due_date", columnList = "notified, due_date"),
+        // Reprise des écritures des autres instances par le planificateur en mode cluster
+        @Index(name = "idx_task_updated_at", columnList = "updated_at")
+}, uniqueConstraints = {
+        // Une seule tâche par occurrence d'un template, même si deux créations se croisent
+        @UniqueConstraint(name = "uk_task_parent_occurrence", columnNames = {"parent_task_id", "occurrence_date"})
+})
 public class Task {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "task_id")
+    @TableGenerator(name = "task_id", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.KEY_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.TASK, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank(message = "Title can not be empty")
@@ -112,6 +124,9 @@ public class Task {
     @Column(name = "recurrence_end_date")
     private LocalDateTime recurrenceEndDate; // Date de fin optionnelle
 
+    @Column(name = "recurrence_rule", length = 1000)
+    private String recurrenceRule; // RRULE RFC 5545 (+ lignes EXDATE), prioritaire sur les champs ci-dessus
+
     @Column(name = "next_occurrence")
     private LocalDateTime nextOccurrence; // Prochaine date de création
 
@@ -120,6 +135,9 @@ public class Task {
     @JsonIgnore
     private Task parentTask; // Tâche template si générée par récurrence
 
+    @Column(name = "occurrence_date")
+    private LocalDateTime occurrenceDate; // Date prévue par la règle du template (inchangée si l'échéance est déplacée)
+
     @Column(name = "is_recurring_template")
     private Boolean isRecurringTemplate = false; // True si c'est le modèle de récurrence
 
@@ -0,0 +1,26 @@
+package com.example.AppNotiDo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Action groupée sur une sélection de tâches : soit une suppression, soit un patch
+ * (seuls les champs renseignés sont appliqués)
+ */
+@Data
+public class BulkTaskRequestDTO {
+
+    private List<Long> taskIds;
+
+    // Suppression des tâches sélectionnées (les autres champs sont alors ignorés)
+    private Boolean delete;
+
+    private String status;
+    private String priority;
+    private String tags;
+
+    // Déplacer dans un projet, ou retirer du projet avec removeFromProject = true
+    private Long projectId;
+    private Boolean removeFromProject;
+}
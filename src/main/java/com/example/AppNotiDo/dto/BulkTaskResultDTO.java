@@ -0,0 +1,28 @@
+package com.example.AppNotiDo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTaskResultDTO {
+
+    private int requested;
+    private int succeeded;
+    private List<ItemResult> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private Long taskId;
+        private boolean success;
+        private String error;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.AppNotiDo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Position d'affichage actuelle d'un élément (projet, sous-tâche), lue avant un réordonnancement
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DisplayOrderDTO {
+
+    private Long id;
+    private Integer displayOrder;
+}
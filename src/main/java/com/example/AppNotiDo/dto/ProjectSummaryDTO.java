@@ -0,0 +1,28 @@
+package com.example.AppNotiDo.dto;
+
+import com.example.AppNotiDo.domain.ProjectRole;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ligne de listing d'un projet : colonnes du projet et rôle de l'utilisateur, lus en une seule requête
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProjectSummaryDTO {
+
+    private Long id;
+    private String name;
+    private String description;
+    private String color;
+    private String icon;
+    private Boolean isArchived;
+    private Integer displayOrder;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private ProjectRole userRole;
+}
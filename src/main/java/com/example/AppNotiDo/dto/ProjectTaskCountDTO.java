@@ -0,0 +1,19 @@
+package com.example.AppNotiDo.dto;
+
+import com.example.AppNotiDo.domain.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nombre de tâches d'un projet pour un statut donné (agrégat GROUP BY)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProjectTaskCountDTO {
+
+    private Long projectId;
+    private TaskStatus status;
+    private Long count;
+}
@@ -0,0 +1,21 @@
+package com.example.AppNotiDo.dto;
+
+import com.example.AppNotiDo.domain.NotificationType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Dernière notification envoyée pour un couple (tâche, type), utilisée pour éviter les doublons
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecentNotificationDTO {
+
+    private Long taskId;
+    private NotificationType type;
+    private LocalDateTime lastCreatedAt;
+}
@@ -0,0 +1,17 @@
+package com.example.AppNotiDo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Référence d'un template de récurrence à matérialiser : id et propriétaire (clé de partition)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurringTemplateRefDTO {
+
+    private Long id;
+    private Long userId;
+}
@@ -45,7 +45,9 @@ public class TaskDTO {
     private String recurrenceDays;           // Pour hebdo: "MONDAY,WEDNESDAY,FRIDAY"
     private Integer recurrenceDayOfMonth;    // Pour mensuel: 1-31
     private LocalDateTime recurrenceEndDate; // Date de fin optionnelle
+    private String recurrenceRule;           // RRULE RFC 5545: "FREQ=MONTHLY;BYDAY=-1FR;COUNT=12"
     private LocalDateTime nextOccurrence;    // Prochaine date de création
     private Long parentTaskId;               // ID de la tâche template si générée
+    private LocalDateTime occurrenceDate;    // Occurrence du template que représente cette tâche
     private Boolean isRecurringTemplate;     // True si c'est le modèle de récurrence
 }
\ No newline at end of file
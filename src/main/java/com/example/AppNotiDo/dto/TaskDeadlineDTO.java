@@ -0,0 +1,21 @@
+package com.example.AppNotiDo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vue allégée d'une tâche, limitée aux champs utiles au calcul des échéances
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskDeadlineDTO {
+
+    private Long id;
+    private LocalDateTime dueDate;
+    private Integer reminderMinutes;
+    private Boolean notified;
+}
@@ -0,0 +1,28 @@
+package com.example.AppNotiDo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Occurrence d'un template de récurrence. taskId est null tant que l'occurrence est seulement calculée ;
+ * une fois écrite en base, les champs reflètent la tâche (éventuellement modifiée par l'utilisateur).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskOccurrenceDTO {
+
+    private Long templateId;
+    private Long taskId;
+    private LocalDateTime occurrenceDate;
+    private String title;
+    private LocalDateTime dueDate;
+    private String status;
+    private String priority;
+    private Integer estimatedDuration;
+    private Long projectId;
+    private String tags;
+}
@@ -2,13 +2,17 @@ package com.example.AppNotiDo.mapper;
 
 import com.example.AppNotiDo.domain.Project;
 import com.example.AppNotiDo.domain.ProjectRole;
+import com.example.AppNotiDo.domain.TaskStatus;
 import com.example.AppNotiDo.dto.ProjectDTO;
-import com.example.AppNotiDo.service.ProjectMemberService;
+import com.example.AppNotiDo.dto.ProjectSummaryDTO;
+
+import java.util.Map;
 
 public class ProjectMapper {
 
-    // Version avec rôle (utilisée par les endpoints API)
-    public static ProjectDTO toDTO(Project project, Long userId, ProjectMemberService memberService) {
+    // Version avec rôle (utilisée par les endpoints API) : compteurs de tâches déjà agrégés par statut,
+    // la collection project.tasks n'est pas chargée
+    public static ProjectDTO toDTO(Project project, ProjectRole userRole, Map<TaskStatus, Long> taskCounts) {
         if (project == null) return null;
 
         ProjectDTO dto = new ProjectDTO();
@@ -21,20 +25,30 @@ public class ProjectMapper {
         dto.setDisplayOrder(project.getDisplayOrder());
         dto.setCreatedAt(project.getCreatedAt());
         dto.setUpdatedAt(project.getUpdatedAt());
+        dto.setUserRole(userRole);
 
-        // Stats
-        dto.setTaskCount(project.getTaskCount());
-        dto.setCompletedTaskCount(project.getCompletedTaskCount());
-        dto.setPendingTaskCount(project.getPendingTaskCount());
+        setTaskCounts(dto, taskCounts);
 
-        // Récupérer le rôle de l'utilisateur
-        try {
-            ProjectRole role = memberService.getUserRoleInProject(project.getId(), userId);
-            dto.setUserRole(role);
-        } catch (Exception e) {
-            // Si pas de membership trouvé (anciens projets), mettre OWNER par défaut
-            dto.setUserRole(ProjectRole.OWNER);
-        }
+        return dto;
+    }
+
+    // Version listing : ligne projetée (projet + rôle) et compteurs de tâches par statut déjà agrégés
+    public static ProjectDTO toDTO(ProjectSummaryDTO summary, Map<TaskStatus, Long> taskCounts) {
+        if (summary == null) return null;
+
+        ProjectDTO dto = new ProjectDTO();
+        dto.setId(summary.getId());
+        dto.setName(summary.getName());
+        dto.setDescription(summary.getDescription());
+        dto.setColor(summary.getColor());
+        dto.setIcon(summary.getIcon());
+        dto.setIsArchived(summary.getIsArchived());
+        dto.setDisplayOrder(summary.getDisplayOrder());
+        dto.setCreatedAt(summary.getCreatedAt());
+        dto.setUpdatedAt(summary.getUpdatedAt());
+        dto.setUserRole(summary.getUserRole());
+
+        setTaskCounts(dto, taskCounts);
 
         return dto;
     }
@@ -62,6 +76,18 @@ public class ProjectMapper {
         return dto;
     }
 
+    // Stats calculées depuis l'agrégat (projet, statut) -> nombre de tâches
+    private static void setTaskCounts(ProjectDTO dto, Map<TaskStatus, Long> taskCounts) {
+        long total = 0;
+        for (Long count : taskCounts.values()) {
+            total += count;
+        }
+        int completed = taskCounts.getOrDefault(TaskStatus.DONE, 0L).intValue();
+        dto.setTaskCount((int) total);
+        dto.setCompletedTaskCount(completed);
+        dto.setPendingTaskCount((int) total - completed);
+    }
+
     public static Project toEntity(ProjectDTO dto) {
         if (dto == null) return null;
 
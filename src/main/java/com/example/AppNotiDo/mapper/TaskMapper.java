@@ -75,12 +75,14 @@ public class TaskMapper {
         dto.setRecurrenceDays(task.getRecurrenceDays());
         dto.setRecurrenceDayOfMonth(task.getRecurrenceDayOfMonth());
         dto.setRecurrenceEndDate(task.getRecurrenceEndDate());
+        dto.setRecurrenceRule(task.getRecurrenceRule());
         dto.setNextOccurrence(task.getNextOccurrence());
         dto.setIsRecurringTemplate(task.getIsRecurringTemplate() != null ? task.getIsRecurringTemplate() : false);
 
         if (task.getParentTask() != null) {
             dto.setParentTaskId(task.getParentTask().getId());
         }
+        dto.setOccurrenceDate(task.getOccurrenceDate());
 
         return dto;
     }
@@ -137,6 +139,7 @@ public class TaskMapper {
         task.setRecurrenceDays(dto.getRecurrenceDays());
         task.setRecurrenceDayOfMonth(dto.getRecurrenceDayOfMonth());
         task.setRecurrenceEndDate(dto.getRecurrenceEndDate());
+        task.setRecurrenceRule(dto.getRecurrenceRule());
         task.setIsRecurringTemplate(dto.getIsRecurringTemplate() != null ? dto.getIsRecurringTemplate() : false);
 
         // Note: Le projet doit être assigné séparément dans le service
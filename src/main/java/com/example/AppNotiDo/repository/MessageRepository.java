@@ -2,6 +2,8 @@ package com.example.AppNotiDo.repository;
 
 import com.example.AppNotiDo.domain.Message;
 import com.example.AppNotiDo.domain.MessageType;
+import com.example.AppNotiDo.dto.UnreadCountDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,12 +20,31 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     // Tous les messages d'un user (triés par date décroissante)
     List<Message> findByRecipientIdOrderByCreatedAtDesc(Long recipientId);
 
+    // Flux paginé par curseur : première page, puis page suivant (createdAt, id) (index recipient_id, created_at)
+    @Query("SELECT m FROM Message m JOIN FETCH m.recipient LEFT JOIN FETCH m.sender LEFT JOIN FETCH m.project " +
+            "WHERE m.recipient.id = :userId ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findFeedFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT m FROM Message m JOIN FETCH m.recipient LEFT JOIN FETCH m.sender LEFT JOIN FETCH m.project " +
+            "WHERE m.recipient.id = :userId " +
+            "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findFeedAfter(@Param("userId") Long userId,
+                                @Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") Long id,
+                                Pageable pageable);
+
     // Messages non lus d'un user
     List<Message> findByRecipientIdAndIsReadFalseOrderByCreatedAtDesc(Long recipientId);
 
     // Compter les messages non lus
     Long countByRecipientIdAndIsReadFalse(Long recipientId);
 
+    // Compter les messages non lus de plusieurs users en une requête
+    @Query("SELECT new com.example.AppNotiDo.dto.UnreadCountDTO(m.recipient.id, COUNT(m)) FROM Message m " +
+            "WHERE m.recipient.id IN :userIds AND m.isRead = false GROUP BY m.recipient.id")
+    List<UnreadCountDTO> countUnreadByRecipientIds(@Param("userIds") Collection<Long> userIds);
+
     // Messages par type
     List<Message> findByRecipientIdAndTypeOrderByCreatedAtDesc(Long recipientId, MessageType type);
 
@@ -43,7 +65,19 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     // Compter total messages d'un user
     Long countByRecipientId(Long recipientId);
 
-    // Messages les plus anciens (pour cleanup)
-    @Query("SELECT m FROM Message m WHERE m.recipient.id = :userId ORDER BY m.createdAt ASC")
-    List<Message> findOldestByRecipientId(@Param("userId") Long userId);
+    // Destinataires qui dépassent la limite de messages
+    @Query("SELECT m.recipient.id FROM Message m GROUP BY m.recipient.id HAVING COUNT(m) > :max")
+    List<Long> findRecipientIdsWithMoreThan(@Param("max") long max);
+
+    // Ne garder que les :max messages prioritaires de chaque destinataire (non lus d'abord, puis les plus récents).
+    // La table dérivée est matérialisée, ce qui permet à MySQL de supprimer dans la table lue.
+    @Modifying
+    @Query(value = "DELETE FROM messages WHERE id IN (" +
+            "  SELECT id FROM (" +
+            "    SELECT m.id AS id, ROW_NUMBER() OVER (" +
+            "      PARTITION BY m.recipient_id ORDER BY m.is_read ASC, m.created_at DESC, m.id DESC) AS rn" +
+            "    FROM messages m WHERE m.recipient_id IN (:recipientIds)" +
+            "  ) ranked WHERE ranked.rn > :max" +
+            ")", nativeQuery = true)
+    int deleteBeyondLimitForRecipients(@Param("recipientIds") Collection<Long> recipientIds, @Param("max") int max);
 }
\ No newline at end of file
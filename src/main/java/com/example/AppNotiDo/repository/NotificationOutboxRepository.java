@@ -0,0 +1,57 @@
+package com.example.AppNotiDo.repository;
+
+import com.example.AppNotiDo.domain.NotificationOutbox;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // Prochain lot d'évènements disponibles, dans l'ordre d'écriture.
+    // Verrouillé pour ne pas distribuer une ligne pendant qu'une modification y est fusionnée.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM NotificationOutbox o WHERE o.availableAt <= :now ORDER BY o.id ASC")
+    List<NotificationOutbox> findNextBatch(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Notification de modification encore en attente pour une tâche (fenêtre de fusion ouverte)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM NotificationOutbox o " +
+            "WHERE o.taskId = :taskId AND o.coalescable = true AND o.availableAt > :now " +
+            "ORDER BY o.id DESC")
+    List<NotificationOutbox> findPendingChangesForTask(@Param("taskId") Long taskId,
+                                                       @Param("now") LocalDateTime now,
+                                                       Pageable pageable);
+
+    // Évènements d'un lot encore distribuables, groupés par utilisateur.
+    // Ceux dont l'utilisateur ou la tâche a été supprimé entre-temps sont ignorés.
+    @Query("SELECT o FROM NotificationOutbox o " +
+            "WHERE o.id IN :ids " +
+            "AND EXISTS (SELECT 1 FROM User u WHERE u.id = o.userId) " +
+            "AND (o.taskId IS NULL OR EXISTS (SELECT 1 FROM Task t WHERE t.id = o.taskId)) " +
+            "ORDER BY o.userId, o.id")
+    List<NotificationOutbox> findDeliverable(@Param("ids") Collection<Long> ids);
+
+    // Retirer un lot d'évènements distribués
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox o WHERE o.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Abandonner les évènements d'une tâche supprimée
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox o WHERE o.taskId = :taskId")
+    void deleteByTaskId(@Param("taskId") Long taskId);
+
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox o WHERE o.taskId IN :taskIds")
+    int deleteByTaskIdIn(@Param("taskIds") Collection<Long> taskIds);
+}
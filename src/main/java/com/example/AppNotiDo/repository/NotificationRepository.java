@@ -2,6 +2,9 @@ package com.example.AppNotiDo.repository;
 
 import com.example.AppNotiDo.domain.Notification;
 import com.example.AppNotiDo.domain.NotificationType;
+import com.example.AppNotiDo.dto.RecentNotificationDTO;
+import com.example.AppNotiDo.dto.UnreadCountDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,6 +12,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,31 +21,75 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     // Récupérer toutes les notifications d'un user, triées par date (plus récentes en premier)
     List<Notification> findByUserIdOrderByCreatedAtDesc(Long userId);
 
+    // Flux paginé par curseur : première page, puis page suivant (createdAt, id) (index user_id, created_at)
+    @Query("SELECT n FROM Notification n LEFT JOIN FETCH n.task WHERE n.user.id = :userId " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT n FROM Notification n LEFT JOIN FETCH n.task WHERE n.user.id = :userId " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedAfter(@Param("userId") Long userId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+
     // Récupérer les notifications non lues d'un user
     List<Notification> findByUserIdAndIsReadFalseOrderByCreatedAtDesc(Long userId);
 
     // Compter les notifications non lues
     Long countByUserIdAndIsReadFalse(Long userId);
 
+    // Compter les notifications non lues de plusieurs users en une requête
+    @Query("SELECT new com.example.AppNotiDo.dto.UnreadCountDTO(n.user.id, COUNT(n)) FROM Notification n " +
+            "WHERE n.user.id IN :userIds AND n.isRead = false GROUP BY n.user.id")
+    List<UnreadCountDTO> countUnreadByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // Compter les notifications non lues d'une tâche / d'un lot
+    long countByTaskIdAndIsReadFalse(Long taskId);
+
+    long countByIdInAndIsReadFalse(Collection<Long> ids);
+
+    long countByTaskIdInAndIsReadFalse(Collection<Long> taskIds);
+
     // Compter toutes les notifications d'un user
     Long countByUserId(Long userId);
 
-    // Récupérer les X notifications les plus anciennes d'un user
-    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId ORDER BY n.createdAt ASC")
-    List<Notification> findOldestByUserId(@Param("userId") Long userId);
+    // Ids des notifications à purger en priorité : lues d'abord, puis les plus anciennes
+    // (la taille de la page donne le nombre de lignes au-delà de la limite)
+    @Query("SELECT n.id FROM Notification n WHERE n.user.id = :userId " +
+            "ORDER BY n.isRead DESC, n.createdAt ASC, n.id ASC")
+    List<Long> findRetentionCandidateIds(@Param("userId") Long userId, Pageable pageable);
 
-    // Supprimer les notifications les plus anciennes au-delà de la limite
+    // Supprimer un lot de notifications en une seule requête
     @Modifying
-    @Query("DELETE FROM Notification n WHERE n.id IN " +
-            "(SELECT n2.id FROM Notification n2 WHERE n2.user.id = :userId ORDER BY n2.createdAt ASC LIMIT :count)")
-    void deleteOldestByUserId(@Param("userId") Long userId, @Param("count") int count);
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Utilisateurs qui dépassent la limite de notifications
+    @Query("SELECT n.user.id FROM Notification n GROUP BY n.user.id HAVING COUNT(n) > :max")
+    List<Long> findUserIdsWithMoreThan(@Param("max") long max);
 
     // Vérifier si une notification existe déjà pour une tâche et un type donné (éviter les doublons)
     boolean existsByTaskIdAndTypeAndCreatedAtAfter(Long taskId, NotificationType type, LocalDateTime after);
 
+    // Même vérification en une seule requête pour tout un lot de tâches (scheduler)
+    @Query("SELECT new com.example.AppNotiDo.dto.RecentNotificationDTO(n.task.id, n.type, MAX(n.createdAt)) " +
+            "FROM Notification n " +
+            "WHERE n.task.id IN :taskIds AND n.type IN :types AND n.createdAt > :after " +
+            "GROUP BY n.task.id, n.type")
+    List<RecentNotificationDTO> findRecentByTaskIdsAndTypes(@Param("taskIds") Collection<Long> taskIds,
+                                                            @Param("types") Collection<NotificationType> types,
+                                                            @Param("after") LocalDateTime after);
+
     // Supprimer les notifications d'une tâche (quand la tâche est supprimée)
     void deleteByTaskId(Long taskId);
 
+    // Supprimer les notifications d'un lot de tâches en une requête
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.task.id IN :taskIds")
+    int deleteByTaskIdIn(@Param("taskIds") Collection<Long> taskIds);
+
     // Marquer toutes les notifications d'un user comme lues
     @Modifying
     @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt WHERE n.user.id = :userId AND n.isRead = false")
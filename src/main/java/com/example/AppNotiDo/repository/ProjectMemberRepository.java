@@ -3,11 +3,15 @@ package com.example.AppNotiDo.repository;
 import com.example.AppNotiDo.domain.MemberStatus;
 import com.example.AppNotiDo.domain.ProjectMember;
 import com.example.AppNotiDo.domain.ProjectRole;
+import com.example.AppNotiDo.dto.DisplayOrderDTO;
+import com.example.AppNotiDo.dto.ProjectSummaryDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +34,50 @@ public interface ProjectMemberRepository extends JpaRepository<ProjectMember, Lo
     @Query("SELECT pm FROM ProjectMember pm WHERE pm.user.id = :userId AND pm.status = :status")
     List<ProjectMember> findByUserIdAndStatus(@Param("userId") Long userId, @Param("status") MemberStatus status);
 
+    // Memberships d'un user pour un lot de projets (rôles en une requête)
+    @Query("SELECT pm FROM ProjectMember pm WHERE pm.user.id = :userId AND pm.project.id IN :projectIds")
+    List<ProjectMember> findByUserIdAndProjectIdIn(@Param("userId") Long userId,
+                                                   @Param("projectIds") Collection<Long> projectIds);
+
+    // Listing des projets d'un membre : colonnes du projet + rôle en une requête, triés par displayOrder.
+    // archived null = tous, query null = pas de filtre sur le nom (!, % et _ échappés par l'appelant) ;
+    // pagination SQL via pageable
+    @Query("SELECT new com.example.AppNotiDo.dto.ProjectSummaryDTO(p.id, p.name, p.description, p.color, p.icon, " +
+            "p.isArchived, p.displayOrder, p.createdAt, p.updatedAt, pm.role) " +
+            "FROM ProjectMember pm JOIN pm.project p " +
+            "WHERE pm.user.id = :userId AND pm.status = :status " +
+            "AND (:archived IS NULL OR p.isArchived = :archived) " +
+            "AND (:query IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :query, '%')) ESCAPE '!') " +
+            "ORDER BY p.displayOrder ASC, p.id ASC")
+    List<ProjectSummaryDTO> findProjectSummaries(@Param("userId") Long userId,
+                                                 @Param("status") MemberStatus status,
+                                                 @Param("archived") Boolean archived,
+                                                 @Param("query") String query,
+                                                 Pageable pageable);
+
+    // Projets archivés d'un membre, du plus récemment modifié au plus ancien
+    @Query("SELECT new com.example.AppNotiDo.dto.ProjectSummaryDTO(p.id, p.name, p.description, p.color, p.icon, " +
+            "p.isArchived, p.displayOrder, p.createdAt, p.updatedAt, pm.role) " +
+            "FROM ProjectMember pm JOIN pm.project p " +
+            "WHERE pm.user.id = :userId AND pm.status = :status AND p.isArchived = true " +
+            "ORDER BY p.updatedAt DESC, p.id DESC")
+    List<ProjectSummaryDTO> findArchivedProjectSummaries(@Param("userId") Long userId,
+                                                         @Param("status") MemberStatus status,
+                                                         Pageable pageable);
+
+    // Positions actuelles des projets d'une liste auxquels le membre a accès
+    @Query("SELECT new com.example.AppNotiDo.dto.DisplayOrderDTO(p.id, p.displayOrder) " +
+            "FROM ProjectMember pm JOIN pm.project p " +
+            "WHERE pm.user.id = :userId AND pm.status = :status AND p.id IN :projectIds")
+    List<DisplayOrderDTO> findDisplayOrders(@Param("userId") Long userId,
+                                            @Param("status") MemberStatus status,
+                                            @Param("projectIds") Collection<Long> projectIds);
+
+    // Compter les projets (non archivés) d'un membre sans les charger
+    @Query("SELECT COUNT(pm) FROM ProjectMember pm JOIN pm.project p " +
+            "WHERE pm.user.id = :userId AND pm.status = :status AND p.isArchived = false")
+    long countActiveProjects(@Param("userId") Long userId, @Param("status") MemberStatus status);
+
     // Trouver le owner d'un projet
     Optional<ProjectMember> findByProjectIdAndRole(Long projectId, ProjectRole role);
 
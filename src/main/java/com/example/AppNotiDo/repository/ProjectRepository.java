@@ -15,20 +15,20 @@ import java.util.Optional;
 @Repository
 public interface ProjectRepository extends JpaRepository<Project, Long> {
 
-    // Trouver tous les projets d'un utilisateur (non archivés) AVEC les tâches
-    @Query("SELECT DISTINCT p FROM Project p LEFT JOIN FETCH p.tasks WHERE p.user.id = :userId AND p.isArchived = false ORDER BY p.displayOrder ASC")
+    // Trouver tous les projets d'un utilisateur (non archivés)
+    @Query("SELECT p FROM Project p WHERE p.user.id = :userId AND p.isArchived = false ORDER BY p.displayOrder ASC")
     List<Project> findByUserIdAndIsArchivedFalseOrderByDisplayOrderAsc(@Param("userId") Long userId);
 
-    // Trouver tous les projets d'un utilisateur (incluant archivés) AVEC les tâches
-    @Query("SELECT DISTINCT p FROM Project p LEFT JOIN FETCH p.tasks WHERE p.user.id = :userId ORDER BY p.displayOrder ASC")
+    // Trouver tous les projets d'un utilisateur (incluant archivés)
+    @Query("SELECT p FROM Project p WHERE p.user.id = :userId ORDER BY p.displayOrder ASC")
     List<Project> findByUserIdOrderByDisplayOrderAsc(@Param("userId") Long userId);
 
-    // Trouver les projets archivés d'un utilisateur AVEC les tâches
-    @Query("SELECT DISTINCT p FROM Project p LEFT JOIN FETCH p.tasks WHERE p.user.id = :userId AND p.isArchived = true ORDER BY p.updatedAt DESC")
+    // Trouver les projets archivés d'un utilisateur
+    @Query("SELECT p FROM Project p WHERE p.user.id = :userId AND p.isArchived = true ORDER BY p.updatedAt DESC")
     List<Project> findByUserIdAndIsArchivedTrueOrderByUpdatedAtDesc(@Param("userId") Long userId);
 
-    // Trouver un projet par ID et userId (sécurité) AVEC les tâches
-    @Query("SELECT p FROM Project p LEFT JOIN FETCH p.tasks WHERE p.id = :id AND p.user.id = :userId")
+    // Trouver un projet par ID et userId (sécurité)
+    @Query("SELECT p FROM Project p WHERE p.id = :id AND p.user.id = :userId")
     Optional<Project> findByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
 
     // Vérifier si un projet appartient à un utilisateur
@@ -41,8 +41,8 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
     @Query("SELECT COALESCE(MAX(p.displayOrder), 0) FROM Project p WHERE p.user.id = :userId")
     Integer findMaxDisplayOrderByUserId(@Param("userId") Long userId);
 
-    // Rechercher des projets par nom AVEC les tâches
-    @Query("SELECT DISTINCT p FROM Project p LEFT JOIN FETCH p.tasks WHERE p.user.id = :userId AND LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%')) AND p.isArchived = false")
+    // Rechercher des projets par nom
+    @Query("SELECT p FROM Project p WHERE p.user.id = :userId AND LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%')) AND p.isArchived = false")
     List<Project> findByUserIdAndNameContainingIgnoreCaseAndIsArchivedFalse(@Param("userId") Long userId, @Param("name") String name);
 
     Page<Project> findByNameContainingIgnoreCase(String name, Pageable pageable);
@@ -1,12 +1,14 @@
 package com.example.AppNotiDo.repository;
 
 import com.example.AppNotiDo.domain.Subtask;
+import com.example.AppNotiDo.dto.DisplayOrderDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,10 +31,21 @@ public interface SubtaskRepository extends JpaRepository<Subtask, Long> {
     @Query("SELECT COALESCE(MAX(s.displayOrder), 0) FROM Subtask s WHERE s.task.id = :taskId")
     Integer findMaxDisplayOrderByTaskId(@Param("taskId") Long taskId);
 
+    // Positions actuelles des sous-tâches d'une liste qui appartiennent à la tâche
+    @Query("SELECT new com.example.AppNotiDo.dto.DisplayOrderDTO(s.id, s.displayOrder) " +
+            "FROM Subtask s WHERE s.task.id = :taskId AND s.id IN :subtaskIds")
+    List<DisplayOrderDTO> findDisplayOrders(@Param("taskId") Long taskId,
+                                            @Param("subtaskIds") Collection<Long> subtaskIds);
+
     // Supprimer toutes les sous-tâches d'une tâche
     @Modifying
     void deleteByTaskId(Long taskId);
 
+    // Supprimer les sous-tâches d'un lot de tâches
+    @Modifying
+    @Query("DELETE FROM Subtask s WHERE s.task.id IN :taskIds")
+    int deleteByTaskIdIn(@Param("taskIds") Collection<Long> taskIds);
+
     // Vérifier si une sous-tâche appartient à une tâche d'un utilisateur
     @Query("SELECT CASE WHEN COUNT(s) > 0 THEN true ELSE false END FROM Subtask s WHERE s.id = :subtaskId AND s.task.user.id = :userId")
     boolean existsByIdAndTaskUserId(@Param("subtaskId") Long subtaskId, @Param("userId") Long userId);
@@ -1,14 +1,24 @@
 package com.example.AppNotiDo.repository;
 
+import com.example.AppNotiDo.domain.Project;
 import com.example.AppNotiDo.domain.Task;
 import com.example.AppNotiDo.domain.TaskPriority;
 import com.example.AppNotiDo.domain.TaskStatus;
 import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.dto.ProjectTaskCountDTO;
+import com.example.AppNotiDo.dto.RecurringTemplateRefDTO;
+import com.example.AppNotiDo.dto.TaskDeadlineDTO;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -58,6 +68,91 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
             LocalDateTime end
     );
 
+    // Échéances des tâches ouvertes dont le rappel, l'échéance ou le retard tombe dans la fenêtre ]from, to].
+    // backlogFrom permet d'étendre la borne basse des rappels et retards (rattrapage au démarrage).
+    // Pagination par curseur sur (dueDate, id) : passer la dernière ligne lue dans afterDueDate/afterId.
+    // Limité aux utilisateurs de la tranche de l'instance (userId % shardCount = shardIndex).
+    @Query("SELECT new com.example.AppNotiDo.dto.TaskDeadlineDTO(t.id, t.dueDate, t.reminderMinutes, t.notified) " +
+            "FROM Task t WHERE t.status <> :done AND t.dueDate IS NOT NULL " +
+            "AND MOD(t.user.id, :shardCount) = :shardIndex AND (" +
+            "  (t.notified = false AND t.dueDate > :from " +
+            "     AND t.dueDate - coalesce(t.reminderMinutes, 15) minute > :backlogFrom " +
+            "     AND t.dueDate - coalesce(t.reminderMinutes, 15) minute <= :to)" +
+            "  OR (t.dueDate > :from AND t.dueDate <= :to)" +
+            "  OR (t.dueDate > :overdueFrom AND t.dueDate <= :overdueTo)" +
+            ") AND (t.dueDate > :afterDueDate OR (t.dueDate = :afterDueDate AND t.id > :afterId)) " +
+            "ORDER BY t.dueDate ASC, t.id ASC")
+    List<TaskDeadlineDTO> findDeadlinesInWindow(@Param("done") TaskStatus done,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to,
+                                                @Param("backlogFrom") LocalDateTime backlogFrom,
+                                                @Param("overdueFrom") LocalDateTime overdueFrom,
+                                                @Param("overdueTo") LocalDateTime overdueTo,
+                                                @Param("afterDueDate") LocalDateTime afterDueDate,
+                                                @Param("afterId") Long afterId,
+                                                @Param("shardIndex") int shardIndex,
+                                                @Param("shardCount") int shardCount,
+                                                Pageable pageable);
+
+    // Échéances des tâches ouvertes de la tranche modifiées depuis une date (écritures d'autres instances),
+    // jusqu'à la fin de l'horizon chargé
+    @Query("SELECT new com.example.AppNotiDo.dto.TaskDeadlineDTO(t.id, t.dueDate, t.reminderMinutes, t.notified) " +
+            "FROM Task t WHERE t.updatedAt > :since AND t.status <> :done " +
+            "AND t.dueDate IS NOT NULL AND t.dueDate <= :until " +
+            "AND MOD(t.user.id, :shardCount) = :shardIndex")
+    List<TaskDeadlineDTO> findDeadlinesChangedSince(@Param("done") TaskStatus done,
+                                                    @Param("since") LocalDateTime since,
+                                                    @Param("until") LocalDateTime until,
+                                                    @Param("shardIndex") int shardIndex,
+                                                    @Param("shardCount") int shardCount);
+
+    // Charger un lot de tâches avec leur utilisateur en une seule requête
+    @Query("SELECT t FROM Task t JOIN FETCH t.user WHERE t.id IN :ids")
+    List<Task> findAllWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Marquer un lot de tâches comme notifiées (rappel envoyé)
+    @Modifying
+    @Query("UPDATE Task t SET t.notified = true WHERE t.id IN :ids")
+    int markNotifiedByIdIn(@Param("ids") Collection<Long> ids);
+
+    // ========================================
+    // OPÉRATIONS GROUPÉES
+    // ========================================
+
+    // Tâches d'un lot appartenant à l'utilisateur (vérification de propriété en une requête)
+    @Query("SELECT t FROM Task t WHERE t.id IN :ids AND t.user.id = :userId")
+    List<Task> findAllByIdInAndUserId(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.status = :status, t.updatedAt = :now WHERE t.id IN :ids")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("status") TaskStatus status,
+                           @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.priority = :priority, t.updatedAt = :now WHERE t.id IN :ids")
+    int updatePriorityByIdIn(@Param("ids") Collection<Long> ids, @Param("priority") TaskPriority priority,
+                             @Param("now") LocalDateTime now);
+
+    // project null = retirer les tâches de leur projet
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.project = :project, t.updatedAt = :now WHERE t.id IN :ids")
+    int updateProjectByIdIn(@Param("ids") Collection<Long> ids, @Param("project") Project project,
+                            @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.tags = :tags, t.updatedAt = :now WHERE t.id IN :ids")
+    int updateTagsByIdIn(@Param("ids") Collection<Long> ids, @Param("tags") String tags,
+                         @Param("now") LocalDateTime now);
+
+    // Détacher les occurrences générées avant la suppression de leurs templates
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.parentTask = null WHERE t.parentTask.id IN :ids")
+    int clearParentTaskByParentIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Task t WHERE t.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
     // ===== AJOUTER CES MÉTHODES DANS TaskRepository.java =====
 
     // Trouver les tâches d'un projet
@@ -78,12 +173,46 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     // Compter les tâches terminées d'un projet
     long countByProjectIdAndStatus(Long projectId, TaskStatus status);
 
+    // Compteurs de tâches par projet et par statut, pour un lot de projets en une requête
+    @Query("SELECT new com.example.AppNotiDo.dto.ProjectTaskCountDTO(t.project.id, t.status, COUNT(t)) " +
+            "FROM Task t WHERE t.project.id IN :projectIds GROUP BY t.project.id, t.status")
+    List<ProjectTaskCountDTO> countByProjectIdInGroupByStatus(@Param("projectIds") Collection<Long> projectIds);
+
     // Trouver une tâche par ID et userId (sécurité)
     Optional<Task> findByIdAndUserId(Long id, Long userId);
 
     // Trouver les templates de récurrence dont la prochaine occurrence est avant une date
     List<Task> findByIsRecurringTemplateTrueAndNextOccurrenceBefore(LocalDateTime date);
 
+    // Références (id, propriétaire) des templates à matérialiser avant une date, sans charger les tâches,
+    // pour les utilisateurs de la tranche de l'instance (userId % shardCount = shardIndex)
+    @Query("SELECT new com.example.AppNotiDo.dto.RecurringTemplateRefDTO(t.id, t.user.id) " +
+            "FROM Task t WHERE t.isRecurringTemplate = true AND t.nextOccurrence < :before " +
+            "AND MOD(t.user.id, :shardCount) = :shardIndex " +
+            "ORDER BY t.user.id, t.id")
+    List<RecurringTemplateRefDTO> findDueTemplateRefs(@Param("before") LocalDateTime before,
+                                                      @Param("shardIndex") int shardIndex,
+                                                      @Param("shardCount") int shardCount);
+
+    // Occurrences déjà écrites en base pour des templates, dont la date prévue tombe dans une période
+    // (les occurrences antérieures à occurrence_date n'ont que leur échéance)
+    @Query("SELECT t FROM Task t WHERE t.parentTask.id IN :templateIds " +
+            "AND COALESCE(t.occurrenceDate, t.dueDate) BETWEEN :from AND :to")
+    List<Task> findOccurrencesOf(@Param("templateIds") Collection<Long> templateIds,
+                                 @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Template verrouillé pendant la création de ses occurrences : les créations concurrentes
+    // (job, tâche terminée, action sur une occurrence virtuelle) passent l'une après l'autre
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Task t WHERE t.id = :id")
+    Optional<Task> findByIdForUpdate(@Param("id") Long id);
+
+    // Occurrence écrite en base pour une date prévue d'un template
+    @Query("SELECT t FROM Task t WHERE t.parentTask.id = :templateId " +
+            "AND COALESCE(t.occurrenceDate, t.dueDate) = :occurrenceDate")
+    List<Task> findOccurrence(@Param("templateId") Long templateId,
+                              @Param("occurrenceDate") LocalDateTime occurrenceDate);
+
     // Trouver les templates de récurrence d'un utilisateur
     List<Task> findByUserIdAndIsRecurringTemplateTrue(Long userId);
 
@@ -0,0 +1,359 @@
+package com.example.AppNotiDo.scheduler;
+
+import com.example.AppNotiDo.domain.Task;
+import com.example.AppNotiDo.domain.TaskStatus;
+import com.example.AppNotiDo.dto.TaskDeadlineDTO;
+import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.util.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * File de priorité des instants de rappel, d'échéance et de retard des tâches ouvertes.
+ * Elle ne contient que les instants compris dans un horizon glissant (HORIZON_MINUTES),
+ * alimenté à chaque tick par une requête fenêtrée paginée par curseur, et tenue à jour
+ * par les écritures de TaskService. La mémoire reste donc bornée par l'activité de l'horizon,
+ * pas par le nombre total de tâches. Les retards ne sont suivis que pendant OVERDUE_LOOKBACK_HOURS
+ * après l'échéance : les tâches abandonnées depuis plus longtemps ne restent pas dans la file.
+ * Seules les tâches des utilisateurs de la tranche assignée à l'instance (assign) sont suivies ;
+ * en cluster, syncChanges reprend les écritures faites sur les autres instances.
+ */
+@Component
+public class DeadlineWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineWheel.class);
+
+    public static final int DEFAULT_REMINDER_MINUTES = 15;
+    public static final int OVERDUE_DELAY_MINUTES = 5;
+    public static final int HORIZON_MINUTES = 60;
+    // Durée pendant laquelle un retard est encore rappelé (et rechargé au démarrage ou à la reprise)
+    public static final int OVERDUE_LOOKBACK_HOURS = 24;
+
+    private static final int PAGE_SIZE = 500;
+    // Recouvrement de la reprise des écritures distantes (horloges des instances légèrement décalées)
+    private static final int SYNC_OVERLAP_SECONDS = 30;
+
+    public enum Kind {
+        REMINDER,
+        DEADLINE,
+        OVERDUE
+    }
+
+    private record Entry(LocalDateTime instant, Long taskId, Kind kind, long generation)
+            implements Comparable<Entry> {
+
+        @Override
+        public int compareTo(Entry other) {
+            int cmp = instant.compareTo(other.instant);
+            return cmp != 0 ? cmp : taskId.compareTo(other.taskId);
+        }
+    }
+
+    // Génération courante d'une tâche et nombre d'entrées encore en attente pour elle
+    private static final class Slot {
+        private final long generation;
+        private int pending;
+
+        private Slot(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    private final TaskRepository taskRepository;
+
+    // Les entrées d'une génération périmée (tâche modifiée ou supprimée) sont ignorées au dépilement
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private final Map<Long, Slot> slots = new HashMap<>();
+    private long nextGeneration = 0;
+    private int liveEntries = 0;
+
+    // Borne haute des instants déjà chargés depuis la base (null tant qu'aucune tranche n'est assignée)
+    private LocalDateTime loadedUntil;
+
+    // Tranche d'utilisateurs suivie (null avant la première assignation) et date de la dernière reprise
+    private UserShard shard;
+    private LocalDateTime syncedUntil;
+
+    public DeadlineWheel(TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+    }
+
+    /**
+     * Chargement initial de tous les utilisateurs (instance seule)
+     */
+    public void load() {
+        assign(UserShard.ALL, LocalDateTime.now());
+    }
+
+    /**
+     * Change la tranche d'utilisateurs suivie : la file est vidée puis rechargée pour la nouvelle tranche
+     * (horizon à venir, rappels non envoyés et retards des OVERDUE_LOOKBACK_HOURS dernières heures).
+     * Sans effet si la tranche est inchangée.
+     */
+    public void assign(UserShard newShard, LocalDateTime now) {
+        synchronized (this) {
+            if (newShard.equals(shard)) {
+                return;
+            }
+            queue.clear();
+            slots.clear();
+            liveEntries = 0;
+            shard = newShard;
+            syncedUntil = now;
+            loadedUntil = null;
+        }
+        if (newShard.isEmpty()) {
+            logger.info("Deadline wheel released (no users assigned to this instance)");
+            return;
+        }
+        int count = refill(now.minusMinutes(1), now.plusMinutes(HORIZON_MINUTES),
+                now.minusHours(OVERDUE_LOOKBACK_HOURS));
+        logger.info("Deadline wheel loaded with {} tasks for shard {}", count, newShard);
+    }
+
+    public synchronized UserShard getShard() {
+        return shard;
+    }
+
+    /**
+     * Reprogramme les tâches de la tranche modifiées depuis la dernière reprise, y compris sur d'autres
+     * instances (dont les écritures n'ont pas appelé schedule ici)
+     */
+    public int syncChanges(LocalDateTime now) {
+        UserShard current;
+        LocalDateTime since;
+        LocalDateTime until;
+        synchronized (this) {
+            if (shard == null || shard.isEmpty() || loadedUntil == null) {
+                return 0;
+            }
+            current = shard;
+            since = syncedUntil.minusSeconds(SYNC_OVERLAP_SECONDS);
+            until = loadedUntil;
+            syncedUntil = now;
+        }
+
+        List<TaskDeadlineDTO> changed = taskRepository.findDeadlinesChangedSince(TaskStatus.DONE, since, until,
+                current.index(), current.count());
+        for (TaskDeadlineDTO deadline : changed) {
+            arm(deadline.getId(), deadline.getDueDate(), deadline.getReminderMinutes(), deadline.getNotified());
+        }
+        return changed.size();
+    }
+
+    /**
+     * Fait glisser l'horizon jusqu'à now + HORIZON_MINUTES en ne chargeant que la nouvelle tranche
+     */
+    public void advance(LocalDateTime now) {
+        LocalDateTime to = now.plusMinutes(HORIZON_MINUTES);
+        LocalDateTime from;
+        synchronized (this) {
+            if (loadedUntil == null || !to.isAfter(loadedUntil)) {
+                return;
+            }
+            from = loadedUntil;
+        }
+        int count = refill(from, to, from);
+        logger.debug("Deadline wheel advanced to {} ({} tasks)", to, count);
+    }
+
+    /**
+     * (Re)programme les échéances d'une tâche après le commit de la transaction courante
+     */
+    public void schedule(Task task) {
+        if (task == null || task.getId() == null) {
+            return;
+        }
+
+        Long taskId = task.getId();
+        Long userId = task.getUser() != null ? task.getUser().getId() : null;
+        LocalDateTime dueDate = task.getDueDate();
+        Integer reminderMinutes = task.getReminderMinutes();
+        Boolean notified = task.getNotified();
+        boolean open = dueDate != null && task.getStatus() != TaskStatus.DONE;
+
+        TransactionUtils.afterCommit(() -> {
+            if (open && owns(userId)) {
+                arm(taskId, dueDate, reminderMinutes, notified);
+            } else {
+                disarm(taskId);
+            }
+        });
+    }
+
+    /**
+     * Retire une tâche de la file après le commit de la transaction courante
+     */
+    public void cancel(Long taskId) {
+        if (taskId != null) {
+            TransactionUtils.afterCommit(() -> disarm(taskId));
+        }
+    }
+
+    /**
+     * Reprogramme un seul type d'échéance (ex : rappel de retard horaire)
+     */
+    public synchronized void rearm(Long taskId, Kind kind, LocalDateTime instant) {
+        Slot slot = slots.computeIfAbsent(taskId, id -> new Slot(++nextGeneration));
+        enqueue(taskId, slot, kind, instant);
+    }
+
+    /**
+     * Dépile toutes les échéances passées, regroupées par tâche
+     */
+    public synchronized Map<Long, EnumSet<Kind>> pollDue(LocalDateTime now) {
+        Map<Long, EnumSet<Kind>> due = new LinkedHashMap<>();
+        while (!queue.isEmpty() && !queue.peek().instant().isAfter(now)) {
+            Entry entry = queue.poll();
+            Slot slot = slots.get(entry.taskId());
+            if (slot == null || slot.generation != entry.generation()) {
+                continue;
+            }
+
+            liveEntries--;
+            if (--slot.pending == 0) {
+                slots.remove(entry.taskId());
+            }
+            due.computeIfAbsent(entry.taskId(), id -> EnumSet.noneOf(Kind.class)).add(entry.kind());
+        }
+        return due;
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    private synchronized boolean owns(Long userId) {
+        return shard != null && shard.owns(userId);
+    }
+
+    /**
+     * Lit la fenêtre ]from, to] page par page (curseur sur dueDate, id) pour garder un tas plat
+     */
+    private int refill(LocalDateTime from, LocalDateTime to, LocalDateTime backlogFrom) {
+        // Les écritures commitées à partir d'ici sont programmées jusqu'à 'to' par arm()
+        UserShard current;
+        synchronized (this) {
+            loadedUntil = to;
+            current = shard;
+        }
+
+        // Aucune échéance de la fenêtre n'est antérieure à overdueFrom : c'est le point de départ du curseur
+        LocalDateTime overdueFrom = backlogFrom.minusMinutes(OVERDUE_DELAY_MINUTES);
+        Pageable page = PageRequest.of(0, PAGE_SIZE);
+        LocalDateTime afterDueDate = overdueFrom;
+        Long afterId = 0L;
+        int count = 0;
+        List<TaskDeadlineDTO> batch;
+
+        do {
+            batch = taskRepository.findDeadlinesInWindow(TaskStatus.DONE, from, to, backlogFrom,
+                    overdueFrom, to.minusMinutes(OVERDUE_DELAY_MINUTES),
+                    afterDueDate, afterId, current.index(), current.count(), page);
+
+            for (TaskDeadlineDTO deadline : batch) {
+                load(deadline, from, to, backlogFrom);
+            }
+
+            count += batch.size();
+            if (!batch.isEmpty()) {
+                TaskDeadlineDTO last = batch.get(batch.size() - 1);
+                afterDueDate = last.getDueDate();
+                afterId = last.getId();
+            }
+        } while (batch.size() == PAGE_SIZE);
+
+        return count;
+    }
+
+    // Ajoute les instants d'une ligne lue en base qui tombent dans la fenêtre chargée
+    private synchronized void load(TaskDeadlineDTO deadline, LocalDateTime from, LocalDateTime to,
+                                   LocalDateTime backlogFrom) {
+        Long taskId = deadline.getId();
+        LocalDateTime dueDate = deadline.getDueDate();
+        LocalDateTime reminderTime = dueDate.minusMinutes(reminderMinutes(deadline.getReminderMinutes()));
+        LocalDateTime overdueTime = dueDate.plusMinutes(OVERDUE_DELAY_MINUTES);
+
+        Slot slot = slots.computeIfAbsent(taskId, id -> new Slot(++nextGeneration));
+        if (!Boolean.TRUE.equals(deadline.getNotified()) && dueDate.isAfter(from) && inWindow(reminderTime, backlogFrom, to)) {
+            enqueue(taskId, slot, Kind.REMINDER, reminderTime);
+        }
+        if (inWindow(dueDate, from, to)) {
+            enqueue(taskId, slot, Kind.DEADLINE, dueDate);
+        }
+        if (inWindow(overdueTime, backlogFrom, to)) {
+            enqueue(taskId, slot, Kind.OVERDUE, overdueTime);
+        }
+        if (slot.pending == 0) {
+            slots.remove(taskId);
+        }
+    }
+
+    // Remplace la programmation d'une tâche : seuls les instants déjà couverts par l'horizon sont gardés
+    private synchronized void arm(Long taskId, LocalDateTime dueDate, Integer reminderMinutes, Boolean notified) {
+        disarm(taskId);
+        if (loadedUntil == null) {
+            return;
+        }
+
+        Slot slot = new Slot(++nextGeneration);
+        LocalDateTime reminderTime = dueDate.minusMinutes(reminderMinutes(reminderMinutes));
+        LocalDateTime overdueTime = dueDate.plusMinutes(OVERDUE_DELAY_MINUTES);
+
+        if (!Boolean.TRUE.equals(notified) && !reminderTime.isAfter(loadedUntil)) {
+            enqueue(taskId, slot, Kind.REMINDER, reminderTime);
+        }
+        if (!dueDate.isAfter(loadedUntil)) {
+            enqueue(taskId, slot, Kind.DEADLINE, dueDate);
+        }
+        if (!overdueTime.isAfter(loadedUntil)) {
+            enqueue(taskId, slot, Kind.OVERDUE, overdueTime);
+        }
+        if (slot.pending > 0) {
+            slots.put(taskId, slot);
+        }
+    }
+
+    private synchronized void disarm(Long taskId) {
+        Slot slot = slots.remove(taskId);
+        if (slot != null) {
+            liveEntries -= slot.pending;
+        }
+        compactIfNeeded();
+    }
+
+    private void enqueue(Long taskId, Slot slot, Kind kind, LocalDateTime instant) {
+        queue.add(new Entry(instant, taskId, kind, slot.generation));
+        slot.pending++;
+        liveEntries++;
+    }
+
+    // Purge les entrées périmées quand elles dominent la file (tâches souvent modifiées)
+    private void compactIfNeeded() {
+        if (queue.size() > 1024 && queue.size() > liveEntries * 2) {
+            queue.removeIf(entry -> {
+                Slot slot = slots.get(entry.taskId());
+                return slot == null || slot.generation != entry.generation();
+            });
+        }
+    }
+
+    private static boolean inWindow(LocalDateTime instant, LocalDateTime from, LocalDateTime to) {
+        return instant.isAfter(from) && !instant.isAfter(to);
+    }
+
+    private static int reminderMinutes(Integer reminderMinutes) {
+        return reminderMinutes != null ? reminderMinutes : DEFAULT_REMINDER_MINUTES;
+    }
+}
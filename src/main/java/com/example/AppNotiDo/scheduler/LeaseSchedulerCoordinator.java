@@ -0,0 +1,39 @@
+package com.example.AppNotiDo.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Un bail par job en base : son détenteur traite tous les utilisateurs, les autres instances restent
+ * en attente et reprennent le job à l'expiration du bail si le détenteur s'arrête.
+ */
+@Component
+@ConditionalOnProperty(name = "scheduler.coordination", havingValue = "lease")
+public class LeaseSchedulerCoordinator implements SchedulerCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaseSchedulerCoordinator.class);
+
+    private final SchedulerLeaseManager leaseManager;
+
+    public LeaseSchedulerCoordinator(SchedulerLeaseManager leaseManager) {
+        this.leaseManager = leaseManager;
+    }
+
+    @Override
+    public UserShard acquire(String job, Duration leaseDuration) {
+        if (leaseManager.tryAcquire(job, leaseDuration)) {
+            return UserShard.ALL;
+        }
+        logger.debug("Lease '{}' held by another instance", job);
+        return UserShard.NONE;
+    }
+
+    @Override
+    public void release(String job) {
+        leaseManager.release(job);
+    }
+}
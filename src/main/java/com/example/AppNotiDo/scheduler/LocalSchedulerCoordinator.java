@@ -0,0 +1,24 @@
+package com.example.AppNotiDo.scheduler;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Instance unique : tous les jobs traitent tous les utilisateurs
+ */
+@Component
+@ConditionalOnProperty(name = "scheduler.coordination", havingValue = "local", matchIfMissing = true)
+public class LocalSchedulerCoordinator implements SchedulerCoordinator {
+
+    @Override
+    public UserShard acquire(String job, Duration leaseDuration) {
+        return UserShard.ALL;
+    }
+
+    @Override
+    public boolean isClustered() {
+        return false;
+    }
+}
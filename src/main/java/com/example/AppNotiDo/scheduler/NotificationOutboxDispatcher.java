@@ -0,0 +1,103 @@
+package com.example.AppNotiDo.scheduler;
+
+import com.example.AppNotiDo.domain.Notification;
+import com.example.AppNotiDo.domain.NotificationOutbox;
+import com.example.AppNotiDo.repository.NotificationOutboxRepository;
+import com.example.AppNotiDo.repository.NotificationRepository;
+import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.repository.UserRepository;
+import com.example.AppNotiDo.service.NotificationRetentionService;
+import com.example.AppNotiDo.service.NotificationService;
+import com.example.AppNotiDo.service.UnreadCounterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Distribue les notifications de l'outbox vers la table notifications, par lots,
+ * hors des transactions des requêtes utilisateur.
+ */
+@Component
+public class NotificationOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxDispatcher.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationRepository notificationRepository;
+    private final UserRepository userRepository;
+    private final TaskRepository taskRepository;
+    private final NotificationRetentionService retentionService;
+    private final NotificationService notificationService;
+    private final UnreadCounterService unreadCounters;
+
+    public NotificationOutboxDispatcher(NotificationOutboxRepository outboxRepository,
+                                        NotificationRepository notificationRepository,
+                                        UserRepository userRepository,
+                                        TaskRepository taskRepository,
+                                        NotificationRetentionService retentionService,
+                                        NotificationService notificationService,
+                                        UnreadCounterService unreadCounters) {
+        this.outboxRepository = outboxRepository;
+        this.notificationRepository = notificationRepository;
+        this.userRepository = userRepository;
+        this.taskRepository = taskRepository;
+        this.retentionService = retentionService;
+        this.notificationService = notificationService;
+        this.unreadCounters = unreadCounters;
+    }
+
+    /**
+     * Déplace un lot d'évènements : lecture, insertion en batchs JDBC, suppression, dans une même transaction
+     */
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms:1000}")
+    @Transactional
+    public int dispatch() {
+        List<NotificationOutbox> batch = outboxRepository.findNextBatch(LocalDateTime.now(),
+                PageRequest.of(0, BATCH_SIZE));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = batch.stream().map(NotificationOutbox::getId).toList();
+        List<Notification> notifications = outboxRepository.findDeliverable(ids).stream()
+                .map(this::toNotification)
+                .toList();
+        notificationRepository.saveAll(notifications);
+        int inserted = notifications.size();
+        outboxRepository.deleteByIdIn(ids);
+
+        // Compteurs et rétention sur les notifications réellement insérées (pas les évènements abandonnés)
+        Map<Long, Long> perUser = notifications.stream()
+                .collect(Collectors.groupingBy(n -> n.getUser().getId(), Collectors.counting()));
+        perUser.forEach((userId, count) -> {
+            retentionService.track(userId);
+            unreadCounters.add(UnreadCounterService.Kind.NOTIFICATION, userId, count);
+        });
+
+        // Push SSE des notifications distribuées par ce lot
+        notificationService.publishNewNotifications(notifications);
+
+        logger.debug("Dispatched {} notifications from outbox ({} dropped)", inserted, ids.size() - inserted);
+        return inserted;
+    }
+
+    // Références sans chargement : seules les clés étrangères sont écrites
+    private Notification toNotification(NotificationOutbox event) {
+        Notification notification = new Notification(
+                userRepository.getReferenceById(event.getUserId()),
+                event.getTaskId() != null ? taskRepository.getReferenceById(event.getTaskId()) : null,
+                event.getTitle(), event.getMessage(), event.getType());
+        notification.setCreatedAt(event.getCreatedAt());
+        return notification;
+    }
+}
@@ -1,79 +1,182 @@
 package com.example.AppNotiDo.scheduler;
 
+import com.example.AppNotiDo.domain.NotificationType;
 import com.example.AppNotiDo.domain.Task;
 import com.example.AppNotiDo.domain.TaskStatus;
 import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.scheduler.DeadlineWheel.Kind;
 import com.example.AppNotiDo.service.NotificationService;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Notifications de rappel, d'échéance et de retard. Chaque instance ne traite que la tranche d'utilisateurs
+ * que lui attribue le SchedulerCoordinator (toutes en local, toutes ou aucune en mode bail).
+ */
 @Component
 public class NotificationScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(NotificationScheduler.class);
 
+    private static final int OVERDUE_REPEAT_MINUTES = 60;
+    private static final String JOB = "deadline-notifications";
+
     private final TaskRepository taskRepository;
     private final NotificationService notificationService;
+    private final DeadlineWheel deadlineWheel;
+    private final SchedulerCoordinator coordinator;
+    private final Duration leaseDuration;
 
-    public NotificationScheduler(TaskRepository taskRepository, NotificationService notificationService) {
+    public NotificationScheduler(TaskRepository taskRepository, NotificationService notificationService,
+                                 DeadlineWheel deadlineWheel, SchedulerCoordinator coordinator,
+                                 @Value("${notification.scheduler.lease-seconds:180}") long leaseSeconds) {
         this.taskRepository = taskRepository;
         this.notificationService = notificationService;
+        this.deadlineWheel = deadlineWheel;
+        this.coordinator = coordinator;
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+    }
+
+    /**
+     * Chargement initial de la file des échéances pour la tranche de cette instance
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        assignShard(LocalDateTime.now());
+    }
+
+    /**
+     * Arrêt de l'instance : libère le bail pour qu'une autre instance reprenne sans attendre son expiration
+     */
+    @PreDestroy
+    public void stop() {
+        coordinator.release(JOB);
+    }
+
+    // Prend (ou prolonge) la tranche de cette instance et recharge la file si elle a changé
+    private UserShard assignShard(LocalDateTime now) {
+        UserShard shard = coordinator.acquire(JOB, leaseDuration);
+        deadlineWheel.assign(shard, now);
+        return shard;
     }
 
     /**
      * Vérifie toutes les minutes les tâches qui nécessitent une notification
      */
-    @Scheduled(fixedRate = 60000) // Toutes les 60 secondes
+    @Scheduled(fixedRateString = "${notification.scheduler.interval-ms:60000}") // Toutes les 60 secondes par défaut
     @Transactional
     public void checkTasksForNotifications() {
         LocalDateTime now = LocalDateTime.now();
+        UserShard shard = assignShard(now);
+        if (shard.isEmpty()) {
+            return;
+        }
+
+        // En cluster, reprendre les tâches modifiées par les autres instances
+        if (coordinator.isClustered()) {
+            deadlineWheel.syncChanges(now);
+        }
 
-        logger.debug("Checking tasks for notifications at {}", now);
+        // Charger la tranche suivante de l'horizon, puis dépiler uniquement les tâches
+        // dont un instant (rappel, échéance, retard) est passé
+        deadlineWheel.advance(now);
+        Map<Long, EnumSet<Kind>> dueKinds = deadlineWheel.pollDue(now);
+        if (dueKinds.isEmpty()) {
+            return;
+        }
+
+        logger.debug("Checking {} tasks for notifications at {}", dueKinds.size(), now);
 
-        // Récupérer toutes les tâches non terminées avec une date d'échéance
-        List<Task> tasksWithDueDate = taskRepository.findByStatusNotAndDueDateIsNotNull(TaskStatus.DONE);
+        // L'état en base fait foi : les tâches supprimées ou terminées entre-temps sont ignorées
+        List<Task> tasks = taskRepository.findAllWithUserByIdIn(dueKinds.keySet());
 
-        for (Task task : tasksWithDueDate) {
-            if (task.getDueDate() == null || task.getUser() == null) {
+        // Collecter les notifications candidates du tick, créées ensuite en un seul lot
+        Map<Long, EnumSet<NotificationType>> candidates = new HashMap<>();
+        List<Long> remindedIds = new ArrayList<>();
+        // Instant de retard (échéance + 5 min) des tâches à rappeler, par id
+        Map<Long, LocalDateTime> overdueTimes = new HashMap<>();
+
+        for (Task task : tasks) {
+            if (task.getDueDate() == null || task.getStatus() == TaskStatus.DONE
+                    || !shard.owns(task.getUser().getId())) {
                 continue;
             }
 
+            EnumSet<Kind> kinds = dueKinds.get(task.getId());
             LocalDateTime dueDate = task.getDueDate();
-            Integer reminderMinutes = task.getReminderMinutes() != null ? task.getReminderMinutes() : 15;
+            Integer reminderMinutes = task.getReminderMinutes() != null
+                    ? task.getReminderMinutes() : DeadlineWheel.DEFAULT_REMINDER_MINUTES;
             LocalDateTime reminderTime = dueDate.minusMinutes(reminderMinutes);
 
             // Notification de rappel (X minutes avant l'échéance)
             // Seulement si pas encore notifié ET on est dans la fenêtre de rappel
-            if (!Boolean.TRUE.equals(task.getNotified()) &&
-                    now.isAfter(reminderTime) &&
+            if (kinds.contains(Kind.REMINDER) &&
+                    !Boolean.TRUE.equals(task.getNotified()) &&
+                    !now.isBefore(reminderTime) &&
                     now.isBefore(dueDate)) {
-
-                logger.info("Creating reminder notification for task: {}", task.getTitle());
-                notificationService.createReminderNotification(task);
-
-                // Marquer la tâche comme notifiée pour éviter les doublons
-                task.setNotified(true);
-                taskRepository.save(task);
+                addCandidate(candidates, task, NotificationType.REMINDER);
+                remindedIds.add(task.getId());
             }
 
             // Notification d'échéance atteinte (dans la minute de l'échéance)
-            if (now.isAfter(dueDate) && now.isBefore(dueDate.plusMinutes(1))) {
-                logger.info("Creating deadline notification for task: {}", task.getTitle());
-                notificationService.createDeadlineNotification(task);
+            if (kinds.contains(Kind.DEADLINE) && !now.isBefore(dueDate) && now.isBefore(dueDate.plusMinutes(1))) {
+                addCandidate(candidates, task, NotificationType.DEADLINE);
             }
 
-            // Notification de retard (tâche non terminée, échéance dépassée de plus de 5 minutes)
-            // Le service NotificationService gère déjà les doublons avec un check sur les 5 dernières minutes
-            if (now.isAfter(dueDate.plusMinutes(5)) && task.getStatus() != TaskStatus.DONE) {
-                logger.info("Creating overdue notification for task: {}", task.getTitle());
-                notificationService.createOverdueNotification(task);
+            // Notification de retard, répétée toutes les heures tant que la tâche n'est pas terminée,
+            // pendant OVERDUE_LOOKBACK_HOURS (la file ne garde pas les tâches abandonnées)
+            if (kinds.contains(Kind.OVERDUE)) {
+                LocalDateTime overdueTime = dueDate.plusMinutes(DeadlineWheel.OVERDUE_DELAY_MINUTES);
+                if (now.isBefore(overdueTime)) {
+                    // Échéance repoussée hors TaskService : on reprogramme sur la date en base
+                    deadlineWheel.rearm(task.getId(), Kind.OVERDUE, overdueTime);
+                    continue;
+                }
+                addCandidate(candidates, task, NotificationType.OVERDUE);
+                overdueTimes.put(task.getId(), overdueTime);
             }
         }
+
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Map<Long, EnumSet<NotificationType>> created = notificationService.createDueNotifications(tasks, candidates);
+        logger.info("Created {} deadline notifications for {} candidate tasks",
+                created.values().stream().mapToInt(EnumSet::size).sum(), candidates.size());
+
+        // Marquer les tâches comme notifiées pour éviter les doublons de rappel
+        if (!remindedIds.isEmpty()) {
+            taskRepository.markNotifiedByIdIn(remindedIds);
+        }
+
+        // Si le doublon horaire a bloqué la création, on réessaie à la minute suivante
+        overdueTimes.forEach((taskId, overdueTime) -> {
+            boolean sent = created.getOrDefault(taskId, EnumSet.noneOf(NotificationType.class))
+                    .contains(NotificationType.OVERDUE);
+            LocalDateTime next = now.plusMinutes(sent ? OVERDUE_REPEAT_MINUTES : 1);
+            if (!next.isAfter(overdueTime.plusHours(DeadlineWheel.OVERDUE_LOOKBACK_HOURS))) {
+                deadlineWheel.rearm(taskId, Kind.OVERDUE, next);
+            }
+        });
+    }
+
+    private static void addCandidate(Map<Long, EnumSet<NotificationType>> candidates, Task task, NotificationType type) {
+        candidates.computeIfAbsent(task.getId(), id -> EnumSet.noneOf(NotificationType.class)).add(type);
     }
-}
\ No newline at end of file
+}
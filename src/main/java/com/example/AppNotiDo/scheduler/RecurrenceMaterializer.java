@@ -0,0 +1,180 @@
+package com.example.AppNotiDo.scheduler;
+
+import com.example.AppNotiDo.dto.RecurringTemplateRefDTO;
+import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.service.RecurrenceService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Matérialise les occurrences des templates de récurrence arrivant dans les 24h.
+ * Les templates sont partitionnés par utilisateur (userId modulo nombre de threads) et les
+ * partitions traitées en parallèle sur un pool borné. Chaque template a sa propre transaction
+ * courte : un template lent ou en erreur ne bloque ni ne fait échouer les autres.
+ * Chaque instance ne traite que la tranche d'utilisateurs attribuée par le SchedulerCoordinator.
+ * En mode bail, le détenteur garde le bail d'une exécution à l'autre (durée plus longue que l'intervalle)
+ * et ne le rend qu'à l'arrêt : une seule instance parcourt les templates chaque heure. La création
+ * étant idempotente, une exécution qui déborde du bail ou rejouée après un crash ne produit pas de doublon.
+ */
+@Component
+public class RecurrenceMaterializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecurrenceMaterializer.class);
+
+    private static final int LOOK_AHEAD_HOURS = 24;
+    private static final String JOB = "recurrence-materializer";
+
+    private final TaskRepository taskRepository;
+    private final RecurrenceService recurrenceService;
+    private final SchedulerCoordinator coordinator;
+    private final Duration leaseDuration;
+    private final int threads;
+    private final ExecutorService executor;
+
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    public RecurrenceMaterializer(TaskRepository taskRepository, RecurrenceService recurrenceService,
+                                  SchedulerCoordinator coordinator,
+                                  @Value("${recurrence.materializer.threads:4}") int threads,
+                                  @Value("${recurrence.materializer.lease-seconds:10800}") long leaseSeconds) {
+        this.taskRepository = taskRepository;
+        this.recurrenceService = recurrenceService;
+        this.coordinator = coordinator;
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+        this.threads = Math.max(1, threads);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "recurrence-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Job planifié (toutes les heures par défaut). Inutile en mode virtuel : rien n'est créé à l'avance.
+     */
+    @Scheduled(fixedRateString = "${recurrence.materializer.interval-ms:3600000}")
+    public void materializeDueOccurrences() {
+        if (recurrenceService.isVirtualOccurrences()) {
+            return;
+        }
+        UserShard shard = coordinator.acquire(JOB, leaseDuration);
+        if (shard.isEmpty()) {
+            logger.debug("Recurrence run skipped: no users assigned to this instance");
+            return;
+        }
+        run(LocalDateTime.now(), shard);
+    }
+
+    /**
+     * Métriques de la dernière exécution
+     */
+    public Map<String, Object> getStats() {
+        return lastRun;
+    }
+
+    Map<String, Object> run(LocalDateTime now) {
+        return run(now, UserShard.ALL);
+    }
+
+    Map<String, Object> run(LocalDateTime now, UserShard shard) {
+        long start = System.nanoTime();
+        LocalDateTime lookAhead = now.plusHours(LOOK_AHEAD_HOURS);
+
+        List<List<Long>> partitions = partition(taskRepository.findDueTemplateRefs(lookAhead,
+                shard.index(), shard.count()), shard);
+        int templates = partitions.stream().mapToInt(List::size).sum();
+
+        LongAdder created = new LongAdder();
+        LongAdder skipped = new LongAdder();
+        LongAdder failed = new LongAdder();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (List<Long> templateIds : partitions) {
+            futures.add(executor.submit(() -> process(templateIds, lookAhead, created, skipped, failed)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while waiting for recurrence partitions");
+                break;
+            } catch (ExecutionException e) {
+                logger.error("Recurrence partition failed: {}", e.getCause().getMessage());
+            }
+        }
+
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("startedAt", now);
+        stats.put("shard", shard.toString());
+        stats.put("templates", templates);
+        stats.put("partitions", partitions.size());
+        stats.put("created", created.sum());
+        stats.put("skipped", skipped.sum());
+        stats.put("failed", failed.sum());
+        stats.put("durationMs", durationMs);
+        stats.put("templatesPerSecond", durationMs == 0 ? (double) templates : templates * 1000.0 / durationMs);
+        lastRun = stats;
+
+        logger.info("Recurrence run: {} templates in {} partitions, {} created, {} skipped, {} failed in {} ms",
+                templates, partitions.size(), created.sum(), skipped.sum(), failed.sum(), durationMs);
+        return stats;
+    }
+
+    private void process(List<Long> templateIds, LocalDateTime lookAhead,
+                         LongAdder created, LongAdder skipped, LongAdder failed) {
+        for (Long templateId : templateIds) {
+            try {
+                if (recurrenceService.materializeNextOccurrence(templateId, lookAhead) != null) {
+                    created.increment();
+                } else {
+                    skipped.increment();
+                }
+            } catch (Exception e) {
+                failed.increment();
+                logger.error("Erreur lors de la création de l'occurrence pour la tâche {}: {}",
+                        templateId, e.getMessage());
+            }
+        }
+    }
+
+    // Les templates d'un même utilisateur restent dans la même partition, dans l'ordre des ids.
+    // Les userId d'une tranche ont tous le même reste modulo shard.count : on répartit sur le quotient.
+    private List<List<Long>> partition(List<RecurringTemplateRefDTO> refs, UserShard shard) {
+        Map<Integer, List<Long>> byPartition = new LinkedHashMap<>();
+        for (RecurringTemplateRefDTO ref : refs) {
+            int key = (int) Math.floorMod(Math.floorDiv(ref.getUserId(), (long) shard.count()), (long) threads);
+            byPartition.computeIfAbsent(key, k -> new ArrayList<>()).add(ref.getId());
+        }
+        return new ArrayList<>(byPartition.values());
+    }
+
+    /**
+     * Arrêt de l'instance : libère le bail pour qu'une autre instance reprenne sans attendre son expiration
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        coordinator.release(JOB);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.AppNotiDo.scheduler;
+
+import java.time.Duration;
+
+/**
+ * Répartition des jobs planifiés entre les instances de l'application (scheduler.coordination) :
+ * <ul>
+ *     <li>local (défaut) : une seule instance, qui traite tout ;</li>
+ *     <li>lease : l'instance qui détient le bail du job en base traite tout, les autres rien ;</li>
+ *     <li>shard : chaque instance traite une tranche fixe d'utilisateurs (userId % count).</li>
+ * </ul>
+ * Les jobs appellent acquire au début de chaque exécution et ne traitent que les utilisateurs de la tranche renvoyée.
+ */
+public interface SchedulerCoordinator {
+
+    /**
+     * Tranche d'utilisateurs à traiter par cette instance pour ce job (NONE : rien à faire).
+     * En mode bail, prend ou prolonge le bail pour leaseDuration.
+     */
+    UserShard acquire(String job, Duration leaseDuration);
+
+    /**
+     * Rend la main sur un job (fin d'un job ponctuel ou arrêt de l'instance)
+     */
+    default void release(String job) {
+    }
+
+    /**
+     * Vrai si d'autres instances peuvent écrire les données traitées par cette instance
+     */
+    default boolean isClustered() {
+        return true;
+    }
+}
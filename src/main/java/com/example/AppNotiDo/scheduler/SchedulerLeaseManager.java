@@ -0,0 +1,106 @@
+package com.example.AppNotiDo.scheduler;
+
+import com.example.AppNotiDo.domain.SchedulerLease;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Baux courts en base pour qu'un job planifié ne tourne que sur une instance à la fois.
+ * Chaque opération est une seule requête conditionnelle validée immédiatement, dans sa propre transaction
+ * même si l'appelant est transactionnel (le bail ne reste pas verrouillé jusqu'à la fin du job) :
+ * le bail est pris si la ligne n'existe pas, a expiré ou appartient déjà à cette instance.
+ * Une instance arrêtée brutalement libère donc son bail au plus tard à son expiration.
+ * Les horloges des instances doivent être synchronisées (écart bien inférieur à la durée du bail).
+ */
+@Component
+public class SchedulerLeaseManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLeaseManager.class);
+
+    private static final String ACQUIRE_SQL =
+            "UPDATE " + SchedulerLease.TABLE + " SET " + SchedulerLease.OWNER_COLUMN + " = ?, " +
+            SchedulerLease.EXPIRES_AT_COLUMN + " = ? WHERE " + SchedulerLease.NAME_COLUMN + " = ? AND (" +
+            SchedulerLease.EXPIRES_AT_COLUMN + " <= ? OR " + SchedulerLease.OWNER_COLUMN + " = ?)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO " + SchedulerLease.TABLE + " (" + SchedulerLease.NAME_COLUMN + ", " +
+            SchedulerLease.OWNER_COLUMN + ", " + SchedulerLease.EXPIRES_AT_COLUMN + ") VALUES (?, ?, ?)";
+
+    private static final String RELEASE_SQL =
+            "UPDATE " + SchedulerLease.TABLE + " SET " + SchedulerLease.EXPIRES_AT_COLUMN + " = ? " +
+            "WHERE " + SchedulerLease.NAME_COLUMN + " = ? AND " + SchedulerLease.OWNER_COLUMN + " = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String instanceId;
+
+    public SchedulerLeaseManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 @Value("${scheduler.instance-id:}") String instanceId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.instanceId = instanceId != null && !instanceId.isBlank() ? instanceId : defaultInstanceId();
+    }
+
+    /**
+     * Identifiant de cette instance (propriétaire des baux qu'elle détient)
+     */
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Prend ou prolonge le bail pour la durée donnée
+     *
+     * @return true si cette instance détient le bail
+     */
+    public boolean tryAcquire(String name, Duration duration) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(duration);
+        Integer renewed = transactionTemplate.execute(status ->
+                jdbcTemplate.update(ACQUIRE_SQL, instanceId, expiresAt, name, now, instanceId));
+        if (renewed != null && renewed > 0) {
+            return true;
+        }
+        try {
+            Integer inserted = transactionTemplate.execute(status ->
+                    jdbcTemplate.update(INSERT_SQL, name, instanceId, expiresAt));
+            return inserted != null && inserted > 0;
+        } catch (DataIntegrityViolationException e) {
+            // La ligne existe et le bail est détenu par une autre instance
+            return false;
+        }
+    }
+
+    /**
+     * Libère le bail s'il est détenu par cette instance (les autres peuvent le prendre immédiatement)
+     */
+    public void release(String name) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update(RELEASE_SQL, LocalDateTime.now(), name, instanceId));
+    }
+
+    private static String defaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            logger.debug("Unknown local host name, using a random instance id");
+            host = "instance";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.AppNotiDo.scheduler;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Tranche fixe par instance (ex : index = ordinal du pod, count = nombre de réplicas).
+ * Toutes les instances travaillent en parallèle ; une tranche n'est pas reprise si son instance s'arrête.
+ */
+@Component
+@ConditionalOnProperty(name = "scheduler.coordination", havingValue = "shard")
+public class ShardSchedulerCoordinator implements SchedulerCoordinator {
+
+    private final UserShard shard;
+
+    public ShardSchedulerCoordinator(@Value("${scheduler.shard.index}") int index,
+                                     @Value("${scheduler.shard.count}") int count) {
+        if (index < 0) {
+            throw new IllegalArgumentException("scheduler.shard.index must be between 0 and count - 1");
+        }
+        this.shard = new UserShard(index, count);
+    }
+
+    @Override
+    public UserShard acquire(String job, Duration leaseDuration) {
+        return shard;
+    }
+}
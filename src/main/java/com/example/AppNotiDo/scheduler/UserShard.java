@@ -0,0 +1,39 @@
+package com.example.AppNotiDo.scheduler;
+
+/**
+ * Tranche d'utilisateurs traitée par une instance : ceux dont userId % count == index.
+ * ALL couvre tous les utilisateurs (instance seule ou détentrice du bail), NONE aucun.
+ */
+public record UserShard(int index, int count) {
+
+    public static final UserShard ALL = new UserShard(0, 1);
+    public static final UserShard NONE = new UserShard(-1, 1);
+
+    public UserShard {
+        if (count < 1 || index < -1 || index >= count) {
+            throw new IllegalArgumentException("Invalid shard " + index + "/" + count);
+        }
+    }
+
+    public boolean isEmpty() {
+        return index < 0;
+    }
+
+    /**
+     * Vrai si l'utilisateur appartient à la tranche (un utilisateur inconnu n'appartient qu'à ALL)
+     */
+    public boolean owns(Long userId) {
+        if (isEmpty()) {
+            return false;
+        }
+        if (userId == null) {
+            return count == 1;
+        }
+        return Math.floorMod(userId, (long) count) == index;
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "none" : index + "/" + count;
+    }
+}
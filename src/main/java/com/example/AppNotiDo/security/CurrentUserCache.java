@@ -0,0 +1,127 @@
+package com.example.AppNotiDo.security;
+
+import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.util.TransactionUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache de l'utilisateur connecté, à deux niveaux :
+ * - un memo dans les attributs de la requête HTTP (une seule résolution par requête)
+ * - un cache partagé à courte durée de vie, indexé par username
+ * Les écritures sur un utilisateur (profil, mot de passe, rôle, suppression) doivent appeler invalidate().
+ */
+@Component
+public class CurrentUserCache {
+
+    private static final String REQUEST_ATTRIBUTE = CurrentUserCache.class.getName() + ".user";
+
+    private record CachedUser(User user, long expiresAt) {
+    }
+
+    private final Map<String, CachedUser> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxSize;
+
+    private final LongAdder requestHits = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CurrentUserCache(
+            @Value("${security.user-cache.ttl-seconds:30}") long ttlSeconds,
+            @Value("${security.user-cache.max-size:10000}") int maxSize
+    ) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Retourne l'utilisateur depuis le memo de requête, puis le cache, sinon via le loader (base)
+     */
+    public User get(String username, Function<String, User> loader) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null
+                && request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User memo
+                && username.equals(memo.getUsername())) {
+            requestHits.increment();
+            return memo;
+        }
+
+        long now = System.currentTimeMillis();
+        CachedUser cached = entries.get(username);
+        User user;
+        if (cached != null && cached.expiresAt() > now) {
+            cacheHits.increment();
+            user = cached.user();
+        } else {
+            misses.increment();
+            user = loader.apply(username);
+            if (entries.size() >= maxSize) {
+                evictExpired(now);
+            }
+            entries.put(username, new CachedUser(user, now + ttlMillis));
+        }
+
+        if (request != null) {
+            request.setAttribute(REQUEST_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    /**
+     * Oublie un utilisateur (par id, le username pouvant avoir changé), maintenant et après le commit
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evict(userId);
+        // Une lecture concurrente avant le commit pourrait remettre l'ancienne version en cache
+        TransactionUtils.afterCommit(() -> evict(userId));
+    }
+
+    /**
+     * Compteurs d'efficacité du cache (chaque miss correspond à une requête utilisateur en base)
+     */
+    public Map<String, Object> getStats() {
+        long request = requestHits.sum();
+        long shared = cacheHits.sum();
+        long miss = misses.sum();
+        long total = request + shared + miss;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requestHits", request);
+        stats.put("cacheHits", shared);
+        stats.put("misses", miss);
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) (request + shared) / total);
+        stats.put("size", entries.size());
+        return stats;
+    }
+
+    private void evict(Long userId) {
+        entries.values().removeIf(entry -> userId.equals(entry.user().getId()));
+
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null
+                && request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User memo
+                && userId.equals(memo.getId())) {
+            request.removeAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    // Purge les entrées expirées ; si le cache reste plein, on repart de zéro (TTL court)
+    private void evictExpired(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+        if (entries.size() >= maxSize) {
+            entries.clear();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.AppNotiDo.security;
 
 import com.example.AppNotiDo.service.CustomUserDetailsService;
 import com.example.AppNotiDo.service.JwtService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -62,30 +63,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        // 4. Extraire le username du token avec gestion d'erreur
+        // 4. Vérifier le token (signature + expiration) une seule fois et lire ses claims
         try {
-            String username = jwtService.extractUsername(token);
+            Claims claims = jwtService.parseClaims(token);
+            String username = claims.getSubject();
 
             // 5. Si le username existe et que le user n'est pas déjà authentifié
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                // 6. Charger les détails du user
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                // 7. Valider le token
-                if (jwtService.validateToken(token, userDetails.getUsername())) {
+                // 6. Construire le user depuis les claims, sans lecture en base
+                UserDetails userDetails = jwtService.toPrincipal(claims);
+                if (userDetails == null) {
+                    // Ancien token sans id : on passe encore par la base jusqu'à son expiration
+                    userDetails = userDetailsService.loadUserByUsername(username);
+                }
 
-                    // 8. Créer l'authentification
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                // 7. Créer l'authentification
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        userDetails.getAuthorities()
+                );
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                    // 9. Mettre l'authentification dans le contexte de sécurité
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+                // 8. Mettre l'authentification dans le contexte de sécurité
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         } catch (Exception e) {
             // Token invalide ou malformé : on ne fait rien
@@ -93,7 +95,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             logger.error("JWT validation error: {}", e.getMessage());
         }
 
-        // 10. Continuer la chaîne de filtres
+        // 9. Continuer la chaîne de filtres
         filterChain.doFilter(request, response);
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.example.AppNotiDo.security;
+
+import com.example.AppNotiDo.domain.GlobalRole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Utilisateur authentifié construit uniquement à partir des claims vérifiés du JWT
+ * (aucune lecture en base). Implémente UserDetails pour rester compatible avec
+ * les contrôleurs qui utilisent @AuthenticationPrincipal.
+ */
+public class JwtUserPrincipal implements UserDetails {
+
+    private static final List<GrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private final Long id;
+    private final String username;
+    private final GlobalRole globalRole;
+
+    public JwtUserPrincipal(Long id, String username, GlobalRole globalRole) {
+        this.id = id;
+        this.username = username;
+        this.globalRole = globalRole;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public GlobalRole getGlobalRole() {
+        return globalRole;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    // Pas de mot de passe : l'authentification est portée par la signature du token
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return AUTHORITIES;
+    }
+}
@@ -5,6 +5,7 @@ import com.example.AppNotiDo.dto.AdminStatsDTO;
 import com.example.AppNotiDo.dto.AdminStatsDTO.UserAdminDTO;
 import com.example.AppNotiDo.dto.AdminStatsDTO.ProjectAdminDTO;
 import com.example.AppNotiDo.repository.*;
+import com.example.AppNotiDo.security.CurrentUserCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -27,6 +28,7 @@ public class AdminService {
     private final ProjectRepository projectRepository;
     private final TaskRepository taskRepository;
     private final ProjectMemberRepository projectMemberRepository;
+    private final CurrentUserCache currentUserCache;
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
@@ -96,6 +98,7 @@ public class AdminService {
 
         user.setGlobalRole(newRole);
         User saved = userRepository.save(user);
+        currentUserCache.invalidate(userId);
         return toUserAdminDTO(saved);
     }
 
@@ -109,6 +112,7 @@ public class AdminService {
         }
 
         userRepository.delete(user);
+        currentUserCache.invalidate(userId);
     }
 
     // ========================================
@@ -195,7 +199,7 @@ public class AdminService {
 
     private ProjectAdminDTO toProjectAdminDTO(Project project) {
         long memberCount = projectMemberRepository.countByProjectIdAndStatus(project.getId(), MemberStatus.ACTIVE);
-        long taskCount = project.getTasks() != null ? project.getTasks().size() : 0;
+        long taskCount = taskRepository.countByProjectId(project.getId());
 
         // Trouver le premier OWNER
         String ownerUsername = projectMemberRepository.findByProjectIdAndStatus(project.getId(), MemberStatus.ACTIVE)
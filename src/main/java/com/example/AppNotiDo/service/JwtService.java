@@ -1,6 +1,10 @@
 package com.example.AppNotiDo.service;
 
+import com.example.AppNotiDo.domain.GlobalRole;
+import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.security.JwtUserPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,31 +12,60 @@ import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Service
 public class JwtService {
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_GLOBAL_ROLE = "grole";
+
+    // Claims déjà vérifiés d'un token, valables jusqu'à son expiration
+    private record VerifiedToken(Claims claims, long expiresAt) {
+    }
+
     private final SecretKey SECRET_KEY;
     private final long EXPIRATION_TIME;
+    private final JwtParser parser;
+
+    // Cache LRU : empreinte SHA-256 du token -> claims vérifiés (le token brut n'est pas conservé)
+    private final Map<String, VerifiedToken> verifiedTokens;
 
     public JwtService(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.expiration}") long expiration
+            @Value("${jwt.expiration}") long expiration,
+            @Value("${jwt.cache.max-size:10000}") int cacheMaxSize
     ) {
         // Convertir la clé String en SecretKey
         this.SECRET_KEY = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.EXPIRATION_TIME = expiration;
+        // Le parser est immuable et thread-safe : construit une seule fois
+        this.parser = Jwts.parser().verifyWith(SECRET_KEY).build();
+        this.verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > cacheMaxSize;
+            }
+        };
     }
 
     /**
-     * Génère un token JWT pour un username
+     * Génère un token JWT pour un utilisateur, avec son id et son rôle global en claims
+     * (le filtre d'authentification n'a ainsi pas besoin de relire l'utilisateur en base)
      */
-    public String generateToken(String username) {
+    public String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, username);
+        claims.put(CLAIM_USER_ID, user.getId());
+        if (user.getGlobalRole() != null) {
+            claims.put(CLAIM_GLOBAL_ROLE, user.getGlobalRole().name());
+        }
+        return createToken(claims, user.getUsername());
     }
 
     /**
@@ -59,14 +92,62 @@ public class JwtService {
     }
 
     /**
-     * Extrait toutes les informations du token
+     * Vérifie la signature et l'expiration du token puis retourne ses claims
+     * (lève une JwtException si le token est invalide ou expiré)
+     */
+    public Claims parseClaims(String token) {
+        return extractAllClaims(token);
+    }
+
+    /**
+     * Construit l'utilisateur authentifié depuis des claims déjà vérifiés.
+     * Retourne null pour un ancien token qui ne porte pas l'id.
+     */
+    public JwtUserPrincipal toPrincipal(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        if (userId == null) {
+            return null;
+        }
+        String role = claims.get(CLAIM_GLOBAL_ROLE, String.class);
+        GlobalRole globalRole = role != null ? GlobalRole.valueOf(role) : GlobalRole.USER;
+        return new JwtUserPrincipal(userId.longValue(), claims.getSubject(), globalRole);
+    }
+
+    /**
+     * Extrait toutes les informations du token.
+     * La signature n'est vérifiée qu'une fois par token : les appels suivants lisent le cache
+     * jusqu'à l'expiration du token, puis le parser relève l'expiration.
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(SECRET_KEY)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+
+        synchronized (verifiedTokens) {
+            VerifiedToken cached = verifiedTokens.get(digest);
+            if (cached != null) {
+                if (cached.expiresAt() > now) {
+                    return cached.claims();
+                }
+                verifiedTokens.remove(digest);
+            }
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() != null) {
+            synchronized (verifiedTokens) {
+                verifiedTokens.put(digest, new VerifiedToken(claims, claims.getExpiration().getTime()));
+            }
+        }
+        return claims;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     /**
@@ -0,0 +1,80 @@
+package com.example.AppNotiDo.service;
+
+import com.example.AppNotiDo.repository.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Compactage périodique des messages : chaque destinataire est ramené à maxPerUser messages
+ * en supprimant d'abord les messages lus, puis les plus anciens. Le travail se fait hors du
+ * chemin des requêtes, en quelques requêtes ensemblistes par exécution.
+ * Chaque lot de destinataires est supprimé dans sa propre transaction.
+ */
+@Service
+public class MessageRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageRetentionService.class);
+
+    // Nombre de destinataires traités par requête de suppression
+    private static final int RECIPIENT_BATCH_SIZE = 500;
+
+    /**
+     * Bilan d'une exécution du compactage
+     */
+    public record CompactionReport(int recipients, int rowsReclaimed, long durationMs) {
+    }
+
+    private final MessageRepository messageRepository;
+    private final UnreadCounterService unreadCounters;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPerUser;
+
+    public MessageRetentionService(
+            MessageRepository messageRepository,
+            UnreadCounterService unreadCounters,
+            PlatformTransactionManager transactionManager,
+            @Value("${message.retention.max-per-user:100}") int maxPerUser
+    ) {
+        this.messageRepository = messageRepository;
+        this.unreadCounters = unreadCounters;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxPerUser = maxPerUser;
+    }
+
+    @Scheduled(fixedDelayString = "${message.retention.interval-ms:300000}")
+    public CompactionReport compact() {
+        long start = System.nanoTime();
+
+        List<Long> recipientIds = messageRepository.findRecipientIdsWithMoreThan(maxPerUser);
+        int reclaimed = 0;
+        for (int i = 0; i < recipientIds.size(); i += RECIPIENT_BATCH_SIZE) {
+            List<Long> batch = recipientIds.subList(i, Math.min(i + RECIPIENT_BATCH_SIZE, recipientIds.size()));
+            Integer deleted = transactionTemplate.execute(status -> compactBatch(batch));
+            reclaimed += deleted != null ? deleted : 0;
+        }
+
+        CompactionReport report = new CompactionReport(recipientIds.size(), reclaimed,
+                (System.nanoTime() - start) / 1_000_000);
+        if (report.rowsReclaimed() > 0) {
+            logger.info("Message compaction: {} rows reclaimed for {} recipients in {} ms",
+                    report.rowsReclaimed(), report.recipients(), report.durationMs());
+        } else {
+            logger.debug("Message compaction: nothing to reclaim ({} ms)", report.durationMs());
+        }
+        return report;
+    }
+
+    private int compactBatch(List<Long> recipientIds) {
+        int deleted = messageRepository.deleteBeyondLimitForRecipients(recipientIds, maxPerUser);
+        // Le nombre de non lus supprimés par destinataire n'est pas connu : rechargement à la lecture
+        unreadCounters.invalidate(UnreadCounterService.Kind.MESSAGE, recipientIds);
+        return deleted;
+    }
+}
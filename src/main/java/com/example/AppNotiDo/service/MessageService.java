@@ -1,16 +1,22 @@
 package com.example.AppNotiDo.service;
 
 import com.example.AppNotiDo.domain.*;
+import com.example.AppNotiDo.dto.CursorPageDTO;
 import com.example.AppNotiDo.dto.MessageDTO;
 import com.example.AppNotiDo.mapper.MessageMapper;
 import com.example.AppNotiDo.repository.MessageRepository;
+import com.example.AppNotiDo.util.CursorUtils;
 import com.example.AppNotiDo.util.SecurityUtils;
+import com.example.AppNotiDo.util.TransactionUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,40 +24,63 @@ import java.util.stream.Collectors;
 @Transactional
 public class MessageService {
 
-    private static final int MAX_MESSAGES_PER_USER = 100;
-
     private final MessageRepository messageRepository;
     private final MessageMapper messageMapper;
     private final SecurityUtils securityUtils;
+    private final SseService sseService;
+    private final UnreadCounterService unreadCounters;
 
     // ========================================
     // LECTURE DES MESSAGES
     // ========================================
 
     public List<MessageDTO> getAllMessages() {
-        User currentUser = securityUtils.getCurrentUser();
-        return messageRepository.findByRecipientIdOrderByCreatedAtDesc(currentUser.getId())
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return messageRepository.findByRecipientIdOrderByCreatedAtDesc(currentUserId)
                 .stream()
                 .map(messageMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Flux paginé par curseur (createdAt, id), du plus récent au plus ancien
+     */
+    public CursorPageDTO<MessageDTO> getMessageFeed(String cursor, Integer size) {
+        Long currentUserId = securityUtils.getCurrentUserId();
+        CursorUtils.Cursor after = CursorUtils.decode(cursor);
+        int pageSize = CursorUtils.clampSize(size);
+        // Une ligne de plus pour savoir s'il existe une page suivante
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<Message> rows = after == null
+                ? messageRepository.findFeedFirstPage(currentUserId, pageable)
+                : messageRepository.findFeedAfter(currentUserId, after.createdAt(), after.id(), pageable);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Message last = rows.get(pageSize - 1);
+            nextCursor = CursorUtils.encode(last.getCreatedAt(), last.getId());
+        }
+        return new CursorPageDTO<>(rows.stream().map(messageMapper::toDTO).toList(), nextCursor);
+    }
+
     public List<MessageDTO> getUnreadMessages() {
-        User currentUser = securityUtils.getCurrentUser();
-        return messageRepository.findByRecipientIdAndIsReadFalseOrderByCreatedAtDesc(currentUser.getId())
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return messageRepository.findByRecipientIdAndIsReadFalseOrderByCreatedAtDesc(currentUserId)
                 .stream()
                 .map(messageMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
     public Long countUnread() {
-        User currentUser = securityUtils.getCurrentUser();
-        return messageRepository.countByRecipientIdAndIsReadFalse(currentUser.getId());
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return unreadCounters.get(UnreadCounterService.Kind.MESSAGE, currentUserId);
     }
 
     public List<MessageDTO> getMessagesByProject(Long projectId) {
-        User currentUser = securityUtils.getCurrentUser();
-        return messageRepository.findByRecipientIdAndProjectIdOrderByCreatedAtDesc(currentUser.getId(), projectId)
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return messageRepository.findByRecipientIdAndProjectIdOrderByCreatedAtDesc(currentUserId, projectId)
                 .stream()
                 .map(messageMapper::toDTO)
                 .collect(Collectors.toList());
@@ -62,38 +91,49 @@ public class MessageService {
     // ========================================
 
     public MessageDTO markAsRead(Long messageId) {
-        User currentUser = securityUtils.getCurrentUser();
+        Long currentUserId = securityUtils.getCurrentUserId();
         Message message = messageRepository.findById(messageId)
                 .orElseThrow(() -> new RuntimeException("Message non trouvé"));
 
-        if (!message.getRecipient().getId().equals(currentUser.getId())) {
+        if (!message.getRecipient().getId().equals(currentUserId)) {
             throw new RuntimeException("Accès refusé");
         }
 
+        if (!Boolean.TRUE.equals(message.getIsRead())) {
+            unreadCounters.add(UnreadCounterService.Kind.MESSAGE, currentUserId, -1);
+        }
         message.markAsRead();
-        return messageMapper.toDTO(messageRepository.save(message));
+        MessageDTO dto = messageMapper.toDTO(messageRepository.save(message));
+        publishUnreadCount(currentUserId);
+        return dto;
     }
 
     public void markAllAsRead() {
-        User currentUser = securityUtils.getCurrentUser();
-        messageRepository.markAllAsReadByRecipientId(currentUser.getId(), LocalDateTime.now());
+        Long currentUserId = securityUtils.getCurrentUserId();
+        messageRepository.markAllAsReadByRecipientId(currentUserId, LocalDateTime.now());
+        unreadCounters.reset(UnreadCounterService.Kind.MESSAGE, currentUserId);
+        publishUnreadCount(currentUserId);
     }
 
     public void deleteMessage(Long messageId) {
-        User currentUser = securityUtils.getCurrentUser();
+        Long currentUserId = securityUtils.getCurrentUserId();
         Message message = messageRepository.findById(messageId)
                 .orElseThrow(() -> new RuntimeException("Message non trouvé"));
 
-        if (!message.getRecipient().getId().equals(currentUser.getId())) {
+        if (!message.getRecipient().getId().equals(currentUserId)) {
             throw new RuntimeException("Accès refusé");
         }
 
+        if (!Boolean.TRUE.equals(message.getIsRead())) {
+            unreadCounters.add(UnreadCounterService.Kind.MESSAGE, currentUserId, -1);
+        }
         messageRepository.delete(message);
     }
 
     public void deleteAllMessages() {
-        User currentUser = securityUtils.getCurrentUser();
-        messageRepository.deleteByRecipientId(currentUser.getId());
+        Long currentUserId = securityUtils.getCurrentUserId();
+        messageRepository.deleteByRecipientId(currentUserId);
+        unreadCounters.reset(UnreadCounterService.Kind.MESSAGE, currentUserId);
     }
 
     // ========================================
@@ -111,8 +151,20 @@ public class MessageService {
                 .content(content)
                 .build();
 
+        // Le plafond par destinataire est appliqué par MessageRetentionService
         message = messageRepository.save(message);
-        cleanupOldMessages(recipient.getId());
+
+        Long recipientId = recipient.getId();
+        unreadCounters.add(UnreadCounterService.Kind.MESSAGE, recipientId, 1);
+
+        // Push SSE si le destinataire est connecté
+        if (sseService.isConnected(recipientId)) {
+            MessageDTO dto = messageMapper.toDTO(message);
+            TransactionUtils.afterCommit(() -> {
+                sseService.send(recipientId, "message", dto);
+                sendUnreadCount(recipientId);
+            });
+        }
         return message;
     }
 
@@ -227,24 +279,17 @@ public class MessageService {
     // UTILITAIRES
     // ========================================
 
-    private void cleanupOldMessages(Long userId) {
-        Long count = messageRepository.countByRecipientId(userId);
-        if (count > MAX_MESSAGES_PER_USER) {
-            int toDelete = (int) (count - MAX_MESSAGES_PER_USER);
-            List<Message> oldest = messageRepository.findOldestByRecipientId(userId);
-
-            oldest.stream()
-                    .sorted((a, b) -> {
-                        // Supprimer d'abord les messages lus
-                        if (a.getIsRead() && !b.getIsRead()) return -1;
-                        if (!a.getIsRead() && b.getIsRead()) return 1;
-                        return a.getCreatedAt().compareTo(b.getCreatedAt());
-                    })
-                    .limit(toDelete)
-                    .forEach(m -> messageRepository.deleteById(m.getId()));
+    private void publishUnreadCount(Long userId) {
+        if (sseService.isConnected(userId)) {
+            TransactionUtils.afterCommit(() -> sendUnreadCount(userId));
         }
     }
 
+    private void sendUnreadCount(Long userId) {
+        long count = unreadCounters.get(UnreadCounterService.Kind.MESSAGE, userId);
+        sseService.send(userId, "message-count", Map.of("count", count));
+    }
+
     private String formatRole(String role) {
         switch (role) {
             case "OWNER": return "Propriétaire";
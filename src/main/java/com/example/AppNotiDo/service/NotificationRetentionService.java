@@ -0,0 +1,123 @@
+package com.example.AppNotiDo.service;
+
+import com.example.AppNotiDo.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limite le nombre de notifications conservées par utilisateur.
+ * La création d'une notification ne fait que signaler l'utilisateur ; la purge est faite
+ * par lots périodiques, hors du chemin des requêtes, avec une suppression ensembliste
+ * qui retire d'abord les notifications lues, puis les plus anciennes.
+ */
+@Service
+public class NotificationRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetentionService.class);
+
+    private final NotificationRepository notificationRepository;
+    private final UnreadCounterService unreadCounters;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPerUser;
+
+    // Utilisateurs ayant reçu des notifications depuis la dernière purge
+    private final Set<Long> pendingUserIds = ConcurrentHashMap.newKeySet();
+
+    public NotificationRetentionService(
+            NotificationRepository notificationRepository,
+            UnreadCounterService unreadCounters,
+            PlatformTransactionManager transactionManager,
+            @Value("${notification.retention.max-per-user:50}") int maxPerUser
+    ) {
+        this.notificationRepository = notificationRepository;
+        this.unreadCounters = unreadCounters;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxPerUser = maxPerUser;
+    }
+
+    /**
+     * Signale qu'un utilisateur a reçu une notification (vérifié à la prochaine purge)
+     */
+    public void track(Long userId) {
+        if (userId != null) {
+            pendingUserIds.add(userId);
+        }
+    }
+
+    /**
+     * Au démarrage, reprend les utilisateurs déjà au-delà de la limite
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOverLimitUsers() {
+        pendingUserIds.addAll(notificationRepository.findUserIdsWithMoreThan(maxPerUser));
+    }
+
+    /**
+     * Purge périodique des utilisateurs signalés
+     */
+    @Scheduled(fixedDelayString = "${notification.retention.interval-ms:60000}")
+    public void purgePendingUsers() {
+        if (pendingUserIds.isEmpty()) {
+            return;
+        }
+
+        List<Long> userIds = new ArrayList<>(pendingUserIds);
+        pendingUserIds.removeAll(userIds);
+
+        int deleted = 0;
+        for (Long userId : userIds) {
+            try {
+                deleted += enforceLimit(userId);
+            } catch (RuntimeException e) {
+                // On retentera à la prochaine purge
+                pendingUserIds.add(userId);
+                logger.warn("Notification retention failed for user {}: {}", userId, e.getMessage());
+            }
+        }
+
+        if (deleted > 0) {
+            logger.info("Notification retention: {} notifications deleted for {} users", deleted, userIds.size());
+        }
+    }
+
+    /**
+     * Ramène un utilisateur à maxPerUser notifications : un comptage, une lecture d'ids, une suppression.
+     * Le tout dans une transaction, pour que le décompte des non lues corresponde aux lignes supprimées.
+     */
+    public int enforceLimit(Long userId) {
+        Integer deleted = transactionTemplate.execute(status -> enforceLimitInTransaction(userId));
+        return deleted != null ? deleted : 0;
+    }
+
+    private int enforceLimitInTransaction(Long userId) {
+        long count = notificationRepository.countByUserId(userId);
+        if (count <= maxPerUser) {
+            return 0;
+        }
+
+        int toDelete = (int) (count - maxPerUser);
+        List<Long> ids = notificationRepository.findRetentionCandidateIds(userId, PageRequest.of(0, toDelete));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // Les lues partent en premier : seules les non lues au-delà de la limite sont décomptées
+        long unread = notificationRepository.countByIdInAndIsReadFalse(ids);
+        int deleted = notificationRepository.deleteByIdIn(ids);
+        unreadCounters.add(UnreadCounterService.Kind.NOTIFICATION, userId, -unread);
+        return deleted;
+    }
+}
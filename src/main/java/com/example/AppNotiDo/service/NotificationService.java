@@ -1,31 +1,67 @@
 package com.example.AppNotiDo.service;
 
 import com.example.AppNotiDo.domain.Notification;
+import com.example.AppNotiDo.domain.NotificationOutbox;
 import com.example.AppNotiDo.domain.NotificationType;
 import com.example.AppNotiDo.domain.Task;
 import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.dto.CursorPageDTO;
 import com.example.AppNotiDo.dto.NotificationDTO;
 import com.example.AppNotiDo.mapper.NotificationMapper;
+import com.example.AppNotiDo.repository.NotificationOutboxRepository;
 import com.example.AppNotiDo.repository.NotificationRepository;
+import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.util.CursorUtils;
 import com.example.AppNotiDo.util.SecurityUtils;
+import com.example.AppNotiDo.util.TransactionUtils;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class NotificationService {
 
-    private static final int MAX_NOTIFICATIONS_PER_USER = 50;
+    private static final int DUE_DUPLICATE_MINUTES = 5;
+    private static final int OVERDUE_DUPLICATE_MINUTES = 60;
 
     private final NotificationRepository notificationRepository;
     private final SecurityUtils securityUtils;
-
-    public NotificationService(NotificationRepository notificationRepository, SecurityUtils securityUtils) {
+    private final NotificationOutboxRepository outboxRepository;
+    private final TaskRepository taskRepository;
+    private final NotificationRetentionService retentionService;
+    private final SseService sseService;
+    private final UnreadCounterService unreadCounters;
+    private final long coalescingWindowSeconds;
+
+    public NotificationService(NotificationRepository notificationRepository, SecurityUtils securityUtils,
+                               NotificationOutboxRepository outboxRepository, TaskRepository taskRepository,
+                               NotificationRetentionService retentionService, SseService sseService,
+                               UnreadCounterService unreadCounters,
+                               @Value("${notification.coalescing-window-seconds:10}") long coalescingWindowSeconds) {
         this.notificationRepository = notificationRepository;
         this.securityUtils = securityUtils;
+        this.outboxRepository = outboxRepository;
+        this.taskRepository = taskRepository;
+        this.retentionService = retentionService;
+        this.sseService = sseService;
+        this.unreadCounters = unreadCounters;
+        this.coalescingWindowSeconds = coalescingWindowSeconds;
     }
 
     // ========================================
@@ -33,24 +69,47 @@ public class NotificationService {
     // ========================================
 
     public List<NotificationDTO> getAllNotifications() {
-        User currentUser = securityUtils.getCurrentUser();
-        return notificationRepository.findByUserIdOrderByCreatedAtDesc(currentUser.getId())
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return notificationRepository.findByUserIdOrderByCreatedAtDesc(currentUserId)
                 .stream()
                 .map(NotificationMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Flux paginé par curseur (createdAt, id), du plus récent au plus ancien
+     */
+    public CursorPageDTO<NotificationDTO> getNotificationFeed(String cursor, Integer size) {
+        Long currentUserId = securityUtils.getCurrentUserId();
+        CursorUtils.Cursor after = CursorUtils.decode(cursor);
+        int pageSize = CursorUtils.clampSize(size);
+        // Une ligne de plus pour savoir s'il existe une page suivante
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<Notification> rows = after == null
+                ? notificationRepository.findFeedFirstPage(currentUserId, pageable)
+                : notificationRepository.findFeedAfter(currentUserId, after.createdAt(), after.id(), pageable);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Notification last = rows.get(pageSize - 1);
+            nextCursor = CursorUtils.encode(last.getCreatedAt(), last.getId());
+        }
+        return new CursorPageDTO<>(rows.stream().map(NotificationMapper::toDTO).toList(), nextCursor);
+    }
+
     public List<NotificationDTO> getUnreadNotifications() {
-        User currentUser = securityUtils.getCurrentUser();
-        return notificationRepository.findByUserIdAndIsReadFalseOrderByCreatedAtDesc(currentUser.getId())
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return notificationRepository.findByUserIdAndIsReadFalseOrderByCreatedAtDesc(currentUserId)
                 .stream()
                 .map(NotificationMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
     public Long countUnread() {
-        User currentUser = securityUtils.getCurrentUser();
-        return notificationRepository.countByUserIdAndIsReadFalse(currentUser.getId());
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return unreadCounters.get(UnreadCounterService.Kind.NOTIFICATION, currentUserId);
     }
 
     // ========================================
@@ -59,90 +118,170 @@ public class NotificationService {
 
     @Transactional
     public NotificationDTO markAsRead(Long notificationId) {
-        User currentUser = securityUtils.getCurrentUser();
+        Long currentUserId = securityUtils.getCurrentUserId();
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
 
-        if (!notification.getUser().getId().equals(currentUser.getId())) {
+        if (!notification.getUser().getId().equals(currentUserId)) {
             throw new RuntimeException("Access denied");
         }
 
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            unreadCounters.add(UnreadCounterService.Kind.NOTIFICATION, currentUserId, -1);
+        }
         notification.setIsRead(true);
         notification.setReadAt(LocalDateTime.now());
-        return NotificationMapper.toDTO(notificationRepository.save(notification));
+        NotificationDTO dto = NotificationMapper.toDTO(notificationRepository.save(notification));
+        publishUnreadCounts(List.of(currentUserId));
+        return dto;
     }
 
     @Transactional
     public void markAllAsRead() {
-        User currentUser = securityUtils.getCurrentUser();
-        notificationRepository.markAllAsReadByUserId(currentUser.getId(), LocalDateTime.now());
+        Long currentUserId = securityUtils.getCurrentUserId();
+        notificationRepository.markAllAsReadByUserId(currentUserId, LocalDateTime.now());
+        unreadCounters.reset(UnreadCounterService.Kind.NOTIFICATION, currentUserId);
+        publishUnreadCounts(List.of(currentUserId));
     }
 
     @Transactional
     public void deleteNotification(Long notificationId) {
-        User currentUser = securityUtils.getCurrentUser();
+        Long currentUserId = securityUtils.getCurrentUserId();
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
 
-        if (!notification.getUser().getId().equals(currentUser.getId())) {
+        if (!notification.getUser().getId().equals(currentUserId)) {
             throw new RuntimeException("Access denied");
         }
 
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            unreadCounters.add(UnreadCounterService.Kind.NOTIFICATION, currentUserId, -1);
+        }
         notificationRepository.delete(notification);
     }
 
     @Transactional
-    public void deleteNotificationsByTask(Long taskId) {
+    public void deleteNotificationsByTask(Long taskId, Long userId) {
+        long unread = notificationRepository.countByTaskIdAndIsReadFalse(taskId);
+        unreadCounters.add(UnreadCounterService.Kind.NOTIFICATION, userId, -unread);
         notificationRepository.deleteByTaskId(taskId);
+        outboxRepository.deleteByTaskId(taskId);
+    }
+
+    @Transactional
+    public void deleteNotificationsByTasks(Collection<Long> taskIds, Long userId) {
+        long unread = notificationRepository.countByTaskIdInAndIsReadFalse(taskIds);
+        unreadCounters.add(UnreadCounterService.Kind.NOTIFICATION, userId, -unread);
+        notificationRepository.deleteByTaskIdIn(taskIds);
+        outboxRepository.deleteByTaskIdIn(taskIds);
     }
 
     // ========================================
     // CRÉATION DE NOTIFICATIONS - BASE
     // ========================================
 
+    /**
+     * Écrit la notification dans l'outbox, dans la transaction de l'appelant.
+     * Elle est insérée dans notifications par NotificationOutboxDispatcher.
+     */
     @Transactional
-    public Notification createNotification(User user, Task task, String title, String message, NotificationType type) {
-        Notification notification = new Notification(user, task, title, message, type);
-        notification = notificationRepository.save(notification);
-        cleanupOldNotifications(user.getId());
-        return notification;
+    public void createNotification(User user, Task task, String title, String message, NotificationType type) {
+        Long taskId = task != null ? task.getId() : null;
+        outboxRepository.save(new NotificationOutbox(user.getId(), taskId, title, message, type));
     }
 
     // ========================================
     // NOTIFICATIONS D'ÉCHÉANCE (Scheduler)
     // ========================================
 
+    /**
+     * Crée en lot les rappels, échéances et retards d'un tick du scheduler.
+     * Les doublons récents de tout le lot sont résolus en une seule requête,
+     * puis les notifications manquantes sont insérées en batchs JDBC (hibernate.jdbc.batch_size).
+     *
+     * @param tasks      tâches concernées (utilisateur déjà chargé)
+     * @param candidates types de notification à créer, par id de tâche
+     * @return types effectivement créés, par id de tâche
+     */
     @Transactional
-    public Notification createReminderNotification(Task task) {
-        LocalDateTime fiveMinutesAgo = LocalDateTime.now().minusMinutes(5);
-        if (notificationRepository.existsByTaskIdAndTypeAndCreatedAtAfter(task.getId(), NotificationType.REMINDER, fiveMinutesAgo)) {
-            return null;
+    public Map<Long, EnumSet<NotificationType>> createDueNotifications(Collection<Task> tasks,
+                                                                       Map<Long, EnumSet<NotificationType>> candidates) {
+        Map<Long, EnumSet<NotificationType>> created = new HashMap<>();
+        if (candidates.isEmpty()) {
+            return created;
         }
-        String title = "⏰ Rappel";
-        String message = String.format("La tâche \"%s\" arrive à échéance bientôt !", task.getTitle());
-        return createNotification(task.getUser(), task, title, message, NotificationType.REMINDER);
-    }
 
-    @Transactional
-    public Notification createDeadlineNotification(Task task) {
-        LocalDateTime fiveMinutesAgo = LocalDateTime.now().minusMinutes(5);
-        if (notificationRepository.existsByTaskIdAndTypeAndCreatedAtAfter(task.getId(), NotificationType.DEADLINE, fiveMinutesAgo)) {
-            return null;
+        LocalDateTime now = LocalDateTime.now();
+        EnumSet<NotificationType> types = EnumSet.noneOf(NotificationType.class);
+        candidates.values().forEach(types::addAll);
+
+        // Une seule requête pour toutes les notifications récentes du lot (fenêtre la plus large)
+        Map<Long, EnumSet<NotificationType>> recent = new HashMap<>();
+        notificationRepository.findRecentByTaskIdsAndTypes(candidates.keySet(), types,
+                        now.minusMinutes(OVERDUE_DUPLICATE_MINUTES))
+                .stream()
+                .filter(r -> r.getLastCreatedAt().isAfter(now.minusMinutes(duplicateWindowMinutes(r.getType()))))
+                .forEach(r -> recent.computeIfAbsent(r.getTaskId(), id -> EnumSet.noneOf(NotificationType.class))
+                        .add(r.getType()));
+
+        List<Notification> toInsert = new ArrayList<>();
+        for (Task task : tasks) {
+            EnumSet<NotificationType> wanted = candidates.get(task.getId());
+            if (wanted == null) {
+                continue;
+            }
+            EnumSet<NotificationType> already = recent.getOrDefault(task.getId(), EnumSet.noneOf(NotificationType.class));
+            for (NotificationType type : wanted) {
+                if (!already.contains(type)) {
+                    toInsert.add(buildDueNotification(task, type, now));
+                    created.computeIfAbsent(task.getId(), id -> EnumSet.noneOf(NotificationType.class)).add(type);
+                }
+            }
+        }
+
+        if (toInsert.isEmpty()) {
+            return created;
         }
-        String title = "🎯 Échéance atteinte";
-        String message = String.format("La tâche \"%s\" arrive à échéance maintenant !", task.getTitle());
-        return createNotification(task.getUser(), task, title, message, NotificationType.DEADLINE);
+
+        // Ids pré-alloués par le générateur pooled : les INSERT partent en batchs JDBC
+        notificationRepository.saveAll(toInsert);
+
+        toInsert.forEach(n -> {
+            retentionService.track(n.getUser().getId());
+            unreadCounters.add(UnreadCounterService.Kind.NOTIFICATION, n.getUser().getId(), 1);
+        });
+        publishNewNotifications(toInsert);
+
+        return created;
     }
 
-    @Transactional
-    public Notification createOverdueNotification(Task task) {
-        LocalDateTime oneHourAgo = LocalDateTime.now().minusHours(1);
-        if (notificationRepository.existsByTaskIdAndTypeAndCreatedAtAfter(task.getId(), NotificationType.OVERDUE, oneHourAgo)) {
-            return null;
+    private Notification buildDueNotification(Task task, NotificationType type, LocalDateTime now) {
+        String title;
+        String message;
+        switch (type) {
+            case REMINDER:
+                title = "⏰ Rappel";
+                message = String.format("La tâche \"%s\" arrive à échéance bientôt !", task.getTitle());
+                break;
+            case DEADLINE:
+                title = "🎯 Échéance atteinte";
+                message = String.format("La tâche \"%s\" arrive à échéance maintenant !", task.getTitle());
+                break;
+            case OVERDUE:
+                title = "⚠️ Tâche en retard";
+                message = String.format("La tâche \"%s\" est en retard !", task.getTitle());
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported deadline notification type: " + type);
         }
-        String title = "⚠️ Tâche en retard";
-        String message = String.format("La tâche \"%s\" est en retard !", task.getTitle());
-        return createNotification(task.getUser(), task, title, message, NotificationType.OVERDUE);
+        Notification notification = new Notification(task.getUser(), task, title, message, type);
+        notification.setCreatedAt(now);
+        return notification;
+    }
+
+    // Un rappel ou une échéance n'est pas renvoyé avant 5 minutes, un retard avant 1 heure
+    private static int duplicateWindowMinutes(NotificationType type) {
+        return type == NotificationType.OVERDUE ? OVERDUE_DUPLICATE_MINUTES : DUE_DUPLICATE_MINUTES;
     }
 
     // ========================================
@@ -150,38 +289,45 @@ public class NotificationService {
     // ========================================
 
     @Transactional
-    public Notification notifyTaskCreated(Task task) {
+    public void notifyTaskCreated(Task task) {
         String title = "📝 Nouvelle tâche";
         String message = String.format("Tâche \"%s\" créée avec succès.", task.getTitle());
-        return createNotification(task.getUser(), task, title, message, NotificationType.TASK_CREATED);
+        createNotification(task.getUser(), task, title, message, NotificationType.TASK_CREATED);
     }
 
     @Transactional
-    public Notification notifyTaskUpdated(Task task, String detail) {
-        String title = "✏️ Tâche modifiée";
-        String message = String.format("Tâche \"%s\" : %s", task.getTitle(), detail);
-        return createNotification(task.getUser(), task, title, message, NotificationType.TASK_UPDATED);
+    public void notifyTaskDeleted(User user, String taskTitle) {
+        String title = "🗑️ Tâche supprimée";
+        String message = String.format("La tâche \"%s\" a été supprimée.", taskTitle);
+        createNotification(user, null, title, message, NotificationType.TASK_DELETED);
     }
 
     @Transactional
-    public Notification notifyTaskDeleted(User user, String taskTitle) {
-        String title = "🗑️ Tâche supprimée";
-        String message = String.format("La tâche \"%s\" a été supprimée.", taskTitle);
-        return createNotification(user, null, title, message, NotificationType.TASK_DELETED);
+    public void notifyTasksBulkUpdated(User user, int count, List<String> changes) {
+        String title = "✏️ Tâches modifiées";
+        String message = String.format("%d tâche(s) modifiée(s) : %s.", count, String.join(", ", changes));
+        createNotification(user, null, title, message, NotificationType.TASK_UPDATED);
+    }
+
+    @Transactional
+    public void notifyTasksBulkDeleted(User user, int count) {
+        String title = "🗑️ Tâches supprimées";
+        String message = String.format("%d tâche(s) supprimée(s).", count);
+        createNotification(user, null, title, message, NotificationType.TASK_DELETED);
     }
 
     @Transactional
-    public Notification notifyTaskCompleted(Task task) {
+    public void notifyTaskCompleted(Task task) {
         String title = "✅ Tâche terminée";
         String message = String.format("Bravo ! La tâche \"%s\" est terminée.", task.getTitle());
-        return createNotification(task.getUser(), task, title, message, NotificationType.TASK_COMPLETED);
+        createNotification(task.getUser(), task, title, message, NotificationType.TASK_COMPLETED);
     }
 
     @Transactional
-    public Notification notifyTaskReactivated(Task task) {
+    public void notifyTaskReactivated(Task task) {
         String title = "🔄 Tâche réactivée";
         String message = String.format("La tâche \"%s\" a été déplacée à aujourd'hui.", task.getTitle());
-        return createNotification(task.getUser(), task, title, message, NotificationType.TASK_REACTIVATED);
+        createNotification(task.getUser(), task, title, message, NotificationType.TASK_REACTIVATED);
     }
 
     // ========================================
@@ -189,67 +335,189 @@ public class NotificationService {
     // ========================================
 
     @Transactional
-    public Notification notifyTimerStarted(Task task) {
+    public void notifyTimerStarted(Task task) {
         String title = "▶️ Timer démarré";
         String message = String.format("Le chronomètre de \"%s\" a démarré.", task.getTitle());
-        return createNotification(task.getUser(), task, title, message, NotificationType.TIMER_STARTED);
+        createNotification(task.getUser(), task, title, message, NotificationType.TIMER_STARTED);
     }
 
     @Transactional
-    public Notification notifyTimerPaused(Task task, int timeSpentSeconds) {
+    public void notifyTimerPaused(Task task, int timeSpentSeconds) {
         String title = "⏸️ Timer en pause";
         String timeFormatted = formatTimeSpent(timeSpentSeconds);
         String message = String.format("Le chronomètre de \"%s\" est en pause. Temps : %s", task.getTitle(), timeFormatted);
-        return createNotification(task.getUser(), task, title, message, NotificationType.TIMER_PAUSED);
+        createNotification(task.getUser(), task, title, message, NotificationType.TIMER_PAUSED);
     }
 
     @Transactional
-    public Notification notifyTimerStopped(Task task, int totalTimeSeconds) {
+    public void notifyTimerStopped(Task task, int totalTimeSeconds) {
         String title = "⏹️ Timer arrêté";
         String timeFormatted = formatTimeSpent(totalTimeSeconds);
         String message = String.format("Tâche \"%s\" terminée ! Temps total : %s", task.getTitle(), timeFormatted);
-        return createNotification(task.getUser(), task, title, message, NotificationType.TIMER_STOPPED);
+        createNotification(task.getUser(), task, title, message, NotificationType.TIMER_STOPPED);
     }
 
     // ========================================
-    // NOTIFICATIONS DE STATUT/PRIORITÉ
+    // MODIFICATIONS DE TÂCHE (FUSIONNÉES)
     // ========================================
 
+    /**
+     * Notifie une modification de tâche (statut, priorité, autres champs).
+     * Les modifications successives d'une même tâche pendant la fenêtre de fusion
+     * sont regroupées en une seule notification. Un statut ou une priorité revenu à sa valeur
+     * de départ n'est plus mentionné ; sans autre modification, la notification est abandonnée.
+     * La ligne de la tâche est verrouillée avant la recherche de la notification en attente :
+     * deux premières modifications concurrentes ne créent pas deux lignes (la seconde attend
+     * le commit de la première, puis la retrouve).
+     *
+     * @param oldStatus   ancien statut, null si le statut n'a pas changé
+     * @param oldPriority ancienne priorité, null si la priorité n'a pas changé
+     * @param changes     libellés des autres champs modifiés
+     */
     @Transactional
-    public Notification notifyStatusChanged(Task task, String oldStatus, String newStatus) {
-        String title = "📊 Statut modifié";
-        String message = String.format("Tâche \"%s\" : %s → %s", task.getTitle(), formatStatus(oldStatus), formatStatus(newStatus));
-        return createNotification(task.getUser(), task, title, message, NotificationType.STATUS_CHANGED);
+    public void notifyTaskChanged(Task task, String oldStatus, String newStatus,
+                                  String oldPriority, String newPriority, List<String> changes) {
+        LocalDateTime now = LocalDateTime.now();
+        NotificationOutbox pending = null;
+        if (coalescingWindowSeconds > 0) {
+            taskRepository.findByIdForUpdate(task.getId());
+            pending = outboxRepository.findPendingChangesForTask(task.getId(), now, PageRequest.of(0, 1))
+                    .stream().findFirst().orElse(null);
+        }
+
+        if (pending == null) {
+            pending = new NotificationOutbox(task.getUser().getId(), task.getId(), null, null, null);
+            pending.setCoalescable(true);
+            pending.setAvailableAt(now.plusSeconds(coalescingWindowSeconds));
+        }
+
+        // Statut et priorité : on garde la valeur de départ de la fenêtre et la dernière valeur
+        if (oldStatus != null) {
+            if (pending.getOldStatus() == null) {
+                pending.setOldStatus(oldStatus);
+            }
+            pending.setNewStatus(newStatus);
+        }
+        if (oldPriority != null) {
+            if (pending.getOldPriority() == null) {
+                pending.setOldPriority(oldPriority);
+            }
+            pending.setNewPriority(newPriority);
+        }
+
+        // Aller-retour dans la fenêtre (A → B → A) : rien à signaler pour ce champ
+        if (Objects.equals(pending.getOldStatus(), pending.getNewStatus())) {
+            pending.setOldStatus(null);
+            pending.setNewStatus(null);
+        }
+        if (Objects.equals(pending.getOldPriority(), pending.getNewPriority())) {
+            pending.setOldPriority(null);
+            pending.setNewPriority(null);
+        }
+
+        Set<String> labels = new LinkedHashSet<>();
+        if (pending.getChanges() != null && !pending.getChanges().isEmpty()) {
+            labels.addAll(Arrays.asList(pending.getChanges().split(",")));
+        }
+        labels.addAll(changes);
+        pending.setChanges(String.join(",", labels));
+
+        if (pending.getOldStatus() == null && pending.getOldPriority() == null && labels.isEmpty()) {
+            if (pending.getId() != null) {
+                outboxRepository.delete(pending);
+            }
+            return;
+        }
+
+        renderTaskChange(pending, task.getTitle());
+        outboxRepository.save(pending);
     }
 
-    @Transactional
-    public Notification notifyPriorityChanged(Task task, String oldPriority, String newPriority) {
-        String title = "🎯 Priorité modifiée";
-        String message = String.format("Tâche \"%s\" : %s → %s", task.getTitle(), formatPriority(oldPriority), formatPriority(newPriority));
-        return createNotification(task.getUser(), task, title, message, NotificationType.PRIORITY_CHANGED);
+    // Type, titre et message d'une modification (éventuellement fusionnée)
+    private void renderTaskChange(NotificationOutbox outbox, String taskTitle) {
+        boolean statusChanged = outbox.getOldStatus() != null;
+        boolean priorityChanged = outbox.getOldPriority() != null;
+        boolean fieldsChanged = outbox.getChanges() != null && !outbox.getChanges().isEmpty();
+
+        if (statusChanged && !priorityChanged && !fieldsChanged) {
+            outbox.setType(NotificationType.STATUS_CHANGED);
+            outbox.setTitle("📊 Statut modifié");
+            outbox.setMessage(String.format("Tâche \"%s\" : %s → %s", taskTitle,
+                    formatStatus(outbox.getOldStatus()), formatStatus(outbox.getNewStatus())));
+            return;
+        }
+        if (priorityChanged && !statusChanged && !fieldsChanged) {
+            outbox.setType(NotificationType.PRIORITY_CHANGED);
+            outbox.setTitle("🎯 Priorité modifiée");
+            outbox.setMessage(String.format("Tâche \"%s\" : %s → %s", taskTitle,
+                    formatPriority(outbox.getOldPriority()), formatPriority(outbox.getNewPriority())));
+            return;
+        }
+
+        List<String> labels = new ArrayList<>();
+        if (statusChanged) labels.add("statut");
+        if (priorityChanged) labels.add("priorité");
+        if (fieldsChanged) labels.addAll(Arrays.asList(outbox.getChanges().split(",")));
+
+        String detail = String.join(", ", labels) + " modifié" + (labels.size() > 1 ? "s" : "");
+        outbox.setType(NotificationType.TASK_UPDATED);
+        outbox.setTitle("✏️ Tâche modifiée");
+        outbox.setMessage(String.format("Tâche \"%s\" : %s", taskTitle, detail));
     }
 
     // ========================================
-    // UTILITAIRES
+    // PUSH TEMPS RÉEL (SSE)
     // ========================================
 
-    private void cleanupOldNotifications(Long userId) {
-        Long count = notificationRepository.countByUserId(userId);
-        if (count > MAX_NOTIFICATIONS_PER_USER) {
-            int toDelete = (int) (count - MAX_NOTIFICATIONS_PER_USER);
-            List<Notification> oldest = notificationRepository.findOldestByUserId(userId);
-
-            oldest.stream()
-                    .sorted((a, b) -> {
-                        if (a.getIsRead() && !b.getIsRead()) return -1;
-                        if (!a.getIsRead() && b.getIsRead()) return 1;
-                        return a.getCreatedAt().compareTo(b.getCreatedAt());
-                    })
-                    .limit(toDelete)
-                    .forEach(n -> notificationRepository.deleteById(n.getId()));
+    /**
+     * Après le commit, envoie aux utilisateurs connectés les notifications qui viennent d'être écrites
+     * (chacune une seule fois) et leur nouveau nombre de non lues.
+     * Les DTO sont construits avant le commit, titres des tâches chargés en une requête.
+     */
+    public void publishNewNotifications(Collection<Notification> notifications) {
+        List<Long> connected = sseService.connectedAmong(
+                notifications.stream().map(n -> n.getUser().getId()).toList());
+        if (connected.isEmpty()) {
+            return;
         }
+
+        List<Notification> pushed = notifications.stream()
+                .filter(n -> connected.contains(n.getUser().getId()))
+                .toList();
+        List<Long> taskIds = pushed.stream()
+                .filter(n -> n.getTask() != null && !Hibernate.isInitialized(n.getTask()))
+                .map(n -> n.getTask().getId())
+                .distinct()
+                .toList();
+        if (!taskIds.isEmpty()) {
+            taskRepository.findAllById(taskIds);
+        }
+        List<NotificationDTO> dtos = pushed.stream().map(NotificationMapper::toDTO).toList();
+
+        TransactionUtils.afterCommit(() -> {
+            dtos.forEach(dto -> sseService.send(dto.getUserId(), "notification", dto));
+            sendUnreadCounts(connected);
+        });
     }
 
+    private void publishUnreadCounts(Collection<Long> userIds) {
+        TransactionUtils.afterCommit(() -> {
+            List<Long> connected = sseService.connectedAmong(userIds);
+            if (!connected.isEmpty()) {
+                sendUnreadCounts(connected);
+            }
+        });
+    }
+
+    private void sendUnreadCounts(List<Long> userIds) {
+        userIds.forEach(id -> sseService.send(id, "notification-count",
+                Map.of("count", unreadCounters.get(UnreadCounterService.Kind.NOTIFICATION, id))));
+    }
+
+    // ========================================
+    // UTILITAIRES
+    // ========================================
+
     private String formatTimeSpent(int seconds) {
         if (seconds < 60) {
             return seconds + "s";
@@ -285,7 +553,8 @@ public class NotificationService {
 
     @Transactional
     public void deleteAllNotifications() {
-        User currentUser = securityUtils.getCurrentUser();
-        notificationRepository.deleteByUserId(currentUser.getId());
+        Long currentUserId = securityUtils.getCurrentUserId();
+        notificationRepository.deleteByUserId(currentUserId);
+        unreadCounters.reset(UnreadCounterService.Kind.NOTIFICATION, currentUserId);
     }
 }
\ No newline at end of file
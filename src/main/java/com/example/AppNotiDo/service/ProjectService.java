@@ -3,35 +3,60 @@ package com.example.AppNotiDo.service;
 import com.example.AppNotiDo.domain.MemberStatus;
 import com.example.AppNotiDo.domain.Project;
 import com.example.AppNotiDo.domain.ProjectMember;
+import com.example.AppNotiDo.domain.ProjectRole;
+import com.example.AppNotiDo.domain.TaskStatus;
 import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.dto.DisplayOrderDTO;
+import com.example.AppNotiDo.dto.ProjectDTO;
+import com.example.AppNotiDo.dto.ProjectSummaryDTO;
+import com.example.AppNotiDo.dto.ProjectTaskCountDTO;
 import com.example.AppNotiDo.exception.ProjectNotFoundException;
+import com.example.AppNotiDo.mapper.ProjectMapper;
 import com.example.AppNotiDo.repository.ProjectMemberRepository;
 import com.example.AppNotiDo.repository.ProjectRepository;
 import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.util.DisplayOrderUtils;
 import com.example.AppNotiDo.util.SecurityUtils;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class ProjectService {
 
+    private static final String UPDATE_DISPLAY_ORDER_SQL =
+            "UPDATE projects SET display_order = ?, updated_at = ? WHERE id = ?";
+
     private final ProjectRepository projectRepository;
     private final TaskRepository taskRepository;
     private final SecurityUtils securityUtils;
     private final ProjectMemberService projectMemberService;
     private final ProjectMemberRepository projectMemberRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
 
     public ProjectService(ProjectRepository projectRepository, TaskRepository taskRepository,
                           SecurityUtils securityUtils, ProjectMemberService projectMemberService,
-                          ProjectMemberRepository projectMemberRepository) {
+                          ProjectMemberRepository projectMemberRepository, JdbcTemplate jdbcTemplate,
+                          EntityManager entityManager) {
         this.projectRepository = projectRepository;
         this.taskRepository = taskRepository;
         this.securityUtils = securityUtils;
         this.projectMemberService = projectMemberService;
         this.projectMemberRepository = projectMemberRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
     }
 
     @Transactional
@@ -59,59 +84,90 @@ public class ProjectService {
         return savedProject;
     }
 
-    public List<Project> getAllProjects() {
-        User currentUser = securityUtils.getCurrentUser();
+    public List<ProjectDTO> getAllProjects(Pageable pageable) {
+        // Projets où l'utilisateur est membre ACTIF, non archivés
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return withTaskCounts(projectMemberRepository.findProjectSummaries(
+                currentUserId, MemberStatus.ACTIVE, false, null, pageable));
+    }
 
-        // Récupérer tous les projets où l'utilisateur est membre ACTIF
-        List<ProjectMember> memberships = projectMemberRepository.findByUserIdAndStatus(
-                currentUser.getId(),
-                MemberStatus.ACTIVE
-        );
+    public List<ProjectDTO> getAllProjectsIncludingArchived(Pageable pageable) {
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return withTaskCounts(projectMemberRepository.findProjectSummaries(
+                currentUserId, MemberStatus.ACTIVE, null, null, pageable));
+    }
 
-        return memberships.stream()
-                .map(ProjectMember::getProject)
-                .filter(project -> !project.getIsArchived())
-                .sorted((p1, p2) -> Integer.compare(p1.getDisplayOrder(), p2.getDisplayOrder()))
-                .collect(Collectors.toList());
+    public List<ProjectDTO> getArchivedProjects(Pageable pageable) {
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return withTaskCounts(projectMemberRepository.findArchivedProjectSummaries(
+                currentUserId, MemberStatus.ACTIVE, pageable));
     }
 
-    public List<Project> getAllProjectsIncludingArchived() {
-        User currentUser = securityUtils.getCurrentUser();
+    /**
+     * Complète une page de projets (déjà filtrée, triée et paginée en base) avec un seul
+     * agrégat des compteurs de tâches
+     */
+    private List<ProjectDTO> withTaskCounts(List<ProjectSummaryDTO> summaries) {
+        if (summaries.isEmpty()) {
+            return List.of();
+        }
 
-        List<ProjectMember> memberships = projectMemberRepository.findByUserIdAndStatus(
-                currentUser.getId(),
-                MemberStatus.ACTIVE
-        );
+        Map<Long, Map<TaskStatus, Long>> taskCounts = countTasksByProject(
+                summaries.stream().map(ProjectSummaryDTO::getId).toList());
 
-        return memberships.stream()
-                .map(ProjectMember::getProject)
-                .sorted((p1, p2) -> Integer.compare(p1.getDisplayOrder(), p2.getDisplayOrder()))
+        return summaries.stream()
+                .map(summary -> ProjectMapper.toDTO(summary,
+                        taskCounts.getOrDefault(summary.getId(), Map.of())))
                 .collect(Collectors.toList());
     }
 
-    public List<Project> getArchivedProjects() {
-        User currentUser = securityUtils.getCurrentUser();
+    /**
+     * Convertit des projets en DTO avec le rôle de l'utilisateur connecté et les compteurs de tâches,
+     * en deux requêtes quel que soit le nombre de projets (la collection tasks n'est pas chargée)
+     */
+    public List<ProjectDTO> toDTOs(List<Project> projects) {
+        if (projects.isEmpty()) {
+            return List.of();
+        }
 
-        List<ProjectMember> memberships = projectMemberRepository.findByUserIdAndStatus(
-                currentUser.getId(),
-                MemberStatus.ACTIVE
-        );
+        Long currentUserId = securityUtils.getCurrentUserId();
+        List<Long> projectIds = projects.stream().map(Project::getId).toList();
+
+        Map<Long, ProjectRole> roles = new HashMap<>();
+        for (ProjectMember member : projectMemberRepository.findByUserIdAndProjectIdIn(currentUserId, projectIds)) {
+            roles.put(member.getProject().getId(), member.getRole());
+        }
+        Map<Long, Map<TaskStatus, Long>> taskCounts = countTasksByProject(projectIds);
 
-        return memberships.stream()
-                .map(ProjectMember::getProject)
-                .filter(Project::getIsArchived)
-                .sorted((p1, p2) -> p2.getUpdatedAt().compareTo(p1.getUpdatedAt()))
+        // Pas de membership (anciens projets) : OWNER par défaut
+        return projects.stream()
+                .map(project -> ProjectMapper.toDTO(project,
+                        roles.getOrDefault(project.getId(), ProjectRole.OWNER),
+                        taskCounts.getOrDefault(project.getId(), Map.of())))
                 .collect(Collectors.toList());
     }
 
+    public ProjectDTO toDTO(Project project) {
+        return toDTOs(List.of(project)).get(0);
+    }
+
+    private Map<Long, Map<TaskStatus, Long>> countTasksByProject(Collection<Long> projectIds) {
+        Map<Long, Map<TaskStatus, Long>> counts = new HashMap<>();
+        for (ProjectTaskCountDTO row : taskRepository.countByProjectIdInGroupByStatus(projectIds)) {
+            counts.computeIfAbsent(row.getProjectId(), id -> new EnumMap<>(TaskStatus.class))
+                    .put(row.getStatus(), row.getCount());
+        }
+        return counts;
+    }
+
     public Project getProjectById(Long id) {
-        User currentUser = securityUtils.getCurrentUser();
+        Long currentUserId = securityUtils.getCurrentUserId();
 
         Project project = projectRepository.findById(id)
                 .orElseThrow(() -> new ProjectNotFoundException("Projet non trouvé avec l'id: " + id));
 
         // Vérifier que l'utilisateur a accès via membership
-        if (!projectMemberService.canAccessProject(id, currentUser.getId())) {
+        if (!projectMemberService.canAccessProject(id, currentUserId)) {
             throw new ProjectNotFoundException("Accès refusé à ce projet");
         }
 
@@ -176,50 +232,49 @@ public class ProjectService {
         projectRepository.delete(project);
     }
 
-    public List<Project> searchProjects(String query) {
-        User currentUser = securityUtils.getCurrentUser();
-
-        List<ProjectMember> memberships = projectMemberRepository.findByUserIdAndStatus(
-                currentUser.getId(),
-                MemberStatus.ACTIVE
-        );
+    public List<ProjectDTO> searchProjects(String query, Pageable pageable) {
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return withTaskCounts(projectMemberRepository.findProjectSummaries(
+                currentUserId, MemberStatus.ACTIVE, false, escapeLike(query), pageable));
+    }
 
-        return memberships.stream()
-                .map(ProjectMember::getProject)
-                .filter(project -> !project.getIsArchived())
-                .filter(project -> project.getName().toLowerCase().contains(query.toLowerCase()))
-                .collect(Collectors.toList());
+    // Recherche littérale : les jokers du LIKE tapés par l'utilisateur sont échappés (ESCAPE '!',
+    // un antislash serait lu différemment par MySQL et H2)
+    private static String escapeLike(String query) {
+        return query.replace("!", "!!").replace("%", "!%").replace("_", "!_");
     }
 
     public long countProjects() {
-        User currentUser = securityUtils.getCurrentUser();
-
-        List<ProjectMember> memberships = projectMemberRepository.findByUserIdAndStatus(
-                currentUser.getId(),
-                MemberStatus.ACTIVE
-        );
-
-        return memberships.stream()
-                .map(ProjectMember::getProject)
-                .filter(project -> !project.getIsArchived())
-                .count();
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return projectMemberRepository.countActiveProjects(currentUserId, MemberStatus.ACTIVE);
     }
 
+    /**
+     * Réordonne les projets en une opération : une requête lit les positions des projets accessibles,
+     * puis un seul UPDATE en batch écrit les positions qui changent (les autres ids sont ignorés).
+     * Le batch JDBC passe à côté de JPA : il écrit lui-même updated_at, et le contexte de persistance
+     * est synchronisé avant puis vidé après pour ne pas garder de projets avec l'ancienne position.
+     */
     @Transactional
     public void reorderProjects(List<Long> projectIds) {
-        User currentUser = securityUtils.getCurrentUser();
-
-        for (int i = 0; i < projectIds.size(); i++) {
-            Long projectId = projectIds.get(i);
-            final int order = i;  // Variable finale pour la lambda
+        if (projectIds == null || projectIds.isEmpty()) {
+            return;
+        }
+        Long currentUserId = securityUtils.getCurrentUserId();
 
-            if (projectMemberService.canAccessProject(projectId, currentUser.getId())) {
-                projectRepository.findById(projectId).ifPresent(project -> {
-                    project.setDisplayOrder(order);
-                    projectRepository.save(project);
-                });
-            }
+        List<DisplayOrderDTO> current = projectMemberRepository.findDisplayOrders(
+                currentUserId, MemberStatus.ACTIVE, projectIds);
+        List<DisplayOrderDTO> changes = DisplayOrderUtils.changedOrders(projectIds, current);
+        if (changes.isEmpty()) {
+            return;
         }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        entityManager.flush();
+        jdbcTemplate.batchUpdate(UPDATE_DISPLAY_ORDER_SQL, changes.stream()
+                .map(change -> new Object[]{change.getDisplayOrder(), now, change.getId()})
+                .toList());
+        entityManager.clear();
     }
 
 }
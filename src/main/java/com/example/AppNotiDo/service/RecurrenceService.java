@@ -2,19 +2,23 @@ package com.example.AppNotiDo.service;
 
 import com.example.AppNotiDo.domain.*;
 import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.scheduler.DeadlineWheel;
+import com.example.AppNotiDo.util.RRule;
+import com.example.AppNotiDo.util.Recurrence;
+import com.example.AppNotiDo.util.RecurrenceRule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.DayOfWeek;
 import java.time.LocalDateTime;
-import java.time.temporal.TemporalAdjusters;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 public class RecurrenceService {
@@ -22,135 +26,249 @@ public class RecurrenceService {
     private static final Logger logger = LoggerFactory.getLogger(RecurrenceService.class);
 
     private final TaskRepository taskRepository;
+    private final DeadlineWheel deadlineWheel;
+    private final TransactionTemplate transactionTemplate;
 
-    public RecurrenceService(TaskRepository taskRepository) {
+    // Mode virtuel : les occurrences futures sont calculées à la lecture et une tâche n'est écrite
+    // que lorsque l'utilisateur agit sur une occurrence (aucune création anticipée)
+    private final boolean virtualOccurrences;
+
+    public RecurrenceService(TaskRepository taskRepository, DeadlineWheel deadlineWheel,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${recurrence.virtual-occurrences:false}") boolean virtualOccurrences) {
         this.taskRepository = taskRepository;
+        this.deadlineWheel = deadlineWheel;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.virtualOccurrences = virtualOccurrences;
+    }
+
+    public boolean isVirtualOccurrences() {
+        return virtualOccurrences;
     }
 
     /**
-     * Calcule la prochaine date d'occurrence basée sur le type de récurrence
+     * Règle compilée d'une tâche : RRULE si renseignée, sinon champs historiques (null si non récurrente)
      */
-    public LocalDateTime calculateNextOccurrence(Task task) {
-        if (task.getRecurrenceType() == null || task.getRecurrenceType() == RecurrenceType.NONE) {
+    public Recurrence compileRecurrence(Task task) {
+        if (!task.isRecurring()) {
             return null;
         }
-
-        LocalDateTime baseDate = task.getDueDate() != null ? task.getDueDate() : LocalDateTime.now();
-        int interval = task.getRecurrenceInterval() != null ? task.getRecurrenceInterval() : 1;
-
-        switch (task.getRecurrenceType()) {
-            case DAILY:
-                return calculateNextDaily(baseDate, interval);
-            case WEEKLY:
-                return calculateNextWeekly(baseDate, interval, task.getRecurrenceDays());
-            case MONTHLY:
-                return calculateNextMonthly(baseDate, interval, task.getRecurrenceDayOfMonth());
-            case YEARLY:
-                return calculateNextYearly(baseDate, interval);
-            default:
-                return null;
+        if (task.getRecurrenceRule() != null && !task.getRecurrenceRule().isBlank()) {
+            return RRule.parse(task.getRecurrenceRule());
         }
+        return RecurrenceRule.of(task);
     }
 
-    private LocalDateTime calculateNextDaily(LocalDateTime baseDate, int interval) {
-        LocalDateTime next = baseDate.plusDays(interval);
-        // S'assurer que la date est dans le futur
-        while (next.isBefore(LocalDateTime.now())) {
-            next = next.plusDays(interval);
+    /**
+     * Valide la règle RRULE d'une tâche et aligne recurrenceType sur sa fréquence
+     *
+     * @throws IllegalArgumentException si la règle est invalide
+     */
+    public void applyRecurrenceRule(Task task) {
+        String rule = task.getRecurrenceRule();
+        if (rule != null && !rule.isBlank()) {
+            task.setRecurrenceType(RRule.parse(rule).getRecurrenceType());
         }
-        return next;
     }
 
-    private LocalDateTime calculateNextWeekly(LocalDateTime baseDate, int interval, String recurrenceDays) {
-        if (recurrenceDays == null || recurrenceDays.isEmpty()) {
-            // Par défaut, même jour de la semaine
-            LocalDateTime next = baseDate.plusWeeks(interval);
-            while (next.isBefore(LocalDateTime.now())) {
-                next = next.plusWeeks(interval);
-            }
-            return next;
+    /**
+     * Calcule la prochaine date d'occurrence basée sur le type de récurrence
+     * (strictement après l'échéance de la tâche et pas avant maintenant ; null si la règle est épuisée)
+     */
+    public LocalDateTime calculateNextOccurrence(Task task) {
+        Recurrence recurrence = compileRecurrence(task);
+        if (recurrence == null) {
+            return null;
         }
 
-        // Parser les jours de la semaine
-        Set<DayOfWeek> days = Arrays.stream(recurrenceDays.split(","))
-                .map(String::trim)
-                .map(DayOfWeek::valueOf)
-                .collect(Collectors.toSet());
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime baseDate = task.getDueDate() != null ? task.getDueDate() : now;
+        LocalDateTime from = now.isAfter(baseDate) ? now : baseDate.plusNanos(1);
+        Iterator<LocalDateTime> occurrences = recurrence.occurrences(baseDate, from);
+        return occurrences.hasNext() ? occurrences.next() : null;
+    }
+
+    /**
+     * Occurrences d'un template comprises dans [from, to], calculées sans créer de tâche.
+     * L'échéance du template est la première occurrence : seules les suivantes sont renvoyées.
+     */
+    public List<LocalDateTime> expandOccurrences(Task template, LocalDateTime from, LocalDateTime to, int limit) {
+        Recurrence recurrence = compileRecurrence(template);
+        LocalDateTime start = template.getDueDate() != null ? template.getDueDate() : template.getCreatedAt();
+        if (recurrence == null || start == null) {
+            return List.of();
+        }
 
-        LocalDateTime next = baseDate;
-        int maxIterations = 100; // Sécurité pour éviter boucle infinie
-        int iterations = 0;
+        LocalDateTime end = template.getRecurrenceEndDate() != null && template.getRecurrenceEndDate().isBefore(to)
+                ? template.getRecurrenceEndDate() : to;
+        Iterator<LocalDateTime> occurrences = recurrence.occurrences(start, from.isAfter(start) ? from : start.plusNanos(1));
 
-        while (iterations < maxIterations) {
-            next = next.plusDays(1);
-            if (days.contains(next.getDayOfWeek()) && next.isAfter(LocalDateTime.now())) {
-                return next;
+        List<LocalDateTime> result = new ArrayList<>();
+        while (result.size() < limit && occurrences.hasNext()) {
+            LocalDateTime occurrence = occurrences.next();
+            if (occurrence.isAfter(end)) {
+                break;
             }
-            iterations++;
+            result.add(occurrence);
         }
-
-        // Fallback: semaine suivante
-        return baseDate.plusWeeks(interval);
+        return result;
     }
 
-    private LocalDateTime calculateNextMonthly(LocalDateTime baseDate, int interval, Integer dayOfMonth) {
-        int day = dayOfMonth != null ? dayOfMonth : baseDate.getDayOfMonth();
-
-        LocalDateTime next = baseDate.plusMonths(interval);
-
-        // Gérer les mois avec moins de jours (ex: 31 février n'existe pas)
-        int maxDay = next.toLocalDate().lengthOfMonth();
-        int actualDay = Math.min(day, maxDay);
+    /**
+     * Crée la prochaine occurrence d'une tâche récurrente (la première à venir après son échéance).
+     * Idempotent : si cette occurrence existe déjà, rien n'est créé et seule la prochaine occurrence
+     * du template est avancée.
+     *
+     * @return l'occurrence créée, ou null si la récurrence est terminée ou l'occurrence déjà créée
+     */
+    @Transactional
+    public Task createNextOccurrence(Task templateTask) {
+        if (!templateTask.isRecurring()) {
+            return null;
+        }
+        Task template = lockTemplate(templateTask);
 
-        next = next.withDayOfMonth(actualDay);
+        // Vérifier si la récurrence est terminée
+        if (template.getRecurrenceEndDate() != null
+                && LocalDateTime.now().isAfter(template.getRecurrenceEndDate())) {
+            logger.info("Récurrence terminée pour la tâche: {}", template.getTitle());
+            return null;
+        }
 
-        while (next.isBefore(LocalDateTime.now())) {
-            next = next.plusMonths(interval);
-            maxDay = next.toLocalDate().lengthOfMonth();
-            actualDay = Math.min(day, maxDay);
-            next = next.withDayOfMonth(actualDay);
+        // Calculer la prochaine date
+        LocalDateTime nextDueDate = calculateNextOccurrence(template);
+        if (nextDueDate == null || isAfterEnd(template, nextDueDate)) {
+            template.setNextOccurrence(null);
+            taskRepository.save(template);
+            return null;
         }
 
-        return next;
+        return createOccurrenceIfAbsent(template, nextDueDate);
     }
 
-    private LocalDateTime calculateNextYearly(LocalDateTime baseDate, int interval) {
-        LocalDateTime next = baseDate.plusYears(interval);
-        while (next.isBefore(LocalDateTime.now())) {
-            next = next.plusYears(interval);
+    /**
+     * Template terminé : crée l'occurrence suivante, sauf en mode virtuel où elle reste calculée à la lecture
+     */
+    @Transactional
+    public Task onTemplateCompleted(Task templateTask) {
+        if (virtualOccurrences) {
+            return null;
         }
-        return next;
+        return createNextOccurrence(templateTask);
     }
 
     /**
-     * Crée une nouvelle occurrence d'une tâche récurrente
+     * Écrit en base l'occurrence d'un template prévue à une date, au moment où l'utilisateur agit dessus
+     * (terminer, démarrer le timer, modifier). Idempotent : renvoie la tâche existante si elle a déjà été écrite.
+     *
+     * @throws IllegalArgumentException si la date n'est pas une occurrence du template (hors échéance du template lui-même)
      */
     @Transactional
-    public Task createNextOccurrence(Task templateTask) {
-        if (!templateTask.isRecurring()) {
+    public Task materializeOccurrence(Task templateTask, LocalDateTime occurrenceDate) {
+        if (!Boolean.TRUE.equals(templateTask.getIsRecurringTemplate())) {
+            throw new IllegalArgumentException("Task " + templateTask.getId() + " is not a recurring template");
+        }
+        Task template = lockTemplate(templateTask);
+
+        List<Task> existing = taskRepository.findOccurrence(template.getId(), occurrenceDate);
+        if (!existing.isEmpty()) {
+            return existing.get(0);
+        }
+
+        List<LocalDateTime> expected = expandOccurrences(template, occurrenceDate, occurrenceDate, 1);
+        if (expected.isEmpty()) {
+            throw new IllegalArgumentException(occurrenceDate + " is not an occurrence of task " + template.getId());
+        }
+
+        Task savedTask = taskRepository.save(newOccurrence(template, occurrenceDate));
+        deadlineWheel.schedule(savedTask);
+        return savedTask;
+    }
+
+    /**
+     * Matérialise l'occurrence prévue (nextOccurrence) d'un template dans sa propre transaction.
+     * Le template est relu et verrouillé : un template modifié ou déjà traité depuis la sélection est ignoré,
+     * et une exécution répétée (autre instance, relance après un crash) ne crée pas de doublon.
+     * Une occurrence déjà passée n'est pas rattrapée : on repart de la première à venir.
+     * Si une écriture concurrente que la lecture n'a pas vue déclenche uk_task_parent_occurrence,
+     * la transaction est annulée et l'occurrence considérée comme déjà matérialisée. À appeler hors
+     * transaction (RecurrenceMaterializer) : une transaction englobante resterait marquée à annuler.
+     *
+     * @return l'occurrence créée, ou null si le template n'est plus à traiter ou l'occurrence existe déjà
+     */
+    public Task materializeNextOccurrence(Long templateId, LocalDateTime lookAhead) {
+        try {
+            return transactionTemplate.execute(status -> materializeNextOccurrenceInTransaction(templateId, lookAhead));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Occurrence du template {} déjà matérialisée par une exécution concurrente", templateId);
             return null;
         }
+    }
 
-        // Vérifier si la récurrence est terminée
-        if (templateTask.getRecurrenceEndDate() != null
-                && LocalDateTime.now().isAfter(templateTask.getRecurrenceEndDate())) {
-            logger.info("Récurrence terminée pour la tâche: {}", templateTask.getTitle());
+    private Task materializeNextOccurrenceInTransaction(Long templateId, LocalDateTime lookAhead) {
+        Task template = taskRepository.findByIdForUpdate(templateId).orElse(null);
+        if (template == null
+                || !Boolean.TRUE.equals(template.getIsRecurringTemplate())
+                || template.getNextOccurrence() == null
+                || !template.getNextOccurrence().isBefore(lookAhead)) {
             return null;
         }
 
-        // Calculer la prochaine date
-        LocalDateTime nextDueDate = calculateNextOccurrence(templateTask);
-        if (nextDueDate == null) {
+        LocalDateTime occurrenceDate = template.getNextOccurrence();
+        if (occurrenceDate.isBefore(LocalDateTime.now())) {
+            occurrenceDate = calculateNextOccurrence(template);
+        }
+        if (occurrenceDate == null || isAfterEnd(template, occurrenceDate)) {
+            template.setNextOccurrence(null);
+            taskRepository.save(template);
             return null;
         }
 
-        // Créer la nouvelle tâche
+        Task newTask = createOccurrenceIfAbsent(template, occurrenceDate);
+        if (newTask != null) {
+            logger.debug("Créé occurrence récurrente: {} pour {}", newTask.getTitle(), newTask.getDueDate());
+        }
+        return newTask;
+    }
+
+    // Recharge le template avec un verrou en écriture (même instance s'il est déjà dans la transaction)
+    private Task lockTemplate(Task templateTask) {
+        if (templateTask.getId() == null) {
+            return templateTask;
+        }
+        return taskRepository.findByIdForUpdate(templateTask.getId()).orElse(templateTask);
+    }
+
+    // Crée l'occurrence si elle n'existe pas encore et avance nextOccurrence du template à la suivante.
+    // Le template doit être verrouillé par l'appelant. L'insertion est écrite tout de suite : un doublon
+    // non vu par la lecture lève ici la DataIntegrityViolationException de uk_task_parent_occurrence.
+    // Elle condamne la transaction (Hibernate la marque à annuler) : c'est à sa frontière qu'elle est traitée.
+    private Task createOccurrenceIfAbsent(Task template, LocalDateTime occurrenceDate) {
+        Task savedTask = null;
+        if (taskRepository.findOccurrence(template.getId(), occurrenceDate).isEmpty()) {
+            savedTask = taskRepository.saveAndFlush(newOccurrence(template, occurrenceDate));
+            deadlineWheel.schedule(savedTask);
+        }
+
+        List<LocalDateTime> following = expandOccurrences(template, occurrenceDate.plusNanos(1), LocalDateTime.MAX, 1);
+        template.setNextOccurrence(following.isEmpty() ? null : following.get(0));
+        taskRepository.save(template);
+        return savedTask;
+    }
+
+    private static boolean isAfterEnd(Task template, LocalDateTime occurrenceDate) {
+        return template.getRecurrenceEndDate() != null && occurrenceDate.isAfter(template.getRecurrenceEndDate());
+    }
+
+    // Copie du template pour une occurrence : tâche simple rattachée au template
+    private Task newOccurrence(Task templateTask, LocalDateTime dueDate) {
         Task newTask = new Task();
         newTask.setTitle(templateTask.getTitle());
         newTask.setDescription(templateTask.getDescription());
         newTask.setStatus(TaskStatus.TODO);
         newTask.setPriority(templateTask.getPriority());
-        newTask.setDueDate(nextDueDate);
+        newTask.setDueDate(dueDate);
+        newTask.setOccurrenceDate(dueDate);
         newTask.setEstimatedDuration(templateTask.getEstimatedDuration());
         newTask.setReminderMinutes(templateTask.getReminderMinutes());
         newTask.setUser(templateTask.getUser());
@@ -165,43 +283,7 @@ public class RecurrenceService {
         // La nouvelle tâche n'est PAS un template
         newTask.setIsRecurringTemplate(false);
         newTask.setRecurrenceType(RecurrenceType.NONE);
-
-        // Mettre à jour la prochaine occurrence sur le template
-        templateTask.setNextOccurrence(calculateNextOccurrence(newTask));
-        taskRepository.save(templateTask);
-
-        return taskRepository.save(newTask);
-    }
-
-    /**
-     * Job planifié qui s'exécute toutes les heures pour créer les tâches récurrentes
-     */
-    @Scheduled(fixedRate = 3600000) // Toutes les heures
-    @Transactional
-    public void processRecurringTasks() {
-        logger.info("Traitement des tâches récurrentes...");
-
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime lookAhead = now.plusHours(24); // Regarder 24h en avance
-
-        // Trouver les templates de récurrence dont la prochaine occurrence est proche
-        List<Task> recurringTemplates = taskRepository.findByIsRecurringTemplateTrueAndNextOccurrenceBefore(lookAhead);
-
-        for (Task template : recurringTemplates) {
-            try {
-                if (template.getNextOccurrence() != null && template.getNextOccurrence().isBefore(lookAhead)) {
-                    Task newTask = createNextOccurrence(template);
-                    if (newTask != null) {
-                        logger.info("Créé occurrence récurrente: {} pour {}", newTask.getTitle(), newTask.getDueDate());
-                    }
-                }
-            } catch (Exception e) {
-                logger.error("Erreur lors de la création de l'occurrence pour la tâche {}: {}",
-                        template.getId(), e.getMessage());
-            }
-        }
-
-        logger.info("Traitement des tâches récurrentes terminé.");
+        return newTask;
     }
 
     /**
@@ -215,6 +297,7 @@ public class RecurrenceService {
         task.setRecurrenceDays(days);
         task.setRecurrenceDayOfMonth(dayOfMonth);
         task.setRecurrenceEndDate(endDate);
+        task.setRecurrenceRule(null);
         task.setIsRecurringTemplate(type != RecurrenceType.NONE);
 
         // Calculer la première prochaine occurrence
@@ -233,6 +316,7 @@ public class RecurrenceService {
     @Transactional
     public Task stopRecurrence(Task task) {
         task.setRecurrenceType(RecurrenceType.NONE);
+        task.setRecurrenceRule(null);
         task.setIsRecurringTemplate(false);
         task.setNextOccurrence(null);
         return taskRepository.save(task);
@@ -0,0 +1,105 @@
+package com.example.AppNotiDo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Connexions Server-Sent Events ouvertes, par utilisateur.
+ * Les émetteurs reposent sur le mode asynchrone des servlets : une connexion inactive
+ * n'occupe aucun thread, seuls les envois en consomment brièvement.
+ */
+@Service
+public class SseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseService.class);
+
+    private final Map<Long, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final long timeoutMs;
+
+    public SseService(@Value("${sse.timeout-ms:1800000}") long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Ouvre un flux pour un utilisateur (plusieurs onglets possibles)
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitters.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(() -> remove(userId, emitter));
+        emitter.onError(e -> remove(userId, emitter));
+        return emitter;
+    }
+
+    public boolean isConnected(Long userId) {
+        return emitters.containsKey(userId);
+    }
+
+    /**
+     * Filtre les utilisateurs qui ont au moins un flux ouvert
+     */
+    public List<Long> connectedAmong(Collection<Long> userIds) {
+        return userIds.stream().distinct().filter(this::isConnected).toList();
+    }
+
+    /**
+     * Envoie un évènement nommé à tous les flux d'un utilisateur
+     */
+    public void send(Long userId, String eventName, Object data) {
+        List<SseEmitter> userEmitters = emitters.get(userId);
+        if (userEmitters == null) {
+            return;
+        }
+
+        for (SseEmitter emitter : userEmitters) {
+            try {
+                emitter.send(SseEmitter.event().name(eventName).data(data));
+            } catch (IOException | IllegalStateException e) {
+                // Client déconnecté : on ferme le flux
+                remove(userId, emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    /**
+     * Commentaire périodique pour garder les connexions ouvertes derrière les proxys
+     */
+    @Scheduled(fixedRate = 25000)
+    public void heartbeat() {
+        emitters.forEach((userId, userEmitters) -> {
+            for (SseEmitter emitter : userEmitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                } catch (IOException | IllegalStateException e) {
+                    remove(userId, emitter);
+                }
+            }
+        });
+    }
+
+    public int connectionCount() {
+        return emitters.values().stream().mapToInt(List::size).sum();
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+        logger.debug("SSE stream closed for user {}", userId);
+    }
+}
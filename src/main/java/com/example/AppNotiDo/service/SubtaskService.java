@@ -2,10 +2,13 @@ package com.example.AppNotiDo.service;
 
 import com.example.AppNotiDo.domain.Subtask;
 import com.example.AppNotiDo.domain.Task;
-import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.dto.DisplayOrderDTO;
 import com.example.AppNotiDo.repository.SubtaskRepository;
 import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.util.DisplayOrderUtils;
 import com.example.AppNotiDo.util.SecurityUtils;
+import jakarta.persistence.EntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,22 +18,29 @@ import java.util.List;
 @Service
 public class SubtaskService {
 
+    private static final String UPDATE_DISPLAY_ORDER_SQL = "UPDATE subtasks SET display_order = ? WHERE id = ?";
+
     private final SubtaskRepository subtaskRepository;
     private final TaskRepository taskRepository;
     private final SecurityUtils securityUtils;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
 
-    public SubtaskService(SubtaskRepository subtaskRepository, TaskRepository taskRepository, SecurityUtils securityUtils) {
+    public SubtaskService(SubtaskRepository subtaskRepository, TaskRepository taskRepository, SecurityUtils securityUtils,
+                          JdbcTemplate jdbcTemplate, EntityManager entityManager) {
         this.subtaskRepository = subtaskRepository;
         this.taskRepository = taskRepository;
         this.securityUtils = securityUtils;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
     }
 
     // Récupérer toutes les sous-tâches d'une tâche
     public List<Subtask> getSubtasksByTaskId(Long taskId) {
-        User currentUser = securityUtils.getCurrentUser();
+        Long currentUserId = securityUtils.getCurrentUserId();
 
         // Vérifier que la tâche appartient à l'utilisateur
-        Task task = taskRepository.findByIdAndUserId(taskId, currentUser.getId())
+        Task task = taskRepository.findByIdAndUserId(taskId, currentUserId)
                 .orElseThrow(() -> new RuntimeException("Tâche non trouvée"));
 
         return subtaskRepository.findByTaskIdOrderByDisplayOrderAsc(taskId);
@@ -39,10 +49,10 @@ public class SubtaskService {
     // Créer une sous-tâche
     @Transactional
     public Subtask createSubtask(Long taskId, Subtask subtask) {
-        User currentUser = securityUtils.getCurrentUser();
+        Long currentUserId = securityUtils.getCurrentUserId();
 
         // Vérifier que la tâche appartient à l'utilisateur
-        Task task = taskRepository.findByIdAndUserId(taskId, currentUser.getId())
+        Task task = taskRepository.findByIdAndUserId(taskId, currentUserId)
                 .orElseThrow(() -> new RuntimeException("Tâche non trouvée"));
 
         // Définir l'ordre d'affichage
@@ -59,9 +69,9 @@ public class SubtaskService {
     // Mettre à jour une sous-tâche
     @Transactional
     public Subtask updateSubtask(Long subtaskId, Subtask updatedSubtask) {
-        User currentUser = securityUtils.getCurrentUser();
+        Long currentUserId = securityUtils.getCurrentUserId();
 
-        Subtask existingSubtask = subtaskRepository.findByIdAndTaskUserId(subtaskId, currentUser.getId())
+        Subtask existingSubtask = subtaskRepository.findByIdAndTaskUserId(subtaskId, currentUserId)
                 .orElseThrow(() -> new RuntimeException("Sous-tâche non trouvée"));
 
         if (updatedSubtask.getTitle() != null) {
@@ -86,9 +96,9 @@ public class SubtaskService {
     // Toggle le statut complété d'une sous-tâche
     @Transactional
     public Subtask toggleSubtask(Long subtaskId) {
-        User currentUser = securityUtils.getCurrentUser();
+        Long currentUserId = securityUtils.getCurrentUserId();
 
-        Subtask subtask = subtaskRepository.findByIdAndTaskUserId(subtaskId, currentUser.getId())
+        Subtask subtask = subtaskRepository.findByIdAndTaskUserId(subtaskId, currentUserId)
                 .orElseThrow(() -> new RuntimeException("Sous-tâche non trouvée"));
 
         boolean newStatus = !Boolean.TRUE.equals(subtask.getCompleted());
@@ -106,31 +116,40 @@ public class SubtaskService {
     // Supprimer une sous-tâche
     @Transactional
     public void deleteSubtask(Long subtaskId) {
-        User currentUser = securityUtils.getCurrentUser();
+        Long currentUserId = securityUtils.getCurrentUserId();
 
-        Subtask subtask = subtaskRepository.findByIdAndTaskUserId(subtaskId, currentUser.getId())
+        Subtask subtask = subtaskRepository.findByIdAndTaskUserId(subtaskId, currentUserId)
                 .orElseThrow(() -> new RuntimeException("Sous-tâche non trouvée"));
 
         subtaskRepository.delete(subtask);
     }
 
-    // Réordonner les sous-tâches
+    // Réordonner les sous-tâches : une vérification de la tâche, une lecture des positions,
+    // puis un seul UPDATE en batch pour les positions qui changent. Le batch JDBC passe à côté de JPA :
+    // le contexte de persistance est synchronisé avant puis vidé après (pas de sous-tâche périmée)
     @Transactional
     public void reorderSubtasks(Long taskId, List<Long> subtaskIds) {
-        User currentUser = securityUtils.getCurrentUser();
+        Long currentUserId = securityUtils.getCurrentUserId();
 
         // Vérifier que la tâche appartient à l'utilisateur
-        taskRepository.findByIdAndUserId(taskId, currentUser.getId())
+        taskRepository.findByIdAndUserId(taskId, currentUserId)
                 .orElseThrow(() -> new RuntimeException("Tâche non trouvée"));
 
-        for (int i = 0; i < subtaskIds.size(); i++) {
-            Long subtaskId = subtaskIds.get(i);
-            subtaskRepository.findByIdAndTaskId(subtaskId, taskId)
-                    .ifPresent(subtask -> {
-                        subtask.setDisplayOrder(subtaskIds.indexOf(subtaskId));
-                        subtaskRepository.save(subtask);
-                    });
+        if (subtaskIds == null || subtaskIds.isEmpty()) {
+            return;
+        }
+
+        List<DisplayOrderDTO> current = subtaskRepository.findDisplayOrders(taskId, subtaskIds);
+        List<DisplayOrderDTO> changes = DisplayOrderUtils.changedOrders(subtaskIds, current);
+        if (changes.isEmpty()) {
+            return;
         }
+
+        entityManager.flush();
+        jdbcTemplate.batchUpdate(UPDATE_DISPLAY_ORDER_SQL, changes.stream()
+                .map(change -> new Object[]{change.getDisplayOrder(), change.getId()})
+                .toList());
+        entityManager.clear();
     }
 
     // Compter les sous-tâches
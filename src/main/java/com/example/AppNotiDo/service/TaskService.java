@@ -6,9 +6,14 @@ import com.example.AppNotiDo.domain.TaskPriority;
 import com.example.AppNotiDo.domain.TaskStatus;
 import com.example.AppNotiDo.domain.RecurrenceType;
 import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.dto.BulkTaskRequestDTO;
+import com.example.AppNotiDo.dto.BulkTaskResultDTO;
+import com.example.AppNotiDo.dto.TaskOccurrenceDTO;
 import com.example.AppNotiDo.exception.TaskNotFoundException;
 import com.example.AppNotiDo.repository.ProjectRepository;
+import com.example.AppNotiDo.repository.SubtaskRepository;
 import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.scheduler.DeadlineWheel;
 import com.example.AppNotiDo.util.SecurityUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -19,26 +24,41 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class TaskService {
 
+    private static final int MAX_BULK_SIZE = 500;
+    private static final int MAX_OCCURRENCES = 2000;
+    private static final int MAX_OCCURRENCE_RANGE_DAYS = 366;
+
     private final TaskRepository taskRepository;
     private final ProjectRepository projectRepository;
     private final SecurityUtils securityUtils;
     private final NotificationService notificationService;
     private final RecurrenceService recurrenceService;
+    private final DeadlineWheel deadlineWheel;
+    private final SubtaskRepository subtaskRepository;
 
     public TaskService(TaskRepository taskRepository, ProjectRepository projectRepository,
                        SecurityUtils securityUtils, NotificationService notificationService,
-                       RecurrenceService recurrenceService) {
+                       RecurrenceService recurrenceService, DeadlineWheel deadlineWheel,
+                       SubtaskRepository subtaskRepository) {
         this.taskRepository = taskRepository;
         this.projectRepository = projectRepository;
         this.securityUtils = securityUtils;
         this.notificationService = notificationService;
         this.recurrenceService = recurrenceService;
+        this.deadlineWheel = deadlineWheel;
+        this.subtaskRepository = subtaskRepository;
     }
 
     @Transactional
@@ -57,6 +77,7 @@ public class TaskService {
         setupRecurrenceIfNeeded(task);
 
         Task savedTask = taskRepository.save(task);
+        deadlineWheel.schedule(savedTask);
 
         // 📝 Notification de création
         notificationService.notifyTaskCreated(savedTask);
@@ -87,6 +108,7 @@ public class TaskService {
         setupRecurrenceIfNeeded(task);
 
         Task savedTask = taskRepository.save(task);
+        deadlineWheel.schedule(savedTask);
 
         // 📝 Notification de création
         notificationService.notifyTaskCreated(savedTask);
@@ -98,6 +120,11 @@ public class TaskService {
      * Configure la récurrence pour une nouvelle tâche
      */
     private void setupRecurrenceIfNeeded(Task task) {
+        if (task.getRecurrenceRule() != null && task.getRecurrenceRule().isBlank()) {
+            task.setRecurrenceRule(null);
+        }
+        recurrenceService.applyRecurrenceRule(task);
+
         if (task.getRecurrenceType() != null && task.getRecurrenceType() != RecurrenceType.NONE) {
             task.setIsRecurringTemplate(true);
             // Calculer la prochaine occurrence
@@ -110,15 +137,15 @@ public class TaskService {
     }
 
     public Page<Task> getAllTasks(int page, int size) {
-        User currentUser = securityUtils.getCurrentUser();
+        Long currentUserId = securityUtils.getCurrentUserId();
         Pageable pageable = PageRequest.of(page, size);
-        return taskRepository.findByUserId(currentUser.getId(), pageable);
+        return taskRepository.findByUserId(currentUserId, pageable);
     }
 
     public Page<Task> getTasksByProject(Long projectId, int page, int size) {
-        User currentUser = securityUtils.getCurrentUser();
+        Long currentUserId = securityUtils.getCurrentUserId();
         Pageable pageable = PageRequest.of(page, size);
-        return taskRepository.findByProjectIdAndUserId(projectId, currentUser.getId(), pageable);
+        return taskRepository.findByProjectIdAndUserId(projectId, currentUserId, pageable);
     }
 
     public Task getTaskById(Long id) {
@@ -135,9 +162,10 @@ public class TaskService {
         User user = task.getUser();
 
         // Supprimer les notifications liées à cette tâche
-        notificationService.deleteNotificationsByTask(id);
+        notificationService.deleteNotificationsByTask(id, user.getId());
 
         taskRepository.deleteById(id);
+        deadlineWheel.cancel(id);
 
         // 🗑️ Notification de suppression
         notificationService.notifyTaskDeleted(user, taskTitle);
@@ -213,8 +241,12 @@ public class TaskService {
         );
         if (projectChanged) changes.add("projet");
 
-        // Récurrence
-        boolean recurrenceChanged = !Objects.equals(
+        // Récurrence (règle RRULE : null = inchangée, chaîne vide = supprimée)
+        recurrenceService.applyRecurrenceRule(updatedTask);
+        String newRule = updatedTask.getRecurrenceRule();
+        boolean ruleChanged = newRule != null &&
+                !Objects.equals(newRule.isBlank() ? null : newRule, existingTask.getRecurrenceRule());
+        boolean recurrenceChanged = ruleChanged || !Objects.equals(
                 updatedTask.getRecurrenceType(),
                 existingTask.getRecurrenceType()
         );
@@ -295,6 +327,9 @@ public class TaskService {
         if (updatedTask.getRecurrenceEndDate() != null) {
             existingTask.setRecurrenceEndDate(updatedTask.getRecurrenceEndDate());
         }
+        if (ruleChanged) {
+            existingTask.setRecurrenceRule(newRule.isBlank() ? null : newRule);
+        }
 
         // Mettre à jour le statut de template et la prochaine occurrence
         if (recurrenceChanged) {
@@ -309,28 +344,21 @@ public class TaskService {
 
         // Si une tâche récurrente est marquée comme DONE, créer la prochaine occurrence
         if (statusChanged && "DONE".equals(newStatus) && Boolean.TRUE.equals(existingTask.getIsRecurringTemplate())) {
-            // Créer la prochaine occurrence automatiquement
-            recurrenceService.createNextOccurrence(existingTask);
+            // Créer la prochaine occurrence automatiquement (sauf occurrences virtuelles)
+            recurrenceService.onTemplateCompleted(existingTask);
         }
 
         Task savedTask = taskRepository.save(existingTask);
+        deadlineWheel.schedule(savedTask);
 
         // ========================================
         // CRÉER LES NOTIFICATIONS
         // ========================================
 
-        // 📊 Changement de statut
-        if (statusChanged) {
-            if ("DONE".equals(newStatus)) {
-                notificationService.notifyTaskCompleted(savedTask);
-            } else {
-                notificationService.notifyStatusChanged(savedTask, oldStatus, newStatus);
-            }
-        }
-
-        // 🎯 Changement de priorité
-        if (priorityChanged) {
-            notificationService.notifyPriorityChanged(savedTask, oldPriority, newPriority);
+        // ✅ Tâche terminée : notifiée immédiatement
+        boolean completed = statusChanged && "DONE".equals(newStatus);
+        if (completed) {
+            notificationService.notifyTaskCompleted(savedTask);
         }
 
         // 🔄 Tâche réactivée (déplacée à aujourd'hui)
@@ -347,10 +375,13 @@ public class TaskService {
             }
         }
 
-        // ✏️ Notification générique pour autres modifications
-        if (!statusChanged && !priorityChanged && !changes.isEmpty()) {
-            String detail = String.join(", ", changes) + " modifié" + (changes.size() > 1 ? "s" : "");
-            notificationService.notifyTaskUpdated(savedTask, detail);
+        // 📊 🎯 ✏️ Statut, priorité et autres champs : fusionnés par fenêtre dans une seule notification
+        boolean coalescedStatus = statusChanged && !completed;
+        if (coalescedStatus || priorityChanged || !changes.isEmpty()) {
+            notificationService.notifyTaskChanged(savedTask,
+                    coalescedStatus ? oldStatus : null, coalescedStatus ? newStatus : null,
+                    priorityChanged ? oldPriority : null, priorityChanged ? newPriority : null,
+                    changes);
         }
 
         return savedTask;
@@ -358,11 +389,11 @@ public class TaskService {
 
     @Transactional
     public Task updateTaskWithProject(Long id, Task updatedTask, Long projectId) {
-        User currentUser = securityUtils.getCurrentUser();
+        Long currentUserId = securityUtils.getCurrentUserId();
 
         // Charger le projet si spécifié
         if (projectId != null) {
-            Project project = projectRepository.findByIdAndUserId(projectId, currentUser.getId())
+            Project project = projectRepository.findByIdAndUserId(projectId, currentUserId)
                     .orElse(null);
             updatedTask.setProject(project);
         } else {
@@ -372,19 +403,144 @@ public class TaskService {
         return updateTask(id, updatedTask);
     }
 
+    // ======================
+    //   OPÉRATIONS GROUPÉES
+    // ======================
+
+    /**
+     * Applique une action groupée (patch ou suppression) à une sélection de tâches en une transaction :
+     * une requête IN pour la propriété, une requête groupée par champ modifié et une seule
+     * notification agrégée. Les tâches introuvables ou d'un autre utilisateur sont signalées par item.
+     *
+     * @throws IllegalArgumentException si la sélection est vide ou trop grande, ou si rien n'est à modifier
+     */
+    @Transactional
+    public BulkTaskResultDTO bulkUpdate(BulkTaskRequestDTO request) {
+        List<Long> requestedIds = request.getTaskIds() != null
+                ? new ArrayList<>(new LinkedHashSet<>(request.getTaskIds())) : List.of();
+        if (requestedIds.isEmpty()) {
+            throw new IllegalArgumentException("Aucune tâche sélectionnée");
+        }
+        if (requestedIds.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("Trop de tâches sélectionnées (max " + MAX_BULK_SIZE + ")");
+        }
+        if (!Boolean.TRUE.equals(request.getDelete()) && request.getStatus() == null && request.getPriority() == null
+                && request.getTags() == null && request.getProjectId() == null
+                && !Boolean.TRUE.equals(request.getRemoveFromProject())) {
+            throw new IllegalArgumentException("Aucune modification demandée");
+        }
+
+        Long currentUserId = securityUtils.getCurrentUserId();
+        List<Task> tasks = taskRepository.findAllByIdInAndUserId(requestedIds, currentUserId);
+        List<Long> ids = tasks.stream().map(Task::getId).toList();
+
+        if (!tasks.isEmpty()) {
+            if (Boolean.TRUE.equals(request.getDelete())) {
+                bulkDelete(tasks, ids, currentUserId);
+            } else {
+                bulkPatch(tasks, ids, request, currentUserId);
+            }
+        }
+
+        Set<Long> done = new HashSet<>(ids);
+        List<BulkTaskResultDTO.ItemResult> items = requestedIds.stream()
+                .map(id -> done.contains(id)
+                        ? new BulkTaskResultDTO.ItemResult(id, true, null)
+                        : new BulkTaskResultDTO.ItemResult(id, false, "Task not found"))
+                .toList();
+
+        return BulkTaskResultDTO.builder()
+                .requested(requestedIds.size())
+                .succeeded(done.size())
+                .items(items)
+                .build();
+    }
+
+    private void bulkDelete(List<Task> tasks, List<Long> ids, Long userId) {
+        notificationService.deleteNotificationsByTasks(ids, userId);
+        subtaskRepository.deleteByTaskIdIn(ids);
+        taskRepository.clearParentTaskByParentIdIn(ids);
+        taskRepository.deleteByIdIn(ids);
+        ids.forEach(deadlineWheel::cancel);
+
+        // 🗑️ Une seule notification pour toute la sélection
+        notificationService.notifyTasksBulkDeleted(tasks.get(0).getUser(), ids.size());
+    }
+
+    private void bulkPatch(List<Task> tasks, List<Long> ids, BulkTaskRequestDTO request, Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> changes = new ArrayList<>();
+
+        TaskStatus status = request.getStatus() != null ? TaskStatus.valueOf(request.getStatus()) : null;
+        TaskPriority priority = request.getPriority() != null ? TaskPriority.valueOf(request.getPriority()) : null;
+
+        Project project = null;
+        boolean projectChanged = Boolean.TRUE.equals(request.getRemoveFromProject()) || request.getProjectId() != null;
+        if (request.getProjectId() != null && !Boolean.TRUE.equals(request.getRemoveFromProject())) {
+            project = projectRepository.findByIdAndUserId(request.getProjectId(), userId)
+                    .orElseThrow(() -> new IllegalArgumentException("Projet non trouvé"));
+        }
+
+        // Tâches dont le statut passe à DONE ou en sort : échéances et récurrence à mettre à jour
+        List<Task> completed = new ArrayList<>();
+        List<Task> reopened = new ArrayList<>();
+        if (status != null) {
+            for (Task task : tasks) {
+                if (status == TaskStatus.DONE && task.getStatus() != TaskStatus.DONE) {
+                    completed.add(task);
+                } else if (status != TaskStatus.DONE && task.getStatus() == TaskStatus.DONE) {
+                    reopened.add(task);
+                }
+            }
+        }
+
+        // Une requête UPDATE par champ modifié (les entités chargées sont ensuite détachées)
+        if (status != null) {
+            taskRepository.updateStatusByIdIn(ids, status, now);
+            changes.add("statut");
+        }
+        if (priority != null) {
+            taskRepository.updatePriorityByIdIn(ids, priority, now);
+            changes.add("priorité");
+        }
+        if (projectChanged) {
+            taskRepository.updateProjectByIdIn(ids, project, now);
+            changes.add("projet");
+        }
+        if (request.getTags() != null) {
+            taskRepository.updateTagsByIdIn(ids, request.getTags(), now);
+            changes.add("tags");
+        }
+
+        for (Task task : completed) {
+            task.setStatus(TaskStatus.DONE);
+            deadlineWheel.schedule(task);
+            if (Boolean.TRUE.equals(task.getIsRecurringTemplate())) {
+                recurrenceService.onTemplateCompleted(task);
+            }
+        }
+        for (Task task : reopened) {
+            task.setStatus(status);
+            deadlineWheel.schedule(task);
+        }
+
+        // ✏️ Une seule notification pour toute la sélection
+        notificationService.notifyTasksBulkUpdated(tasks.get(0).getUser(), ids.size(), changes);
+    }
+
     public List<Task> getTaskByStatus(TaskStatus status) {
-        User currentUser = securityUtils.getCurrentUser();
-        return taskRepository.findByStatusAndUserId(status, currentUser.getId());
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return taskRepository.findByStatusAndUserId(status, currentUserId);
     }
 
     public List<Task> getTaskByPriority(TaskPriority priority) {
-        User currentUser = securityUtils.getCurrentUser();
-        return taskRepository.findByPriorityAndUserId(priority, currentUser.getId());
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return taskRepository.findByPriorityAndUserId(priority, currentUserId);
     }
 
     public List<Task> getTaskByStatusAndPriority(TaskStatus status, TaskPriority priority) {
-        User currentUser = securityUtils.getCurrentUser();
-        return taskRepository.findByStatusAndPriorityAndUserId(status, priority, currentUser.getId());
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return taskRepository.findByStatusAndPriorityAndUserId(status, priority, currentUserId);
     }
 
     public Page<Task> getTasksByUserId(Long userId, int page, int size) {
@@ -393,8 +549,8 @@ public class TaskService {
     }
 
     private void checkTaskOwnership(Task task) {
-        User currentUser = securityUtils.getCurrentUser();
-        if (!task.getUser().getId().equals(currentUser.getId())) {
+        Long currentUserId = securityUtils.getCurrentUserId();
+        if (!task.getUser().getId().equals(currentUserId)) {
             throw new IllegalArgumentException("You don't have permission to access this task");
         }
     }
@@ -411,8 +567,79 @@ public class TaskService {
      * Récupère les templates de récurrence de l'utilisateur courant
      */
     public List<Task> getRecurringTemplates() {
-        User currentUser = securityUtils.getCurrentUser();
-        return taskRepository.findByUserIdAndIsRecurringTemplateTrue(currentUser.getId());
+        Long currentUserId = securityUtils.getCurrentUserId();
+        return taskRepository.findByUserIdAndIsRecurringTemplateTrue(currentUserId);
+    }
+
+    /**
+     * Occurrences des templates de l'utilisateur (ou d'un seul template) sur une plage de dates, pour les
+     * vues calendrier. Elles sont calculées à partir des règles ; celles déjà écrites en base (matérialisées
+     * à l'avance ou suite à une action de l'utilisateur) sont renvoyées avec l'état de leur tâche.
+     */
+    public List<TaskOccurrenceDTO> getOccurrences(LocalDateTime from, LocalDateTime to, Long templateId) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must be after 'from'");
+        }
+        if (Duration.between(from, to).toDays() > MAX_OCCURRENCE_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range cannot exceed " + MAX_OCCURRENCE_RANGE_DAYS + " days");
+        }
+
+        List<Task> templates;
+        if (templateId != null) {
+            Task template = getTaskById(templateId);
+            if (!Boolean.TRUE.equals(template.getIsRecurringTemplate())) {
+                throw new IllegalArgumentException("Task " + templateId + " is not a recurring template");
+            }
+            templates = List.of(template);
+        } else {
+            templates = getRecurringTemplates();
+        }
+        if (templates.isEmpty()) {
+            return List.of();
+        }
+
+        // Occurrences déjà en base, par template puis par date prévue (une requête pour tous les templates)
+        Map<Long, Map<LocalDateTime, Task>> stored = new HashMap<>();
+        for (Task task : taskRepository.findOccurrencesOf(templates.stream().map(Task::getId).toList(), from, to)) {
+            LocalDateTime occurrenceDate = task.getOccurrenceDate() != null ? task.getOccurrenceDate() : task.getDueDate();
+            stored.computeIfAbsent(task.getParentTask().getId(), id -> new HashMap<>()).putIfAbsent(occurrenceDate, task);
+        }
+
+        List<TaskOccurrenceDTO> occurrences = new ArrayList<>();
+        for (Task template : templates) {
+            Map<LocalDateTime, Task> storedForTemplate = stored.getOrDefault(template.getId(), Map.of());
+            for (LocalDateTime occurrenceDate : recurrenceService.expandOccurrences(template, from, to, MAX_OCCURRENCES)) {
+                Task task = storedForTemplate.get(occurrenceDate);
+                Task source = task != null ? task : template;
+                occurrences.add(new TaskOccurrenceDTO(template.getId(),
+                        task != null ? task.getId() : null,
+                        occurrenceDate,
+                        source.getTitle(),
+                        task != null ? task.getDueDate() : occurrenceDate,
+                        task != null && task.getStatus() != null ? task.getStatus().name() : TaskStatus.TODO.name(),
+                        source.getPriority() != null ? source.getPriority().name() : null,
+                        source.getEstimatedDuration(),
+                        source.getProject() != null ? source.getProject().getId() : null,
+                        source.getTags()));
+            }
+        }
+
+        occurrences.sort(Comparator.comparing(TaskOccurrenceDTO::getDueDate)
+                .thenComparing(TaskOccurrenceDTO::getTemplateId));
+        return occurrences.size() > MAX_OCCURRENCES ? occurrences.subList(0, MAX_OCCURRENCES) : occurrences;
+    }
+
+    /**
+     * Écrit en base une occurrence d'un template de l'utilisateur courant pour pouvoir agir dessus
+     * (la renvoie telle quelle si elle existe déjà)
+     */
+    @Transactional
+    public Task materializeOccurrence(Long templateId, LocalDateTime occurrenceDate) {
+        if (occurrenceDate == null) {
+            throw new IllegalArgumentException("Occurrence date is required");
+        }
+        Task template = getTaskById(templateId);
+        return recurrenceService.materializeOccurrence(template, occurrenceDate);
     }
 
     /**
@@ -429,11 +656,11 @@ public class TaskService {
     // ======================
 
     @Transactional
-    public Task startTask(Long taskId, User user) {
+    public Task startTask(Long taskId, Long userId) {
         Task task = taskRepository.findById(taskId)
                 .orElseThrow(() -> new TaskNotFoundException("Task not found with id: " + taskId));
 
-        if (!task.getUser().getId().equals(user.getId())) {
+        if (!task.getUser().getId().equals(userId)) {
             throw new IllegalArgumentException("Not your task");
         }
 
@@ -454,11 +681,11 @@ public class TaskService {
     }
 
     @Transactional
-    public Task pauseTask(Long taskId, User user) {
+    public Task pauseTask(Long taskId, Long userId) {
         Task task = taskRepository.findById(taskId)
                 .orElseThrow(() -> new TaskNotFoundException("Task not found with id: " + taskId));
 
-        if (!task.getUser().getId().equals(user.getId())) {
+        if (!task.getUser().getId().equals(userId)) {
             throw new IllegalArgumentException("Not your task");
         }
 
@@ -485,11 +712,11 @@ public class TaskService {
     }
 
     @Transactional
-    public Task stopTask(Long taskId, User user) {
+    public Task stopTask(Long taskId, Long userId) {
         Task task = taskRepository.findById(taskId)
                 .orElseThrow(() -> new TaskNotFoundException("Task not found with id: " + taskId));
 
-        if (!task.getUser().getId().equals(user.getId())) {
+        if (!task.getUser().getId().equals(userId)) {
             throw new IllegalArgumentException("Not your task");
         }
 
@@ -508,13 +735,14 @@ public class TaskService {
         task.setTimerEnabled(false);
 
         Task savedTask = taskRepository.save(task);
+        deadlineWheel.schedule(savedTask);
 
         // ⏹️ Notification timer arrêté (inclut le temps total)
         notificationService.notifyTimerStopped(savedTask, totalTimeSpent);
 
-        // Si c'est un template récurrent, créer la prochaine occurrence
+        // Si c'est un template récurrent, créer la prochaine occurrence (sauf occurrences virtuelles)
         if (Boolean.TRUE.equals(task.getIsRecurringTemplate())) {
-            recurrenceService.createNextOccurrence(task);
+            recurrenceService.onTemplateCompleted(task);
         }
 
         return savedTask;
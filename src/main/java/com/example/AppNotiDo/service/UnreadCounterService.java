@@ -0,0 +1,216 @@
+package com.example.AppNotiDo.service;
+
+import com.example.AppNotiDo.dto.UnreadCountDTO;
+import com.example.AppNotiDo.repository.MessageRepository;
+import com.example.AppNotiDo.repository.NotificationRepository;
+import com.example.AppNotiDo.util.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Compteurs de notifications et messages non lus, gardés en mémoire par utilisateur.
+ * Un compteur absent est chargé depuis la base à la première lecture, puis mis à jour
+ * de façon incrémentale après le commit de chaque écriture. Le cache est borné (LRU)
+ * et une réconciliation périodique corrige les écarts éventuels.
+ * Chaque entrée porte une version incrémentée par toute écriture : un chargement ou une
+ * réconciliation dont la requête a croisé une écriture est abandonné plutôt que d'écraser celle-ci.
+ */
+@Service
+public class UnreadCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnreadCounterService.class);
+
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    public enum Kind {
+        NOTIFICATION,
+        MESSAGE
+    }
+
+    private final NotificationRepository notificationRepository;
+    private final MessageRepository messageRepository;
+    private final Map<Kind, Map<Long, Counter>> counters = new EnumMap<>(Kind.class);
+
+    public UnreadCounterService(
+            NotificationRepository notificationRepository,
+            MessageRepository messageRepository,
+            @Value("${unread.cache.max-users:10000}") int maxUsers
+    ) {
+        this.notificationRepository = notificationRepository;
+        this.messageRepository = messageRepository;
+        for (Kind kind : Kind.values()) {
+            counters.put(kind, new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Counter> eldest) {
+                    return size() > maxUsers;
+                }
+            });
+        }
+    }
+
+    /**
+     * Nombre de non lus d'un utilisateur (lecture mémoire, requête uniquement au premier accès)
+     */
+    public long get(Kind kind, Long userId) {
+        Map<Long, Counter> cache = counters.get(kind);
+        Counter counter;
+        long version;
+        synchronized (cache) {
+            counter = cache.get(userId);
+            if (counter != null && counter.loaded) {
+                return counter.count;
+            }
+            if (counter == null) {
+                // Entrée en cours de chargement : elle enregistre les écritures concurrentes
+                counter = new Counter();
+                cache.put(userId, counter);
+            }
+            version = counter.version;
+        }
+
+        long count = load(kind, userId);
+        synchronized (cache) {
+            if (counter.loaded) {
+                return counter.count;
+            }
+            // Une écriture a croisé le chargement : le résultat n'est pas mis en cache
+            if (cache.get(userId) == counter && counter.version == version) {
+                counter.count = count;
+                counter.loaded = true;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Ajoute (ou retire, si delta < 0) des non lus après le commit de la transaction courante
+     */
+    public void add(Kind kind, Long userId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            Map<Long, Counter> cache = counters.get(kind);
+            synchronized (cache) {
+                // Un compteur absent sera chargé à jour à la prochaine lecture
+                Counter counter = cache.get(userId);
+                if (counter != null) {
+                    counter.count = Math.max(0, counter.count + delta);
+                    counter.version++;
+                }
+            }
+        });
+    }
+
+    /**
+     * Remet un compteur à zéro après le commit (tout marquer comme lu, tout supprimer)
+     */
+    public void reset(Kind kind, Long userId) {
+        TransactionUtils.afterCommit(() -> {
+            Map<Long, Counter> cache = counters.get(kind);
+            synchronized (cache) {
+                Counter counter = cache.computeIfAbsent(userId, id -> new Counter());
+                counter.count = 0;
+                counter.loaded = true;
+                counter.version++;
+            }
+        });
+    }
+
+    /**
+     * Oublie des compteurs après le commit : ils seront rechargés à la prochaine lecture
+     */
+    public void invalidate(Kind kind, Collection<Long> userIds) {
+        List<Long> ids = new ArrayList<>(userIds);
+        TransactionUtils.afterCommit(() -> {
+            Map<Long, Counter> cache = counters.get(kind);
+            synchronized (cache) {
+                ids.forEach(cache::remove);
+            }
+        });
+    }
+
+    /**
+     * Recalcule périodiquement les compteurs en cache, par lots, avec une requête groupée par lot
+     */
+    @Scheduled(fixedDelayString = "${unread.cache.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        reconcile(Kind.NOTIFICATION, notificationRepository::countUnreadByUserIds);
+        reconcile(Kind.MESSAGE, messageRepository::countUnreadByRecipientIds);
+    }
+
+    private void reconcile(Kind kind, Function<Collection<Long>, List<UnreadCountDTO>> counter) {
+        Map<Long, Counter> cache = counters.get(kind);
+        List<Long> userIds;
+        synchronized (cache) {
+            userIds = new ArrayList<>(cache.keySet());
+        }
+
+        int corrected = 0;
+        for (int i = 0; i < userIds.size(); i += RECONCILE_BATCH_SIZE) {
+            List<Long> batch = userIds.subList(i, Math.min(i + RECONCILE_BATCH_SIZE, userIds.size()));
+            // Versions relevées avant la requête : une écriture survenue pendant le comptage l'emporte
+            Map<Long, Counter> entries = new HashMap<>();
+            Map<Long, Long> versions = new HashMap<>();
+            synchronized (cache) {
+                for (Long userId : batch) {
+                    Counter entry = cache.get(userId);
+                    if (entry != null && entry.loaded) {
+                        entries.put(userId, entry);
+                        versions.put(userId, entry.version);
+                    }
+                }
+            }
+            if (entries.isEmpty()) {
+                continue;
+            }
+
+            Map<Long, Long> actual = new HashMap<>();
+            counter.apply(entries.keySet()).forEach(c -> actual.put(c.getUserId(), c.getCount()));
+
+            synchronized (cache) {
+                for (Map.Entry<Long, Counter> e : entries.entrySet()) {
+                    Counter entry = e.getValue();
+                    if (cache.get(e.getKey()) != entry || entry.version != versions.get(e.getKey())) {
+                        continue;
+                    }
+                    long count = actual.getOrDefault(e.getKey(), 0L);
+                    if (entry.count != count) {
+                        entry.count = count;
+                        corrected++;
+                    }
+                }
+            }
+        }
+
+        if (corrected > 0) {
+            logger.info("Unread {} counters reconciled: {} of {} corrected", kind, corrected, userIds.size());
+        }
+    }
+
+    private long load(Kind kind, Long userId) {
+        Long count = kind == Kind.NOTIFICATION
+                ? notificationRepository.countByUserIdAndIsReadFalse(userId)
+                : messageRepository.countByRecipientIdAndIsReadFalse(userId);
+        return count != null ? count : 0L;
+    }
+
+    // Entrée du cache, protégée par le verrou de la map de son type
+    private static final class Counter {
+        private long count;
+        private long version;
+        private boolean loaded;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.AppNotiDo.service;
 import com.example.AppNotiDo.domain.User;
 import com.example.AppNotiDo.exception.UserNotFoundException;
 import com.example.AppNotiDo.repository.UserRepository;
+import com.example.AppNotiDo.security.CurrentUserCache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -14,11 +15,14 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CurrentUserCache currentUserCache;
 
     public UserService(UserRepository userRepository,
-                       PasswordEncoder passwordEncoder) {
+                       PasswordEncoder passwordEncoder,
+                       CurrentUserCache currentUserCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.currentUserCache = currentUserCache;
     }
 
     public User createUser(User user){
@@ -80,6 +84,7 @@ public class UserService {
     public void deleteUser(Long id){
         getUserById(id);
         userRepository.deleteById(id);
+        currentUserCache.invalidate(id);
     }
 
     public User updateUser(Long id, User updateUser){
@@ -95,7 +100,9 @@ public class UserService {
             existingUser.setDisplayName(updateUser.getDisplayName());
         }
 
-        return userRepository.save(existingUser);
+        User saved = userRepository.save(existingUser);
+        currentUserCache.invalidate(id);
+        return saved;
     }
 
     public User saveUser(User user) {
@@ -106,7 +113,9 @@ public class UserService {
                         throw new IllegalArgumentException("Cet email est déjà utilisé");
                     }
                 });
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        currentUserCache.invalidate(saved.getId());
+        return saved;
     }
 
     public void changePassword(String username, String currentPassword, String newPassword) {
@@ -118,6 +127,7 @@ public class UserService {
 
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        currentUserCache.invalidate(user.getId());
     }
 
     public User findByUsername(String username) {
@@ -0,0 +1,39 @@
+package com.example.AppNotiDo.util;
+
+import com.example.AppNotiDo.dto.DisplayOrderDTO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class DisplayOrderUtils {
+
+    private DisplayOrderUtils() {
+    }
+
+    /**
+     * Calcule les nouvelles positions (index dans orderedIds) des seuls éléments autorisés
+     * dont la position change. Un id répété garde sa première position.
+     * Retourne les nouvelles positions, à écrire par un UPDATE en batch.
+     */
+    public static List<DisplayOrderDTO> changedOrders(List<Long> orderedIds, List<DisplayOrderDTO> current) {
+        Map<Long, Integer> currentOrders = new HashMap<>();
+        for (DisplayOrderDTO row : current) {
+            currentOrders.put(row.getId(), row.getDisplayOrder());
+        }
+
+        List<DisplayOrderDTO> changes = new ArrayList<>();
+        for (int i = 0; i < orderedIds.size(); i++) {
+            Long id = orderedIds.get(i);
+            if (!currentOrders.containsKey(id)) {
+                continue;
+            }
+            Integer previous = currentOrders.remove(id);
+            if (previous == null || previous != i) {
+                changes.add(new DisplayOrderDTO(id, i));
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,562 @@
+package com.example.AppNotiDo.util;
+
+import com.example.AppNotiDo.domain.RecurrenceType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Règle de récurrence RFC 5545 compilée (sous-ensemble) :
+ * FREQ (DAILY, WEEKLY, MONTHLY, YEARLY), INTERVAL, COUNT, UNTIL, BYDAY avec ordinaux (2MO, -1FR),
+ * BYMONTHDAY (listes, valeurs négatives depuis la fin du mois), BYMONTH, WKST, ainsi que EXDATE.
+ *
+ * Le texte accepte une ligne "RRULE:..." (ou directement "FREQ=...") et des lignes "EXDATE:...".
+ * DTSTART n'est pas lu : c'est la date d'échéance du template qui sert de départ.
+ * Les dates sont locales (le suffixe Z d'UNTIL / EXDATE est ignoré, l'application n'a pas de fuseau).
+ *
+ * Les occurrences sont produites période par période (jour, semaine, mois, année) : sans COUNT,
+ * l'itérateur saute directement à la période qui contient 'from' au lieu de dérouler tout l'historique.
+ */
+public final class RRule implements Recurrence {
+
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY, YEARLY
+    }
+
+    // Ordinal 0 = tous les jours de ce type dans la période
+    private record WeekdayNum(int ordinal, DayOfWeek day) {
+    }
+
+    private static final Pattern BYDAY_ITEM = Pattern.compile("([+-]?\\d{1,2})?(MO|TU|WE|TH|FR|SA|SU)");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    // Arrêt d'une règle qui ne produit plus rien (ex : BYMONTH=2;BYMONTHDAY=30)
+    private static final int MAX_EMPTY_PERIODS = 3000;
+
+    // Règles déjà compilées, par texte
+    private static final Map<String, RRule> CACHE = new ConcurrentHashMap<>();
+    private static final int MAX_CACHED_RULES = 1024;
+
+    private final Frequency frequency;
+    private final int interval;
+    private final Integer count;
+    private final LocalDateTime until;
+    private final List<WeekdayNum> byDay;
+    private final List<Integer> byMonthDay;
+    private final Set<Integer> byMonth;
+    private final DayOfWeek weekStart;
+    private final Set<LocalDateTime> exDateTimes;
+    private final Set<LocalDate> exDates;
+
+    private RRule(Frequency frequency, int interval, Integer count, LocalDateTime until,
+                  List<WeekdayNum> byDay, List<Integer> byMonthDay, Set<Integer> byMonth, DayOfWeek weekStart,
+                  Set<LocalDateTime> exDateTimes, Set<LocalDate> exDates) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.until = until;
+        this.byDay = byDay;
+        this.byMonthDay = byMonthDay;
+        this.byMonth = byMonth;
+        this.weekStart = weekStart;
+        this.exDateTimes = exDateTimes;
+        this.exDates = exDates;
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Type historique équivalent (pour isRecurring() et l'affichage)
+     */
+    public RecurrenceType getRecurrenceType() {
+        return RecurrenceType.valueOf(frequency.name());
+    }
+
+    // ========================================
+    // PARSING
+    // ========================================
+
+    /**
+     * Compile une règle (mise en cache par texte)
+     *
+     * @throws IllegalArgumentException si la règle est invalide ou utilise une partie non supportée
+     */
+    public static RRule parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Empty RRULE");
+        }
+        RRule cached = CACHE.get(text);
+        if (cached != null) {
+            return cached;
+        }
+
+        RRule rule = compile(text);
+        if (CACHE.size() < MAX_CACHED_RULES) {
+            CACHE.put(text, rule);
+        }
+        return rule;
+    }
+
+    private static RRule compile(String text) {
+        String rrule = null;
+        Set<LocalDateTime> exDateTimes = new HashSet<>();
+        Set<LocalDate> exDates = new HashSet<>();
+
+        for (String rawLine : text.split("\\r?\\n")) {
+            String line = rawLine.trim();
+            String upper = line.toUpperCase();
+            if (line.isEmpty() || upper.startsWith("DTSTART")) {
+                continue;
+            }
+            if (upper.startsWith("EXDATE")) {
+                parseExDates(line.substring(line.indexOf(':') + 1), exDateTimes, exDates);
+            } else if (upper.startsWith("RRULE:")) {
+                rrule = line.substring("RRULE:".length());
+            } else if (upper.startsWith("FREQ=") || upper.contains(";FREQ=")) {
+                rrule = line;
+            } else {
+                throw new IllegalArgumentException("Unsupported recurrence line: " + line);
+            }
+        }
+        if (rrule == null) {
+            throw new IllegalArgumentException("Missing RRULE");
+        }
+
+        Frequency frequency = null;
+        int interval = 1;
+        Integer count = null;
+        LocalDateTime until = null;
+        List<WeekdayNum> byDay = new ArrayList<>();
+        TreeSet<Integer> byMonthDay = new TreeSet<>();
+        Set<Integer> byMonth = new HashSet<>();
+        DayOfWeek weekStart = DayOfWeek.MONDAY;
+
+        for (String part : rrule.toUpperCase().split(";")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            int eq = part.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Invalid RRULE part: " + part);
+            }
+            String key = part.substring(0, eq).trim();
+            String value = part.substring(eq + 1).trim();
+
+            switch (key) {
+                case "FREQ":
+                    frequency = parseFrequency(value);
+                    break;
+                case "INTERVAL":
+                    interval = parseInt(key, value, 1, 1000);
+                    break;
+                case "COUNT":
+                    count = parseInt(key, value, 1, 100_000);
+                    break;
+                case "UNTIL":
+                    until = parseUntil(value);
+                    break;
+                case "BYDAY":
+                    for (String item : value.split(",")) {
+                        byDay.add(parseWeekdayNum(item.trim()));
+                    }
+                    break;
+                case "BYMONTHDAY":
+                    for (String item : value.split(",")) {
+                        int day = parseInt(key, item.trim(), -31, 31);
+                        if (day == 0) {
+                            throw new IllegalArgumentException("Invalid BYMONTHDAY: 0");
+                        }
+                        byMonthDay.add(day);
+                    }
+                    break;
+                case "BYMONTH":
+                    for (String item : value.split(",")) {
+                        byMonth.add(parseInt(key, item.trim(), 1, 12));
+                    }
+                    break;
+                case "WKST":
+                    weekStart = parseWeekdayNum(value).day();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported RRULE part: " + key);
+            }
+        }
+
+        if (frequency == null) {
+            throw new IllegalArgumentException("RRULE without FREQ");
+        }
+        if (count != null && until != null) {
+            throw new IllegalArgumentException("RRULE cannot have both COUNT and UNTIL");
+        }
+        for (WeekdayNum weekday : byDay) {
+            if (weekday.ordinal() != 0 && (frequency == Frequency.DAILY || frequency == Frequency.WEEKLY)) {
+                throw new IllegalArgumentException("BYDAY ordinals are only allowed with MONTHLY or YEARLY");
+            }
+            if (Math.abs(weekday.ordinal()) > 5 && (frequency == Frequency.MONTHLY || !byMonth.isEmpty())) {
+                throw new IllegalArgumentException("Invalid BYDAY ordinal in a month: " + weekday.ordinal());
+            }
+        }
+
+        return new RRule(frequency, interval, count, until, List.copyOf(byDay), List.copyOf(byMonthDay),
+                Set.copyOf(byMonth), weekStart, Set.copyOf(exDateTimes), Set.copyOf(exDates));
+    }
+
+    private static Frequency parseFrequency(String value) {
+        try {
+            return Frequency.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported FREQ: " + value);
+        }
+    }
+
+    private static int parseInt(String key, String value, int min, int max) {
+        try {
+            int parsed = Integer.parseInt(value.startsWith("+") ? value.substring(1) : value);
+            if (parsed < min || parsed > max) {
+                throw new IllegalArgumentException("Invalid " + key + ": " + value);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + key + ": " + value);
+        }
+    }
+
+    private static WeekdayNum parseWeekdayNum(String item) {
+        Matcher matcher = BYDAY_ITEM.matcher(item);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid BYDAY: " + item);
+        }
+        int ordinal = matcher.group(1) != null ? parseInt("BYDAY", matcher.group(1), -53, 53) : 0;
+        if (matcher.group(1) != null && ordinal == 0) {
+            throw new IllegalArgumentException("Invalid BYDAY: " + item);
+        }
+        return new WeekdayNum(ordinal, toDayOfWeek(matcher.group(2)));
+    }
+
+    private static DayOfWeek toDayOfWeek(String code) {
+        switch (code) {
+            case "MO":
+                return DayOfWeek.MONDAY;
+            case "TU":
+                return DayOfWeek.TUESDAY;
+            case "WE":
+                return DayOfWeek.WEDNESDAY;
+            case "TH":
+                return DayOfWeek.THURSDAY;
+            case "FR":
+                return DayOfWeek.FRIDAY;
+            case "SA":
+                return DayOfWeek.SATURDAY;
+            default:
+                return DayOfWeek.SUNDAY;
+        }
+    }
+
+    // UNTIL date seule : inclusif jusqu'à la fin de la journée
+    private static LocalDateTime parseUntil(String value) {
+        String local = value.endsWith("Z") ? value.substring(0, value.length() - 1) : value;
+        try {
+            return local.contains("T")
+                    ? LocalDateTime.parse(local, DATE_TIME)
+                    : LocalDate.parse(local, DATE).atTime(LocalTime.MAX);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid UNTIL: " + value);
+        }
+    }
+
+    // EXDATE date seule : exclut toute occurrence de la journée
+    private static void parseExDates(String values, Set<LocalDateTime> dateTimes, Set<LocalDate> dates) {
+        for (String raw : values.split(",")) {
+            String value = raw.trim().toUpperCase();
+            if (value.isEmpty()) {
+                continue;
+            }
+            if (value.endsWith("Z")) {
+                value = value.substring(0, value.length() - 1);
+            }
+            try {
+                if (value.contains("T")) {
+                    dateTimes.add(LocalDateTime.parse(value, DATE_TIME));
+                } else {
+                    dates.add(LocalDate.parse(value, DATE));
+                }
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid EXDATE: " + raw.trim());
+            }
+        }
+    }
+
+    // ========================================
+    // EXPANSION
+    // ========================================
+
+    /**
+     * Occurrences de la règle démarrant à start (start inclus, c'est la première occurrence),
+     * limitées à celles qui ne sont pas avant from
+     */
+    @Override
+    public Iterator<LocalDateTime> occurrences(LocalDateTime start, LocalDateTime from) {
+        return new OccurrenceIterator(start, from);
+    }
+
+    private final class OccurrenceIterator implements Iterator<LocalDateTime> {
+
+        private final LocalDateTime start;
+        private final LocalDateTime from;
+        private final ArrayDeque<LocalDateTime> buffer = new ArrayDeque<>();
+        private long period;
+        private int produced;
+        private boolean done;
+
+        private OccurrenceIterator(LocalDateTime start, LocalDateTime from) {
+            this.start = start;
+            this.from = from;
+            // COUNT impose de compter depuis le départ ; sinon on saute les périodes entièrement passées
+            this.period = count == null ? firstPeriod(start, from) : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            int empty = 0;
+            while (buffer.isEmpty() && !done) {
+                if (fill()) {
+                    empty = 0;
+                } else if (++empty >= MAX_EMPTY_PERIODS) {
+                    done = true;
+                }
+            }
+            return !buffer.isEmpty();
+        }
+
+        @Override
+        public LocalDateTime next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return buffer.poll();
+        }
+
+        // Développe la période suivante ; false si elle ne contient aucune occurrence
+        private boolean fill() {
+            List<LocalDate> dates = expand(start, period++);
+            boolean any = false;
+            for (LocalDate date : dates) {
+                LocalDateTime occurrence = date.atTime(start.toLocalTime());
+                if (occurrence.isBefore(start)) {
+                    continue;
+                }
+                if (until != null && occurrence.isAfter(until)) {
+                    done = true;
+                    return true;
+                }
+                any = true;
+                produced++;
+                // Les dates exclues comptent dans COUNT (RFC 5545 : EXDATE s'applique après RRULE)
+                if (!occurrence.isBefore(from) && !exDateTimes.contains(occurrence) && !exDates.contains(date)) {
+                    buffer.add(occurrence);
+                }
+                if (count != null && produced >= count) {
+                    done = true;
+                    return true;
+                }
+            }
+            return any;
+        }
+    }
+
+    // Période qui contient 'from' (une de moins par sécurité), 0 si from précède start
+    private long firstPeriod(LocalDateTime start, LocalDateTime from) {
+        if (!from.isAfter(start)) {
+            return 0;
+        }
+        LocalDate origin = start.toLocalDate();
+        LocalDate target = from.toLocalDate();
+        long elapsed;
+        switch (frequency) {
+            case DAILY:
+                elapsed = ChronoUnit.DAYS.between(origin, target);
+                break;
+            case WEEKLY:
+                elapsed = ChronoUnit.WEEKS.between(weekOf(origin), weekOf(target));
+                break;
+            case MONTHLY:
+                elapsed = YearMonth.from(origin).until(YearMonth.from(target), ChronoUnit.MONTHS);
+                break;
+            default:
+                elapsed = target.getYear() - origin.getYear();
+        }
+        return Math.max(0, elapsed / interval - 1);
+    }
+
+    // Dates candidates (triées) de la période p, avant filtrage par start / UNTIL / COUNT
+    private List<LocalDate> expand(LocalDateTime start, long p) {
+        LocalDate origin = start.toLocalDate();
+        switch (frequency) {
+            case DAILY: {
+                LocalDate day = origin.plusDays(p * interval);
+                return matchesMonth(day) && matchesMonthDay(day) && matchesWeekday(day)
+                        ? List.of(day) : List.of();
+            }
+            case WEEKLY: {
+                LocalDate weekFirstDay = weekOf(origin).plusWeeks(p * interval);
+                List<LocalDate> days = new ArrayList<>();
+                if (byDay.isEmpty()) {
+                    days.add(weekFirstDay.plusDays(offsetInWeek(origin.getDayOfWeek())));
+                } else {
+                    for (WeekdayNum weekday : byDay) {
+                        days.add(weekFirstDay.plusDays(offsetInWeek(weekday.day())));
+                    }
+                }
+                days.removeIf(day -> !matchesMonth(day) || !matchesMonthDay(day));
+                return sortedDistinct(days);
+            }
+            case MONTHLY: {
+                YearMonth month = YearMonth.from(origin).plusMonths(p * interval);
+                if (!byMonth.isEmpty() && !byMonth.contains(month.getMonthValue())) {
+                    return List.of();
+                }
+                return sortedDistinct(monthDays(month, origin.getDayOfMonth()));
+            }
+            default: {
+                int year = Math.toIntExact(origin.getYear() + p * interval);
+                return sortedDistinct(yearDays(year, origin));
+            }
+        }
+    }
+
+    private List<LocalDate> yearDays(int year, LocalDate origin) {
+        List<LocalDate> days = new ArrayList<>();
+        if (!byMonth.isEmpty()) {
+            for (int month : byMonth) {
+                days.addAll(monthDays(YearMonth.of(year, month), origin.getDayOfMonth()));
+            }
+        } else if (!byDay.isEmpty()) {
+            // Ordinaux relatifs à l'année (20MO = 20e lundi de l'année)
+            for (WeekdayNum weekday : byDay) {
+                LocalDate first = LocalDate.of(year, 1, 1).with(TemporalAdjusters.firstInMonth(weekday.day()));
+                LocalDate last = LocalDate.of(year, 12, 31).with(TemporalAdjusters.lastInMonth(weekday.day()));
+                if (weekday.ordinal() == 0) {
+                    for (LocalDate day = first; !day.isAfter(last); day = day.plusWeeks(1)) {
+                        days.add(day);
+                    }
+                } else {
+                    LocalDate day = weekday.ordinal() > 0
+                            ? first.plusWeeks(weekday.ordinal() - 1L)
+                            : last.minusWeeks(-weekday.ordinal() - 1L);
+                    if (day.getYear() == year) {
+                        days.add(day);
+                    }
+                }
+            }
+            days.removeIf(day -> !matchesMonthDay(day));
+        } else if (!byMonthDay.isEmpty()) {
+            for (int month = 1; month <= 12; month++) {
+                days.addAll(monthDays(YearMonth.of(year, month), origin.getDayOfMonth()));
+            }
+        } else if (origin.getMonthValue() != 2 || origin.getDayOfMonth() != 29 || YearMonth.of(year, 2).isLeapYear()) {
+            // Le 29 février n'existe que les années bissextiles (RFC 5545 : date ignorée)
+            days.add(LocalDate.of(year, origin.getMonthValue(), origin.getDayOfMonth()));
+        }
+        return days;
+    }
+
+    // Jours d'un mois : BYMONTHDAY et/ou BYDAY (intersection si les deux), sinon le jour de départ
+    private List<LocalDate> monthDays(YearMonth month, int defaultDay) {
+        if (byMonthDay.isEmpty() && byDay.isEmpty()) {
+            return defaultDay <= month.lengthOfMonth() ? List.of(month.atDay(defaultDay)) : List.of();
+        }
+
+        List<LocalDate> days = new ArrayList<>();
+        if (!byDay.isEmpty()) {
+            for (WeekdayNum weekday : byDay) {
+                LocalDate first = month.atDay(1).with(TemporalAdjusters.firstInMonth(weekday.day()));
+                LocalDate last = month.atEndOfMonth().with(TemporalAdjusters.lastInMonth(weekday.day()));
+                if (weekday.ordinal() == 0) {
+                    for (LocalDate day = first; !day.isAfter(last); day = day.plusWeeks(1)) {
+                        days.add(day);
+                    }
+                } else {
+                    LocalDate day = weekday.ordinal() > 0
+                            ? first.plusWeeks(weekday.ordinal() - 1L)
+                            : last.minusWeeks(-weekday.ordinal() - 1L);
+                    if (YearMonth.from(day).equals(month)) {
+                        days.add(day);
+                    }
+                }
+            }
+            days.removeIf(day -> !matchesMonthDay(day));
+        } else {
+            for (int monthDay : byMonthDay) {
+                int day = monthDay > 0 ? monthDay : month.lengthOfMonth() + monthDay + 1;
+                if (day >= 1 && day <= month.lengthOfMonth()) {
+                    days.add(month.atDay(day));
+                }
+            }
+        }
+        return days;
+    }
+
+    private boolean matchesMonth(LocalDate day) {
+        return byMonth.isEmpty() || byMonth.contains(day.getMonthValue());
+    }
+
+    private boolean matchesMonthDay(LocalDate day) {
+        if (byMonthDay.isEmpty()) {
+            return true;
+        }
+        int fromEnd = day.getDayOfMonth() - day.lengthOfMonth() - 1;
+        return byMonthDay.contains(day.getDayOfMonth()) || byMonthDay.contains(fromEnd);
+    }
+
+    private boolean matchesWeekday(LocalDate day) {
+        if (byDay.isEmpty()) {
+            return true;
+        }
+        for (WeekdayNum weekday : byDay) {
+            if (weekday.day() == day.getDayOfWeek()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Premier jour (WKST) de la semaine contenant 'day'
+    private LocalDate weekOf(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(weekStart));
+    }
+
+    private int offsetInWeek(DayOfWeek day) {
+        return (day.getValue() - weekStart.getValue() + 7) % 7;
+    }
+
+    private static List<LocalDate> sortedDistinct(List<LocalDate> days) {
+        if (days.size() <= 1) {
+            return days;
+        }
+        List<LocalDate> sorted = new ArrayList<>(new TreeSet<>(days));
+        return Collections.unmodifiableList(sorted);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.AppNotiDo.util;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+
+/**
+ * Règle de récurrence compilée, capable d'énumérer paresseusement ses occurrences.
+ * Implémentée par RecurrenceRule (champs recurrenceType / recurrenceDays / recurrenceDayOfMonth)
+ * et par RRule (règle RFC 5545).
+ */
+public interface Recurrence {
+
+    /**
+     * Occurrences postérieures à start, dans l'ordre chronologique, à partir de from.
+     * L'itérateur est paresseux : seules les occurrences consommées sont calculées.
+     */
+    Iterator<LocalDateTime> occurrences(LocalDateTime start, LocalDateTime from);
+}
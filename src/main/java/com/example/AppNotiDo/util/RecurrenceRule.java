@@ -0,0 +1,175 @@
+package com.example.AppNotiDo.util;
+
+import com.example.AppNotiDo.domain.RecurrenceType;
+import com.example.AppNotiDo.domain.Task;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Règle de récurrence compilée d'un template : type, intervalle, jours de la semaine en masque de bits
+ * et jour du mois. La prochaine occurrence se calcule en temps constant (nombre d'intervalles écoulés
+ * par arithmétique, puis au plus un pas de correction), quel que soit l'ancienneté de la date de base.
+ */
+public final class RecurrenceRule implements Recurrence {
+
+    private static final int ALL_DAYS = 0x7F;
+
+    // Masques déjà parsés, par valeur de recurrenceDays ("MONDAY,WEDNESDAY,FRIDAY")
+    private static final Map<String, Integer> DAY_MASKS = new ConcurrentHashMap<>();
+    private static final int MAX_CACHED_MASKS = 1024;
+
+    private final RecurrenceType type;
+    private final int interval;
+    // Bit i = DayOfWeek.of(i + 1) ; 0 = même jour que la date de base
+    private final int dayMask;
+    private final Integer dayOfMonth;
+
+    private RecurrenceRule(RecurrenceType type, int interval, int dayMask, Integer dayOfMonth) {
+        this.type = type;
+        this.interval = interval;
+        this.dayMask = dayMask;
+        this.dayOfMonth = dayOfMonth;
+    }
+
+    /**
+     * Compile la règle d'une tâche, ou null si elle n'est pas récurrente
+     */
+    public static RecurrenceRule of(Task task) {
+        return of(task.getRecurrenceType(), task.getRecurrenceInterval(),
+                task.getRecurrenceDays(), task.getRecurrenceDayOfMonth());
+    }
+
+    public static RecurrenceRule of(RecurrenceType type, Integer interval, String days, Integer dayOfMonth) {
+        if (type == null || type == RecurrenceType.NONE) {
+            return null;
+        }
+        int step = interval != null && interval > 0 ? interval : 1;
+        int mask = type == RecurrenceType.WEEKLY ? dayMask(days) : 0;
+        return new RecurrenceRule(type, step, mask, dayOfMonth);
+    }
+
+    /**
+     * Première occurrence suivant baseDate qui n'est pas dans le passé par rapport à now
+     */
+    public LocalDateTime next(LocalDateTime baseDate, LocalDateTime now) {
+        return occurrences(baseDate, now).next();
+    }
+
+    /**
+     * Occurrences successives : la première est celle de next(start, from), les suivantes
+     * s'obtiennent par simple incrément (intervalle ou jour suivant du masque).
+     */
+    @Override
+    public Iterator<LocalDateTime> occurrences(LocalDateTime start, LocalDateTime from) {
+        if (type == RecurrenceType.WEEKLY && dayMask != 0) {
+            LocalDateTime first = nextWeekday(start, from);
+            return new Iterator<>() {
+                private LocalDateTime next = first;
+
+                @Override
+                public boolean hasNext() {
+                    return true;
+                }
+
+                @Override
+                public LocalDateTime next() {
+                    LocalDateTime current = next;
+                    next = nextMaskedDay(current.plusDays(1));
+                    return current;
+                }
+            };
+        }
+
+        long first = firstIndex(start, from);
+        return new Iterator<>() {
+            private long k = first;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public LocalDateTime next() {
+                return at(start, k++);
+            }
+        };
+    }
+
+    // Plus petit k >= 1 tel que l'occurrence k ne soit pas avant now
+    private long firstIndex(LocalDateTime baseDate, LocalDateTime now) {
+        long elapsed = type == RecurrenceType.MONTHLY
+                ? YearMonth.from(baseDate).until(YearMonth.from(now), ChronoUnit.MONTHS)
+                : unit().between(baseDate, now);
+        long k = Math.max(1, elapsed / interval);
+        // Au plus un pas : between arrondit à l'unité complète inférieure
+        while (at(baseDate, k).isBefore(now)) {
+            k++;
+        }
+        return k;
+    }
+
+    // Occurrence k : baseDate + k * interval unités, ou pour le mensuel le mois de base + k * interval
+    // au jour demandé borné à la longueur du mois (31 -> 28/29 en février)
+    private LocalDateTime at(LocalDateTime baseDate, long k) {
+        if (type == RecurrenceType.MONTHLY) {
+            int day = dayOfMonth != null ? dayOfMonth : baseDate.getDayOfMonth();
+            YearMonth month = YearMonth.from(baseDate).plusMonths(k * interval);
+            return month.atDay(Math.min(day, month.lengthOfMonth())).atTime(baseDate.toLocalTime());
+        }
+        return baseDate.plus(k * interval, unit());
+    }
+
+    private ChronoUnit unit() {
+        switch (type) {
+            case DAILY:
+                return ChronoUnit.DAYS;
+            case WEEKLY:
+                return ChronoUnit.WEEKS;
+            default:
+                return ChronoUnit.YEARS;
+        }
+    }
+
+    // Premier jour du masque strictement après baseDate et pas avant now (l'intervalle n'intervient pas)
+    private LocalDateTime nextWeekday(LocalDateTime baseDate, LocalDateTime now) {
+        LocalDateTime from = baseDate.plusDays(Math.max(1, ChronoUnit.DAYS.between(baseDate, now)));
+        if (from.isBefore(now)) {
+            from = from.plusDays(1);
+        }
+        return nextMaskedDay(from);
+    }
+
+    // Premier jour du masque à partir de 'from' inclus
+    private LocalDateTime nextMaskedDay(LocalDateTime from) {
+        // Rotation du masque pour que le bit 0 soit le jour de 'from' : l'écart est le premier bit à 1
+        int shift = from.getDayOfWeek().getValue() - 1;
+        int rotated = ((dayMask >>> shift) | (dayMask << (7 - shift))) & ALL_DAYS;
+        return from.plusDays(Integer.numberOfTrailingZeros(rotated));
+    }
+
+    private static int dayMask(String days) {
+        if (days == null || days.isBlank()) {
+            return 0;
+        }
+        Integer cached = DAY_MASKS.get(days);
+        if (cached != null) {
+            return cached;
+        }
+
+        int mask = 0;
+        for (String day : days.split(",")) {
+            mask |= 1 << (DayOfWeek.valueOf(day.trim()).getValue() - 1);
+        }
+        if (DAY_MASKS.size() < MAX_CACHED_MASKS) {
+            DAY_MASKS.put(days, mask);
+        }
+        return mask;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.AppNotiDo.util;
 
 import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.security.CurrentUserCache;
+import com.example.AppNotiDo.security.JwtUserPrincipal;
 import com.example.AppNotiDo.service.UserService;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -10,17 +12,31 @@ import org.springframework.stereotype.Component;
 public class SecurityUtils {
 
     private final UserService userService;
+    private final CurrentUserCache currentUserCache;
 
-    public SecurityUtils(UserService userService) {
+    public SecurityUtils(UserService userService, CurrentUserCache currentUserCache) {
         this.userService = userService;
+        this.currentUserCache = currentUserCache;
     }
 
     /**
-     * Récupère l'utilisateur actuellement connecté
+     * Récupère l'utilisateur actuellement connecté (mémorisé pour la requête et mis en cache quelques secondes)
      */
     public User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
-        return userService.getUserByUsername(username);
+        return currentUserCache.get(username, userService::getUserByUsername);
+    }
+
+    /**
+     * Récupère l'id de l'utilisateur connecté depuis le token, sans lecture en base
+     */
+    public Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof JwtUserPrincipal principal) {
+            return principal.getId();
+        }
+        // Ancien token sans id
+        return getCurrentUser().getId();
     }
 }
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.example.AppNotiDo.repository;
+
+import com.example.AppNotiDo.domain.NotificationOutbox;
+import com.example.AppNotiDo.domain.NotificationType;
+import com.example.AppNotiDo.domain.Task;
+import com.example.AppNotiDo.domain.TaskStatus;
+import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.scheduler.NotificationOutboxDispatcher;
+import com.example.AppNotiDo.service.NotificationService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie que les insertions en masse partent en batchs JDBC (ids pooled + hibernate.jdbc.batch_size).
+ * Avec IDENTITY, chaque ligne préparerait et exécuterait son propre INSERT.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+@ActiveProfiles("test")
+class JdbcBatchingTest {
+
+    private static final int ROWS = 120;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationOutboxDispatcher outboxDispatcher;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        user = new User();
+        user.setUsername("batcher");
+        user.setEmail("batcher@example.com");
+        user.setPassword("secret");
+        userRepository.saveAndFlush(user);
+    }
+
+    @Test
+    void saveAllTasks_InsertsInBatches() {
+        statistics.clear();
+
+        taskRepository.saveAll(tasks());
+        entityManager.flush();
+
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+        assertBatched();
+    }
+
+    @Test
+    void createDueNotifications_InsertsInBatches() {
+        List<Task> tasks = taskRepository.saveAll(tasks());
+        entityManager.flush();
+        Map<Long, EnumSet<NotificationType>> candidates = new HashMap<>();
+        tasks.forEach(task -> candidates.put(task.getId(), EnumSet.of(NotificationType.REMINDER)));
+        statistics.clear();
+
+        notificationService.createDueNotifications(tasks, candidates);
+        entityManager.flush();
+
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+        assertBatched();
+    }
+
+    @Test
+    void dispatchOutbox_InsertsInBatches() {
+        LocalDateTime createdAt = LocalDateTime.now().minusMinutes(1).withNano(0);
+        List<NotificationOutbox> events = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            NotificationOutbox event = new NotificationOutbox(user.getId(), null, "Évènement " + i, null,
+                    NotificationType.TASK_UPDATED);
+            event.setCreatedAt(createdAt);
+            events.add(event);
+        }
+        outboxRepository.saveAllAndFlush(events);
+        statistics.clear();
+
+        assertEquals(ROWS, outboxDispatcher.dispatch());
+        entityManager.flush();
+
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+        assertBatched();
+
+        // La date d'écriture dans l'outbox est conservée
+        entityManager.clear();
+        assertTrue(notificationRepository.findByUserIdOrderByCreatedAtDesc(user.getId()).stream()
+                .allMatch(n -> createdAt.equals(n.getCreatedAt())));
+        assertEquals((long) ROWS, notificationRepository.countByUserIdAndIsReadFalse(user.getId()));
+    }
+
+    // Un INSERT préparé par ligne sans batching (>= ROWS), une poignée avec
+    private void assertBatched() {
+        long prepared = statistics.getPrepareStatementCount();
+        assertTrue(prepared < ROWS / 10, "Expected batched inserts, got " + prepared + " prepared statements");
+    }
+
+    private List<Task> tasks() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Task task = new Task();
+            task.setTitle("Tâche " + i);
+            task.setStatus(TaskStatus.TODO);
+            task.setDueDate(LocalDateTime.now().plusMinutes(10));
+            task.setUser(user);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+}
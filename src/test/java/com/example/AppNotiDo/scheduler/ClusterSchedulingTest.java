@@ -0,0 +1,168 @@
+package com.example.AppNotiDo.scheduler;
+
+import com.example.AppNotiDo.AppNotiDoApplication;
+import com.example.AppNotiDo.domain.RecurrenceType;
+import com.example.AppNotiDo.domain.Task;
+import com.example.AppNotiDo.domain.TaskStatus;
+import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.repository.NotificationRepository;
+import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Deux instances de l'application sur la même base H2 : chaque échéance n'est notifiée que par
+ * l'instance qui possède son utilisateur, et une instance reprend le travail d'une instance arrêtée.
+ */
+class ClusterSchedulingTest {
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private final String database = "cluster-" + UUID.randomUUID();
+
+    @AfterEach
+    void tearDown() {
+        Collections.reverse(nodes);
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    // Le premier nœud crée le schéma ; les ticks planifiés sont espacés pour que le test les déclenche lui-même
+    private ConfigurableApplicationContext startNode(String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.jpa.hibernate.ddl-auto=" + (nodes.isEmpty() ? "create" : "none"),
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--notification.scheduler.interval-ms=3600000"));
+        args.addAll(List.of(properties));
+
+        ConfigurableApplicationContext node = new SpringApplicationBuilder(AppNotiDoApplication.class)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+        nodes.add(node);
+        return node;
+    }
+
+    // Tâche écrite directement en base (comme par une autre instance) avec son rappel dû maintenant
+    private Task taskDueSoon(ConfigurableApplicationContext node, String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret");
+        node.getBean(UserRepository.class).save(user);
+
+        Task task = new Task();
+        task.setTitle("Deadline " + username);
+        task.setUser(user);
+        task.setStatus(TaskStatus.TODO);
+        task.setDueDate(LocalDateTime.now().plusMinutes(10));
+        task.setReminderMinutes(15);
+        return node.getBean(TaskRepository.class).save(task);
+    }
+
+    // Template récurrent dont la prochaine occurrence tombe dans l'horizon du job
+    private Task templateDueSoon(ConfigurableApplicationContext node, String username) {
+        Task template = taskDueSoon(node, username);
+        template.setRecurrenceType(RecurrenceType.DAILY);
+        template.setRecurrenceInterval(1);
+        template.setIsRecurringTemplate(true);
+        template.setNextOccurrence(template.getDueDate().plusHours(2));
+        return node.getBean(TaskRepository.class).save(template);
+    }
+
+    private static long notifications(ConfigurableApplicationContext node, Task task) {
+        return node.getBean(NotificationRepository.class).countByTaskIdAndIsReadFalse(task.getId());
+    }
+
+    private static void tick(ConfigurableApplicationContext node) {
+        node.getBean(NotificationScheduler.class).checkTasksForNotifications();
+    }
+
+    private static void materialize(ConfigurableApplicationContext node) {
+        node.getBean(RecurrenceMaterializer.class).materializeDueOccurrences();
+    }
+
+    private static boolean hasRun(ConfigurableApplicationContext node) {
+        return !node.getBean(RecurrenceMaterializer.class).getStats().isEmpty();
+    }
+
+    @Test
+    void shardMode_EachNodeNotifiesOnlyItsOwnUsers() {
+        ConfigurableApplicationContext node0 = startNode("--scheduler.coordination=shard",
+                "--scheduler.shard.index=0", "--scheduler.shard.count=2");
+        ConfigurableApplicationContext node1 = startNode("--scheduler.coordination=shard",
+                "--scheduler.shard.index=1", "--scheduler.shard.count=2");
+
+        Task first = taskDueSoon(node0, "alice");
+        Task second = taskDueSoon(node0, "bob");
+        Task even = first.getUser().getId() % 2 == 0 ? first : second;
+        Task odd = even == first ? second : first;
+
+        tick(node0);
+        assertEquals(1, notifications(node0, even));
+        assertEquals(0, notifications(node0, odd));
+
+        tick(node1);
+        tick(node0);
+        tick(node1);
+        assertEquals(1, notifications(node1, even));
+        assertEquals(1, notifications(node1, odd));
+        assertEquals(new UserShard(1, 2), node1.getBean(DeadlineWheel.class).getShard());
+    }
+
+    @Test
+    void leaseMode_OnlyLeaseHolderNotifiesAndAnotherNodeTakesOver() {
+        ConfigurableApplicationContext nodeA = startNode("--scheduler.coordination=lease", "--scheduler.instance-id=node-a");
+        ConfigurableApplicationContext nodeB = startNode("--scheduler.coordination=lease", "--scheduler.instance-id=node-b");
+
+        Task first = taskDueSoon(nodeA, "carol");
+        tick(nodeB);
+        assertEquals(0, notifications(nodeB, first));
+        assertEquals(UserShard.NONE, nodeB.getBean(DeadlineWheel.class).getShard());
+
+        tick(nodeA);
+        assertEquals(1, notifications(nodeA, first));
+
+        // Arrêt du détenteur : le bail est libéré et l'autre nœud reprend tous les utilisateurs
+        nodeA.close();
+        Task second = taskDueSoon(nodeB, "dave");
+        tick(nodeB);
+
+        assertEquals(UserShard.ALL, nodeB.getBean(DeadlineWheel.class).getShard());
+        assertEquals(1, notifications(nodeB, first));
+        assertEquals(1, notifications(nodeB, second));
+    }
+
+    @Test
+    void leaseMode_MaterializerStaysOnOneNodeUntilItStops() {
+        ConfigurableApplicationContext nodeA = startNode("--scheduler.coordination=lease", "--scheduler.instance-id=node-a");
+        ConfigurableApplicationContext nodeB = startNode("--scheduler.coordination=lease", "--scheduler.instance-id=node-b");
+        Task template = templateDueSoon(nodeA, "erin");
+
+        // Plusieurs heures simulées : le bail reste au premier nœud qui l'a pris, l'autre ne parcourt rien
+        for (int i = 0; i < 3; i++) {
+            materialize(nodeA);
+            materialize(nodeB);
+        }
+        assertNotEquals(hasRun(nodeA), hasRun(nodeB));
+        ConfigurableApplicationContext holder = hasRun(nodeA) ? nodeA : nodeB;
+        ConfigurableApplicationContext standby = holder == nodeA ? nodeB : nodeA;
+        assertEquals(1, standby.getBean(TaskRepository.class).findOccurrencesOf(List.of(template.getId()),
+                template.getDueDate(), template.getDueDate().plusDays(2)).size());
+
+        // Arrêt du détenteur : le bail est rendu et l'autre nœud reprend à son exécution suivante
+        holder.close();
+        materialize(standby);
+        assertTrue(hasRun(standby));
+    }
+}
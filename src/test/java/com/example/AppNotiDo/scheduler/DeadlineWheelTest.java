@@ -0,0 +1,121 @@
+package com.example.AppNotiDo.scheduler;
+
+import com.example.AppNotiDo.domain.Task;
+import com.example.AppNotiDo.domain.TaskStatus;
+import com.example.AppNotiDo.dto.TaskDeadlineDTO;
+import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.scheduler.DeadlineWheel.Kind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeadlineWheelTest {
+
+    private DeadlineWheel wheel;
+    private LocalDateTime due;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new DeadlineWheel(Mockito.mock(TaskRepository.class));
+        wheel.load();
+        due = LocalDateTime.now().plusMinutes(30);
+    }
+
+    private Task task(Long id, LocalDateTime dueDate) {
+        Task task = new Task();
+        task.setId(id);
+        task.setDueDate(dueDate);
+        task.setStatus(TaskStatus.TODO);
+        task.setReminderMinutes(15);
+        return task;
+    }
+
+    @Test
+    void pollDue_ReturnsOnlyPassedInstants() {
+        wheel.schedule(task(1L, due));
+        wheel.schedule(task(2L, due.plusHours(2)));
+
+        assertTrue(wheel.pollDue(due.minusMinutes(16)).isEmpty());
+
+        Map<Long, EnumSet<Kind>> reminders = wheel.pollDue(due.minusMinutes(15));
+        assertEquals(Map.of(1L, EnumSet.of(Kind.REMINDER)), reminders);
+
+        Map<Long, EnumSet<Kind>> later = wheel.pollDue(due.plusMinutes(5));
+        assertEquals(Map.of(1L, EnumSet.of(Kind.DEADLINE, Kind.OVERDUE)), later);
+    }
+
+    @Test
+    void schedule_ReplacesPreviousInstants() {
+        wheel.schedule(task(1L, due));
+        wheel.schedule(task(1L, due.plusMinutes(20)));
+
+        assertTrue(wheel.pollDue(due.plusMinutes(1)).isEmpty());
+        assertEquals(Map.of(1L, EnumSet.of(Kind.REMINDER, Kind.DEADLINE)), wheel.pollDue(due.plusMinutes(20)));
+    }
+
+    @Test
+    void schedule_IgnoresInstantsBeyondHorizon() {
+        wheel.schedule(task(1L, due.plusDays(1)));
+
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.pollDue(due.plusDays(2)).isEmpty());
+    }
+
+    @Test
+    void scheduleDoneTaskOrCancel_RemovesTask() {
+        wheel.schedule(task(1L, due));
+        Task done = task(2L, due);
+        wheel.schedule(done);
+        done.setStatus(TaskStatus.DONE);
+        wheel.schedule(done);
+        wheel.cancel(1L);
+
+        assertTrue(wheel.pollDue(due.plusHours(1)).isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rearm_ReschedulesSingleKind() {
+        wheel.schedule(task(1L, due));
+        wheel.pollDue(due.plusMinutes(5));
+
+        wheel.rearm(1L, Kind.OVERDUE, due.plusMinutes(65));
+
+        assertTrue(wheel.pollDue(due.plusMinutes(64)).isEmpty());
+        assertEquals(Map.of(1L, EnumSet.of(Kind.OVERDUE)), wheel.pollDue(due.plusMinutes(65)));
+    }
+
+    @Test
+    void assign_LoadsOverdueBacklogOnlyWithinLookBack() {
+        TaskRepository repository = Mockito.mock(TaskRepository.class);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime backlogFrom = now.minusHours(DeadlineWheel.OVERDUE_LOOKBACK_HOURS);
+        // Ligne hors fenêtre renvoyée quand même : la file la filtre aussi
+        when(repository.findDeadlinesInWindow(any(), any(), any(), any(), any(), any(), any(), any(),
+                anyInt(), anyInt(), any()))
+                .thenReturn(List.of(new TaskDeadlineDTO(1L, now.minusDays(3), 15, true),
+                        new TaskDeadlineDTO(2L, now.minusHours(2), 15, true)));
+
+        DeadlineWheel loaded = new DeadlineWheel(repository);
+        loaded.assign(UserShard.ALL, now);
+
+        verify(repository).findDeadlinesInWindow(eq(TaskStatus.DONE), eq(now.minusMinutes(1)),
+                eq(now.plusMinutes(DeadlineWheel.HORIZON_MINUTES)), eq(backlogFrom),
+                eq(backlogFrom.minusMinutes(DeadlineWheel.OVERDUE_DELAY_MINUTES)), any(),
+                eq(backlogFrom.minusMinutes(DeadlineWheel.OVERDUE_DELAY_MINUTES)), eq(0L), eq(0), eq(1), any());
+        assertEquals(1, loaded.size());
+        assertEquals(Map.of(2L, EnumSet.of(Kind.OVERDUE)), loaded.pollDue(now));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.AppNotiDo.scheduler;
+
+import com.example.AppNotiDo.domain.Task;
+import com.example.AppNotiDo.dto.RecurringTemplateRefDTO;
+import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.service.RecurrenceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecurrenceMaterializerTest {
+
+    private TaskRepository taskRepository;
+    private RecurrenceService recurrenceService;
+    private SchedulerCoordinator coordinator;
+    private RecurrenceMaterializer materializer;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository = Mockito.mock(TaskRepository.class);
+        recurrenceService = Mockito.mock(RecurrenceService.class);
+        coordinator = Mockito.mock(SchedulerCoordinator.class);
+        materializer = new RecurrenceMaterializer(taskRepository, recurrenceService, coordinator, 3, 10800);
+    }
+
+    @AfterEach
+    void tearDown() {
+        materializer.shutdown();
+    }
+
+    @Test
+    void run_ProcessesEveryTemplateAndIsolatesFailures() {
+        when(taskRepository.findDueTemplateRefs(any(), anyInt(), anyInt())).thenReturn(List.of(
+                new RecurringTemplateRefDTO(1L, 10L),
+                new RecurringTemplateRefDTO(2L, 10L),
+                new RecurringTemplateRefDTO(3L, 11L),
+                new RecurringTemplateRefDTO(4L, 12L),
+                new RecurringTemplateRefDTO(5L, 13L)));
+
+        Set<String> workers = ConcurrentHashMap.newKeySet();
+        when(recurrenceService.materializeNextOccurrence(anyLong(), any())).thenAnswer(invocation -> {
+            workers.add(Thread.currentThread().getName());
+            Long id = invocation.getArgument(0);
+            if (id == 2L) {
+                throw new IllegalStateException("boom");
+            }
+            return id == 5L ? null : new Task();
+        });
+
+        Map<String, Object> stats = materializer.run(LocalDateTime.now());
+
+        assertEquals(5, stats.get("templates"));
+        assertEquals(3, stats.get("partitions"));
+        assertEquals(3L, stats.get("created"));
+        assertEquals(1L, stats.get("skipped"));
+        assertEquals(1L, stats.get("failed"));
+        assertSame(stats, materializer.getStats());
+        assertTrue(workers.stream().allMatch(name -> name.startsWith("recurrence-")));
+    }
+
+    @Test
+    void materializeDueOccurrences_RunsOnlyForAssignedUsers() {
+        when(taskRepository.findDueTemplateRefs(any(), anyInt(), anyInt())).thenReturn(List.of());
+
+        when(coordinator.acquire(anyString(), any())).thenReturn(UserShard.NONE);
+        materializer.materializeDueOccurrences();
+        verify(taskRepository, never()).findDueTemplateRefs(any(), anyInt(), anyInt());
+
+        when(coordinator.acquire(anyString(), any())).thenReturn(new UserShard(1, 3));
+        materializer.materializeDueOccurrences();
+        verify(taskRepository).findDueTemplateRefs(any(), eq(1), eq(3));
+
+        // Le bail est gardé entre deux exécutions et rendu à l'arrêt
+        verify(coordinator, never()).release(anyString());
+        materializer.shutdown();
+        verify(coordinator).release("recurrence-materializer");
+    }
+}
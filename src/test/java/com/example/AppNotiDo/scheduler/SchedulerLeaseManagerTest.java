@@ -0,0 +1,55 @@
+package com.example.AppNotiDo.scheduler;
+
+import com.example.AppNotiDo.domain.SchedulerLease;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Deux instances partageant la même base (baux validés immédiatement, donc pas de test transactionnel)
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SchedulerLeaseManagerTest {
+
+    private static final String LEASE = "lease-test";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM " + SchedulerLease.TABLE + " WHERE " + SchedulerLease.NAME_COLUMN + " = ?", LEASE);
+    }
+
+    @Test
+    void lease_IsExclusiveUntilReleasedOrExpired() {
+        SchedulerLeaseManager first = new SchedulerLeaseManager(jdbcTemplate, transactionManager, "node-1");
+        SchedulerLeaseManager second = new SchedulerLeaseManager(jdbcTemplate, transactionManager, "node-2");
+
+        assertTrue(first.tryAcquire(LEASE, Duration.ofMinutes(5)));
+        assertFalse(second.tryAcquire(LEASE, Duration.ofMinutes(5)));
+        // Le détenteur peut prolonger son bail
+        assertTrue(first.tryAcquire(LEASE, Duration.ofMinutes(5)));
+
+        // Seul le détenteur peut libérer
+        second.release(LEASE);
+        assertFalse(second.tryAcquire(LEASE, Duration.ofMinutes(5)));
+        first.release(LEASE);
+        assertTrue(second.tryAcquire(LEASE, Duration.ZERO));
+
+        // Bail expiré (instance arrêtée sans libérer) : repris par une autre instance
+        assertTrue(first.tryAcquire(LEASE, Duration.ofMinutes(5)));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.AppNotiDo.security;
+
+import com.example.AppNotiDo.domain.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CurrentUserCacheTest {
+
+    private CurrentUserCache cache;
+    private AtomicInteger loads;
+    private Function<String, User> loader;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CurrentUserCache(30, 100);
+        loads = new AtomicInteger();
+        loader = username -> {
+            loads.incrementAndGet();
+            User user = new User();
+            user.setId(1L);
+            user.setUsername(username);
+            return user;
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void get_LoadsOncePerTtlAndRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        User first = cache.get("alice", loader);
+        assertSame(first, cache.get("alice", loader));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertSame(first, cache.get("alice", loader));
+
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.getStats().get("requestHits"));
+        assertEquals(1L, cache.getStats().get("cacheHits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void invalidate_ForcesReload() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        User first = cache.get("alice", loader);
+
+        cache.invalidate(1L);
+
+        assertNotSame(first, cache.get("alice", loader));
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.AppNotiDo.service;
+
+import com.example.AppNotiDo.domain.GlobalRole;
+import com.example.AppNotiDo.domain.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "aK9mP2vL8xR4nW7jQ5sF3hD6tY1cE0bG9uN2zX8vM4wH7kJ5pL3qA6rT1oI9eU8y";
+
+    private User user() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("alice");
+        user.setGlobalRole(GlobalRole.USER);
+        return user;
+    }
+
+    @Test
+    void parseClaims_VerifiesOncePerToken() {
+        JwtService jwtService = new JwtService(SECRET, 60000, 10);
+        String token = jwtService.generateToken(user());
+
+        Claims first = jwtService.parseClaims(token);
+        assertSame(first, jwtService.parseClaims(token));
+        assertEquals("alice", jwtService.extractUsername(token));
+        assertEquals(7L, jwtService.toPrincipal(first).getId());
+    }
+
+    @Test
+    void parseClaims_RejectsTamperedAndExpiredTokens() {
+        JwtService jwtService = new JwtService(SECRET, 60000, 10);
+        String token = jwtService.generateToken(user());
+        jwtService.parseClaims(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertThrows(JwtException.class, () -> jwtService.parseClaims(tampered));
+
+        JwtService expiring = new JwtService(SECRET, -1000, 10);
+        String expired = expiring.generateToken(user());
+        assertThrows(ExpiredJwtException.class, () -> expiring.parseClaims(expired));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.AppNotiDo.service;
+
+import com.example.AppNotiDo.domain.MessageType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compactage ensembliste des messages, sur plus d'un lot de destinataires (RECIPIENT_BATCH_SIZE = 500)
+ */
+@SpringBootTest(properties = "message.retention.max-per-user=2")
+@Transactional
+@ActiveProfiles("test")
+class MessageRetentionServiceTest {
+
+    private static final int LIMIT = 2;
+    private static final int OVER_LIMIT_RECIPIENTS = 520;
+    private static final int MESSAGES_OVER_LIMIT = 3;
+
+    // Ids hors de la plage du générateur des messages
+    private static final long FIRST_MESSAGE_ID = 10_000_000L;
+
+    @Autowired
+    private MessageRetentionService retentionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long nextMessageId = FIRST_MESSAGE_ID;
+    private final List<Object[]> rows = new ArrayList<>();
+
+    @Test
+    void compact_RemovesOnlyTheOldestMessagesBeyondTheLimit() {
+        LocalDateTime base = LocalDateTime.now().minusDays(10).withNano(0);
+        List<Long> recipients = recipients(OVER_LIMIT_RECIPIENTS + 2);
+
+        // Ids des messages à conserver par destinataire (les LIMIT plus récents)
+        Map<Long, List<Long>> expected = new HashMap<>();
+        for (int u = 0; u < OVER_LIMIT_RECIPIENTS; u++) {
+            Long recipient = recipients.get(u);
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < MESSAGES_OVER_LIMIT; i++) {
+                ids.add(message(recipient, base.plusHours(i), false));
+            }
+            expected.put(recipient, ids.subList(MESSAGES_OVER_LIMIT - LIMIT, MESSAGES_OVER_LIMIT));
+        }
+
+        // À la limite ou en dessous : rien n'est supprimé
+        Long atLimit = recipients.get(OVER_LIMIT_RECIPIENTS);
+        expected.put(atLimit, List.of(message(atLimit, base, true), message(atLimit, base.plusHours(1), false)));
+        Long belowLimit = recipients.get(OVER_LIMIT_RECIPIENTS + 1);
+        expected.put(belowLimit, List.of(message(belowLimit, base, true)));
+
+        // Les lus partent avant les non lus, même plus récents
+        message(recipients.get(0), base.plusDays(1), true);
+        insertRows();
+
+        long before = countMessages();
+        MessageRetentionService.CompactionReport report = retentionService.compact();
+        long after = countMessages();
+
+        assertEquals(OVER_LIMIT_RECIPIENTS, report.recipients());
+        assertEquals(before - after, report.rowsReclaimed());
+        assertEquals((long) OVER_LIMIT_RECIPIENTS * (MESSAGES_OVER_LIMIT - LIMIT) + 1, report.rowsReclaimed());
+
+        expected.forEach((recipientId, ids) -> assertEquals(ids.stream().sorted().toList(),
+                jdbcTemplate.queryForList("SELECT id FROM messages WHERE recipient_id = ? ORDER BY id",
+                        Long.class, recipientId), "recipient " + recipientId));
+
+        // Deuxième passage : plus rien à récupérer
+        assertEquals(0, retentionService.compact().rowsReclaimed());
+    }
+
+    // Destinataires insérés en un batch JDBC
+    private List<Long> recipients(int count) {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(new Object[]{"recipient" + i, "recipient" + i + "@example.com"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, email, password, role, global_role, theme) " +
+                "VALUES (?, ?, 'secret', 'ROLE_USER', 'USER', 'light')", users);
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE username LIKE 'recipient%' ORDER BY id",
+                Long.class);
+    }
+
+    private long message(Long recipientId, LocalDateTime createdAt, boolean read) {
+        long id = nextMessageId++;
+        rows.add(new Object[]{id, recipientId, MessageType.SYSTEM_MESSAGE.name(), "Message " + id, read,
+                Timestamp.valueOf(createdAt)});
+        return id;
+    }
+
+    private void insertRows() {
+        jdbcTemplate.batchUpdate("INSERT INTO messages (id, recipient_id, type, title, is_read, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private long countMessages() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM messages", Long.class);
+    }
+}
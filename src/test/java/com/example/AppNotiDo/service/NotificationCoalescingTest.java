@@ -0,0 +1,153 @@
+package com.example.AppNotiDo.service;
+
+import com.example.AppNotiDo.domain.GlobalRole;
+import com.example.AppNotiDo.domain.Notification;
+import com.example.AppNotiDo.domain.NotificationOutbox;
+import com.example.AppNotiDo.domain.NotificationType;
+import com.example.AppNotiDo.domain.Task;
+import com.example.AppNotiDo.domain.TaskPriority;
+import com.example.AppNotiDo.domain.TaskStatus;
+import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.repository.NotificationOutboxRepository;
+import com.example.AppNotiDo.repository.NotificationRepository;
+import com.example.AppNotiDo.repository.UserRepository;
+import com.example.AppNotiDo.scheduler.NotificationOutboxDispatcher;
+import com.example.AppNotiDo.security.CurrentUserCache;
+import com.example.AppNotiDo.security.JwtUserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fusion des modifications d'une tâche pendant la fenêtre (notification.coalescing-window-seconds)
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+class NotificationCoalescingTest {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationOutboxDispatcher dispatcher;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CurrentUserCache currentUserCache;
+
+    private User user;
+    private Task task;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("coalescing");
+        user.setEmail("coalescing@example.com");
+        user.setPassword("secret");
+        userRepository.saveAndFlush(user);
+
+        JwtUserPrincipal principal = new JwtUserPrincipal(user.getId(), user.getUsername(), GlobalRole.USER);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        Task newTask = new Task();
+        newTask.setTitle("Rapport");
+        newTask.setStatus(TaskStatus.TODO);
+        newTask.setPriority(TaskPriority.MEDIUM);
+        task = taskService.createTask(newTask);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        // L'utilisateur est annulé avec la transaction du test
+        currentUserCache.invalidate(user.getId());
+    }
+
+    private void update(TaskStatus status, TaskPriority priority, String description) {
+        Task changes = new Task();
+        changes.setStatus(status);
+        changes.setPriority(priority);
+        changes.setDescription(description);
+        taskService.updateTask(task.getId(), changes);
+    }
+
+    private List<NotificationOutbox> pendingChanges() {
+        return outboxRepository.findAll().stream()
+                .filter(NotificationOutbox::getCoalescable)
+                .toList();
+    }
+
+    @Test
+    void editsInsideTheWindow_AreMergedIntoOneNotification() {
+        update(TaskStatus.IN_PROGRESS, null, null);
+        update(null, TaskPriority.HIGH, null);
+        update(null, null, "Chiffres du trimestre");
+
+        List<NotificationOutbox> pending = pendingChanges();
+        assertEquals(1, pending.size());
+        assertEquals(NotificationType.TASK_UPDATED, pending.get(0).getType());
+        assertEquals("Tâche \"Rapport\" : statut, priorité, description modifiés", pending.get(0).getMessage());
+        assertTrue(pending.get(0).getAvailableAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void statusBackToItsStartValue_IsNoLongerReported() {
+        update(TaskStatus.IN_PROGRESS, null, null);
+        update(TaskStatus.TODO, null, null);
+        assertTrue(pendingChanges().isEmpty());
+
+        // Seule la priorité a réellement changé sur la fenêtre
+        update(TaskStatus.IN_PROGRESS, TaskPriority.HIGH, null);
+        update(TaskStatus.TODO, null, null);
+
+        List<NotificationOutbox> pending = pendingChanges();
+        assertEquals(1, pending.size());
+        assertEquals(NotificationType.PRIORITY_CHANGED, pending.get(0).getType());
+        assertEquals("Tâche \"Rapport\" : 🟡 Moyenne → 🔴 Haute", pending.get(0).getMessage());
+    }
+
+    @Test
+    void editAfterTheWindowCloses_StartsANewNotification() {
+        update(TaskStatus.IN_PROGRESS, null, null);
+
+        // Fenêtre écoulée : la ligne est distribuable et n'accepte plus de fusion
+        NotificationOutbox first = pendingChanges().get(0);
+        first.setAvailableAt(LocalDateTime.now().minusSeconds(1));
+        outboxRepository.saveAndFlush(first);
+
+        update(null, TaskPriority.LOW, null);
+        assertEquals(2, pendingChanges().size());
+
+        // Création et premier statut distribués, la priorité attend encore sa fenêtre
+        assertEquals(2, dispatcher.dispatch());
+        List<NotificationOutbox> pending = pendingChanges();
+        assertEquals(1, pending.size());
+        assertEquals(NotificationType.PRIORITY_CHANGED, pending.get(0).getType());
+
+        List<Notification> delivered = notificationRepository.findByUserIdOrderByCreatedAtDesc(user.getId());
+        assertEquals(List.of(NotificationType.TASK_CREATED, NotificationType.STATUS_CHANGED),
+                delivered.stream().map(Notification::getType).sorted().toList());
+        assertTrue(delivered.stream().anyMatch(n -> "Tâche \"Rapport\" : À faire → En cours".equals(n.getMessage())));
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.AppNotiDo.service;
+
+import com.example.AppNotiDo.domain.GlobalRole;
+import com.example.AppNotiDo.domain.Notification;
+import com.example.AppNotiDo.domain.NotificationOutbox;
+import com.example.AppNotiDo.domain.NotificationType;
+import com.example.AppNotiDo.domain.Task;
+import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.dto.NotificationDTO;
+import com.example.AppNotiDo.repository.NotificationOutboxRepository;
+import com.example.AppNotiDo.repository.NotificationRepository;
+import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.repository.UserRepository;
+import com.example.AppNotiDo.scheduler.NotificationOutboxDispatcher;
+import com.example.AppNotiDo.security.CurrentUserCache;
+import com.example.AppNotiDo.security.JwtUserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Outbox transactionnelle : commits et rollbacks réels, donc base dédiée et pas de test transactionnel.
+ * Les jobs planifiés sont espacés pour que le test déclenche lui-même la distribution.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "notification.outbox.poll-interval-ms=3600000",
+        "notification.scheduler.interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class NotificationOutboxTest {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private NotificationOutboxDispatcher dispatcher;
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CurrentUserCache currentUserCache;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private UnreadCounterService unreadCounters;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Tous les utilisateurs sont considérés connectés : chaque push est enregistré
+    @MockitoBean
+    private SseService sseService;
+
+    private TransactionTemplate transaction;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        when(sseService.connectedAmong(anyCollection()))
+                .thenAnswer(call -> ((Collection<Long>) call.getArgument(0)).stream().distinct().toList());
+
+        user = new User();
+        user.setUsername("outbox");
+        user.setEmail("outbox@example.com");
+        user.setPassword("secret");
+        userRepository.save(user);
+
+        JwtUserPrincipal principal = new JwtUserPrincipal(user.getId(), user.getUsername(), GlobalRole.USER);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        currentUserCache.invalidate(user.getId());
+        notificationRepository.deleteAllInBatch();
+        outboxRepository.deleteAllInBatch();
+        taskRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    private Task newTask(String title) {
+        Task task = new Task();
+        task.setTitle(title);
+        return task;
+    }
+
+    @Test
+    void rolledBackWrite_LeavesNoOutboxRow() {
+        transaction.executeWithoutResult(status -> {
+            taskService.createTask(newTask("Annulée"));
+            assertEquals(1, outboxRepository.count());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, outboxRepository.count());
+        assertEquals(0, dispatcher.dispatch());
+        assertEquals(0, notificationRepository.count());
+    }
+
+    @Test
+    void committedWrite_IsDeliveredExactlyOnce() {
+        Task task = taskService.createTask(newTask("Validée"));
+
+        assertEquals(1, dispatcher.dispatch());
+        assertEquals(0, dispatcher.dispatch());
+
+        assertEquals(0, outboxRepository.count());
+        assertEquals(1, notificationRepository.countByTaskIdAndIsReadFalse(task.getId()));
+        assertEquals(NotificationType.TASK_CREATED,
+                notificationRepository.findByUserIdOrderByCreatedAtDesc(user.getId()).get(0).getType());
+    }
+
+    @Test
+    void concurrentDispatchers_ClaimEachRowOnce() throws Exception {
+        Task first = taskService.createTask(newTask("Première"));
+        Task second = taskService.createTask(newTask("Seconde"));
+
+        // Le premier distributeur garde son lot verrouillé jusqu'à ce que le second soit lancé
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> holder = CompletableFuture.supplyAsync(() -> transaction.execute(status -> {
+            int dispatched = dispatcher.dispatch();
+            claimed.countDown();
+            await(release);
+            return dispatched;
+        }));
+        assertTrue(claimed.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<Integer> contender = CompletableFuture.supplyAsync(dispatcher::dispatch);
+        // Le second distributeur attend le verrou du lot
+        Thread.sleep(300);
+        assertFalse(contender.isDone());
+        release.countDown();
+
+        assertEquals(2, holder.get(10, TimeUnit.SECONDS));
+        assertEquals(0, contender.get(10, TimeUnit.SECONDS));
+        assertEquals(1, notificationRepository.countByTaskIdAndIsReadFalse(first.getId()));
+        assertEquals(1, notificationRepository.countByTaskIdAndIsReadFalse(second.getId()));
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void newNotifications_ArePushedExactlyOnce() {
+        Task task = taskService.createTask(newTask("Poussée"));
+        assertEquals(1, dispatcher.dispatch());
+
+        // Rappel créé par le scheduler, puis modification fusionnée écrite avant lui dans l'outbox
+        Task loaded = taskRepository.findAllWithUserByIdIn(List.of(task.getId())).get(0);
+        notificationService.createDueNotifications(List.of(loaded),
+                Map.of(task.getId(), EnumSet.of(NotificationType.REMINDER)));
+        NotificationOutbox coalesced = new NotificationOutbox(user.getId(), task.getId(), "✏️ Tâche modifiée",
+                "Tâche \"Poussée\" : titre modifié", NotificationType.TASK_UPDATED);
+        coalesced.setCreatedAt(LocalDateTime.now().minusSeconds(10));
+        outboxRepository.save(coalesced);
+        assertEquals(1, dispatcher.dispatch());
+
+        ArgumentCaptor<NotificationDTO> pushed = ArgumentCaptor.forClass(NotificationDTO.class);
+        verify(sseService, atLeastOnce()).send(eq(user.getId()), eq("notification"), pushed.capture());
+        List<Long> stored = notificationRepository.findByUserIdOrderByCreatedAtDesc(user.getId()).stream()
+                .map(Notification::getId).sorted().toList();
+        assertEquals(3, stored.size());
+        assertEquals(stored, pushed.getAllValues().stream().map(NotificationDTO::getId).sorted().toList());
+        assertTrue(pushed.getAllValues().stream().allMatch(dto -> "Poussée".equals(dto.getTaskTitle())));
+        verify(sseService, times(3)).send(eq(user.getId()), eq("notification-count"), any());
+    }
+
+    @Test
+    void eventsOfDeletedTasks_AreDroppedWithoutTouchingCounters() {
+        Task kept = taskService.createTask(newTask("Conservée"));
+        Task deleted = taskService.createTask(newTask("Supprimée"));
+        // Suppression hors TaskService : l'évènement de création reste dans l'outbox
+        taskRepository.deleteById(deleted.getId());
+        assertEquals(0, unreadCounters.get(UnreadCounterService.Kind.NOTIFICATION, user.getId()));
+
+        assertEquals(1, dispatcher.dispatch());
+
+        assertEquals(0, outboxRepository.count());
+        assertEquals(1, notificationRepository.countByTaskIdAndIsReadFalse(kept.getId()));
+        assertEquals(1, unreadCounters.get(UnreadCounterService.Kind.NOTIFICATION, user.getId()));
+        verify(sseService).send(eq(user.getId()), eq("notification-count"), eq(Map.of("count", 1L)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
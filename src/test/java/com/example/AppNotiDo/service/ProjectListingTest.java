@@ -0,0 +1,320 @@
+package com.example.AppNotiDo.service;
+
+import com.example.AppNotiDo.controller.ProjectController;
+import com.example.AppNotiDo.domain.MemberStatus;
+import com.example.AppNotiDo.domain.Project;
+import com.example.AppNotiDo.domain.ProjectMember;
+import com.example.AppNotiDo.domain.ProjectRole;
+import com.example.AppNotiDo.domain.Task;
+import com.example.AppNotiDo.domain.TaskStatus;
+import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.dto.ProjectDTO;
+import com.example.AppNotiDo.repository.ProjectMemberRepository;
+import com.example.AppNotiDo.repository.ProjectRepository;
+import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.repository.UserRepository;
+import com.example.AppNotiDo.security.CurrentUserCache;
+import com.example.AppNotiDo.util.CursorUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Listing des projets d'un membre : projection (projet + rôle) et agrégat des compteurs de tâches
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+@ActiveProfiles("test")
+class ProjectListingTest {
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private ProjectMemberRepository projectMemberRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CurrentUserCache currentUserCache;
+
+    @Autowired
+    private ProjectController projectController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private TestUsers users;
+    private User owner;
+    private User member;
+
+    @BeforeEach
+    void setUp() {
+        users = new TestUsers(userRepository, currentUserCache);
+        owner = users.create("owner");
+        member = users.create("member");
+    }
+
+    @AfterEach
+    void tearDown() {
+        users.tearDown();
+    }
+
+    // Projet créé par l'utilisateur connecté (membership OWNER)
+    private Project project(String name) {
+        Project project = new Project();
+        project.setName(name);
+        return projectService.createProject(project);
+    }
+
+    private void share(Project project, User user, ProjectRole role) {
+        projectMemberRepository.save(ProjectMember.builder()
+                .project(project)
+                .user(user)
+                .role(role)
+                .status(MemberStatus.ACTIVE)
+                .build());
+    }
+
+    private void tasks(Project project, User user, TaskStatus... statuses) {
+        for (TaskStatus status : statuses) {
+            Task task = new Task();
+            task.setTitle(project.getName() + " " + status);
+            task.setStatus(status);
+            task.setProject(project);
+            task.setUser(user);
+            taskRepository.save(task);
+        }
+    }
+
+    private static List<String> names(List<ProjectDTO> projects) {
+        return projects.stream().map(ProjectDTO::getName).toList();
+    }
+
+    private static Map<String, ProjectDTO> byName(List<ProjectDTO> projects) {
+        return projects.stream().collect(Collectors.toMap(ProjectDTO::getName, Function.identity()));
+    }
+
+    @Test
+    void listing_RunsInAFixedNumberOfStatements() {
+        users.loginAs(owner);
+        for (int i = 0; i < 8; i++) {
+            project("Projet " + i);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ProjectDTO> projects = projectService.getAllProjects(Pageable.unpaged());
+
+        assertEquals(8, projects.size());
+        // Une projection (projets + rôle) et un GROUP BY des tâches, quel que soit le nombre de projets
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void listing_TakesTheRoleFromTheMembership() {
+        users.loginAs(owner);
+        Project shared = project("Partagé");
+        project("Privé");
+        share(shared, member, ProjectRole.VIEWER);
+
+        users.loginAs(member);
+        Project own = project("Personnel");
+        entityManager.flush();
+
+        Map<String, ProjectDTO> projects = byName(projectService.getAllProjects(Pageable.unpaged()));
+        assertEquals(2, projects.size());
+        assertEquals(ProjectRole.VIEWER, projects.get("Partagé").getUserRole());
+        assertEquals(ProjectRole.OWNER, projects.get("Personnel").getUserRole());
+        assertEquals(own.getId(), projects.get("Personnel").getId());
+    }
+
+    @Test
+    void listing_CountsTasksPerProjectIncludingEmptyProjects() {
+        users.loginAs(owner);
+        Project mixed = project("Mixte");
+        Project done = project("Terminé");
+        project("Vide");
+        tasks(mixed, owner, TaskStatus.TODO, TaskStatus.IN_PROGRESS, TaskStatus.DONE);
+        tasks(done, owner, TaskStatus.DONE, TaskStatus.DONE);
+        // Les tâches des autres membres comptent aussi
+        share(mixed, member, ProjectRole.MEMBER);
+        tasks(mixed, member, TaskStatus.TODO);
+        entityManager.flush();
+
+        Map<String, ProjectDTO> projects = byName(projectService.getAllProjects(Pageable.unpaged()));
+
+        assertCounts(projects.get("Mixte"), 4, 1, 3);
+        assertCounts(projects.get("Terminé"), 2, 2, 0);
+        // Aucune ligne du GROUP BY pour un projet sans tâche : compteurs à zéro
+        assertCounts(projects.get("Vide"), 0, 0, 0);
+    }
+
+    private static void assertCounts(ProjectDTO project, int total, int completed, int pending) {
+        assertEquals(total, project.getTaskCount(), project.getName());
+        assertEquals(completed, project.getCompletedTaskCount(), project.getName());
+        assertEquals(pending, project.getPendingTaskCount(), project.getName());
+    }
+
+    @Test
+    void listing_FiltersArchivedProjects() {
+        users.loginAs(owner);
+        project("Actif");
+        projectService.archiveProject(project("Archivé").getId());
+        entityManager.flush();
+
+        assertEquals(List.of("Actif"), names(projectService.getAllProjects(Pageable.unpaged())));
+        assertEquals(List.of("Actif", "Archivé"),
+                names(projectService.getAllProjectsIncludingArchived(Pageable.unpaged())));
+        assertEquals(List.of("Archivé"), names(projectService.getArchivedProjects(Pageable.unpaged())));
+        assertEquals(1, projectService.countProjects());
+    }
+
+    @Test
+    void countProjects_CountsOnlyActiveMembershipsOfActiveProjects() {
+        users.loginAs(owner);
+        Project shared = project("Partagé");
+        Project archived = project("Archivé");
+        project("Privé");
+        share(shared, member, ProjectRole.MEMBER);
+        share(archived, member, ProjectRole.MEMBER);
+        projectService.archiveProject(archived.getId());
+        projectMemberRepository.save(ProjectMember.builder()
+                .project(project("Invitation"))
+                .user(member)
+                .role(ProjectRole.MEMBER)
+                .status(MemberStatus.PENDING)
+                .build());
+        entityManager.flush();
+
+        assertEquals(3, projectService.countProjects());
+        users.loginAs(member);
+        assertEquals(1, projectService.countProjects());
+    }
+
+    @Test
+    void search_MatchesTheNameLiterallyIgnoringCase() {
+        users.loginAs(owner);
+        project("Budget 2024");
+        project("budget_final");
+        project("Remise 50%");
+        project("Chemin C:\\docs");
+        project("Vite !");
+        projectService.archiveProject(project("Budget archivé").getId());
+        entityManager.flush();
+
+        assertEquals(List.of("Budget 2024", "budget_final"),
+                names(projectService.searchProjects("BUDGET", Pageable.unpaged())));
+        // _, %, \ et le caractère d'échappement ne sont pas des jokers
+        assertEquals(List.of("budget_final"), names(projectService.searchProjects("_", Pageable.unpaged())));
+        assertEquals(List.of("Remise 50%"), names(projectService.searchProjects("%", Pageable.unpaged())));
+        assertEquals(List.of("Chemin C:\\docs"), names(projectService.searchProjects("\\", Pageable.unpaged())));
+        assertEquals(List.of("Vite !"), names(projectService.searchProjects("!", Pageable.unpaged())));
+        assertTrue(projectService.searchProjects("t_2", Pageable.unpaged()).isEmpty());
+    }
+
+    @Test
+    void listing_SortsByDisplayOrderAndArchivedByLastUpdate() {
+        users.loginAs(owner);
+        List<Project> projects = List.of(project("A"), project("B"), project("C"));
+        projects.get(0).setDisplayOrder(3);
+        projects.get(1).setDisplayOrder(1);
+        projects.get(2).setDisplayOrder(2);
+        projects.forEach(p -> projectService.archiveProject(p.getId()));
+        project("D").setDisplayOrder(0);
+        entityManager.flush();
+        // Dates de modification fixées : B la plus récente, puis A, puis C
+        LocalDateTime now = LocalDateTime.now();
+        updatedAt(projects.get(0), now.minusDays(1));
+        updatedAt(projects.get(1), now);
+        updatedAt(projects.get(2), now.minusDays(2));
+        entityManager.clear();
+
+        assertEquals(List.of("D", "B", "C", "A"),
+                names(projectService.getAllProjectsIncludingArchived(Pageable.unpaged())));
+        assertEquals(List.of("B", "A", "C"), names(projectService.getArchivedProjects(Pageable.unpaged())));
+        assertEquals(List.of("C"), names(projectService.getArchivedProjects(PageRequest.of(1, 2))));
+    }
+
+    @Test
+    void controller_ClampsPageAndSize() {
+        users.loginAs(owner);
+        for (int i = 0; i < 25; i++) {
+            project(String.format("Projet %02d", i));
+        }
+        entityManager.flush();
+
+        // Sans pagination : tout est retourné
+        assertEquals(25, projectController.getAllProjects(false, null, null).getBody().size());
+        // size invalide : taille par défaut, page négative : première page
+        List<ProjectDTO> firstPage = projectController.getAllProjects(false, -1, 0).getBody();
+        assertEquals(CursorUtils.DEFAULT_PAGE_SIZE, firstPage.size());
+        assertEquals("Projet 00", firstPage.get(0).getName());
+        assertEquals(List.of("Projet 20", "Projet 21", "Projet 22", "Projet 23", "Projet 24"),
+                names(projectController.getAllProjects(false, 1, null).getBody()));
+        assertEquals(25, projectController.getAllProjects(false, 0, 1000).getBody().size());
+    }
+
+    @Test
+    void reorder_UpdatesPositionAndDateSeenThroughJpa() {
+        users.loginAs(owner);
+        Project first = project("Premier");
+        Project second = project("Second");
+        entityManager.flush();
+        LocalDateTime lastWeek = LocalDateTime.now().minusWeeks(1);
+        updatedAt(first, lastWeek);
+        updatedAt(second, lastWeek);
+        entityManager.clear();
+        // Projet déjà chargé dans le contexte de persistance avant le batch
+        Project loaded = projectRepository.findById(second.getId()).orElseThrow();
+
+        projectService.reorderProjects(List.of(second.getId(), first.getId()));
+
+        Project reloaded = projectRepository.findById(second.getId()).orElseThrow();
+        assertNotSame(loaded, reloaded);
+        assertEquals(0, reloaded.getDisplayOrder());
+        assertTrue(reloaded.getUpdatedAt().isAfter(lastWeek));
+        assertEquals(List.of("Second", "Premier"), names(projectService.getAllProjects(Pageable.unpaged())));
+    }
+
+    private void updatedAt(Project project, LocalDateTime updatedAt) {
+        jdbcTemplate.update("UPDATE projects SET updated_at = ? WHERE id = ?",
+                Timestamp.valueOf(updatedAt), project.getId());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.AppNotiDo.service;
+
+import com.example.AppNotiDo.domain.RecurrenceType;
+import com.example.AppNotiDo.domain.Task;
+import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Création des occurrences : exécutions répétées ou concurrentes sans doublon
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+class RecurrenceServiceTest {
+
+    @Autowired
+    private RecurrenceService recurrenceService;
+
+    // Espion : permet de simuler une lecture qui ne voit pas une occurrence déjà écrite
+    @MockitoSpyBean
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Task template;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("recurring");
+        user.setEmail("recurring@example.com");
+        user.setPassword("secret");
+        userRepository.saveAndFlush(user);
+
+        start = LocalDateTime.now().plusHours(1).withNano(0);
+        template = new Task();
+        template.setTitle("Daily review");
+        template.setUser(user);
+        template.setDueDate(start);
+        template.setRecurrenceType(RecurrenceType.DAILY);
+        template.setRecurrenceInterval(1);
+        template.setIsRecurringTemplate(true);
+        template.setNextOccurrence(start.plusDays(1));
+        template = taskRepository.saveAndFlush(template);
+    }
+
+    private List<Task> occurrences() {
+        return taskRepository.findOccurrencesOf(List.of(template.getId()), start, start.plusDays(30));
+    }
+
+    @Test
+    void materializeNextOccurrence_AdvancesTemplateAndIgnoresReplays() {
+        LocalDateTime lookAhead = start.plusDays(2);
+
+        Task created = recurrenceService.materializeNextOccurrence(template.getId(), lookAhead);
+        assertEquals(start.plusDays(1), created.getOccurrenceDate());
+        assertEquals(start.plusDays(2), template.getNextOccurrence());
+
+        // Exécution rejouée avec l'état d'avant (autre instance, relance après un crash)
+        template.setNextOccurrence(start.plusDays(1));
+        assertNull(recurrenceService.materializeNextOccurrence(template.getId(), lookAhead));
+        assertEquals(start.plusDays(2), template.getNextOccurrence());
+
+        // Tâche terminée pendant l'exécution : même occurrence, rien de plus
+        assertNull(recurrenceService.createNextOccurrence(template));
+        assertEquals(1, occurrences().size());
+    }
+
+    @Test
+    void uniqueConstraint_RejectsSecondRowForTheSameOccurrence() {
+        recurrenceService.materializeNextOccurrence(template.getId(), start.plusDays(2));
+        taskRepository.flush();
+
+        Task duplicate = new Task();
+        duplicate.setTitle("Daily review");
+        duplicate.setUser(template.getUser());
+        duplicate.setParentTask(template);
+        duplicate.setDueDate(start.plusDays(1));
+        duplicate.setOccurrenceDate(start.plusDays(1));
+
+        assertThrows(DataIntegrityViolationException.class, () -> taskRepository.saveAndFlush(duplicate));
+    }
+
+    // Hors transaction de test : la violation annule la transaction de materializeNextOccurrence
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void materializeNextOccurrence_TreatsUniqueKeyViolationAsAlreadyMaterialized() {
+        LocalDateTime lookAhead = start.plusDays(2);
+        try {
+            assertNotNull(recurrenceService.materializeNextOccurrence(template.getId(), lookAhead));
+
+            // Exécution concurrente partie de l'état d'avant, dont la lecture ne voit pas l'occurrence écrite
+            Task stale = taskRepository.findById(template.getId()).orElseThrow();
+            stale.setNextOccurrence(start.plusDays(1));
+            taskRepository.save(stale);
+            doReturn(List.of()).when(taskRepository).findOccurrence(template.getId(), start.plusDays(1));
+
+            assertNull(recurrenceService.materializeNextOccurrence(template.getId(), lookAhead));
+
+            // Transaction annulée : toujours une seule occurrence, template inchangé
+            assertEquals(1, occurrences().size());
+            assertEquals(start.plusDays(1),
+                    taskRepository.findById(template.getId()).orElseThrow().getNextOccurrence());
+        } finally {
+            taskRepository.deleteAll(occurrences());
+            taskRepository.deleteById(template.getId());
+            userRepository.deleteById(template.getUser().getId());
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.AppNotiDo.service;
+
+import com.example.AppNotiDo.domain.Notification;
+import com.example.AppNotiDo.domain.NotificationType;
+import com.example.AppNotiDo.domain.RecurrenceType;
+import com.example.AppNotiDo.domain.Subtask;
+import com.example.AppNotiDo.domain.Task;
+import com.example.AppNotiDo.domain.TaskPriority;
+import com.example.AppNotiDo.domain.TaskStatus;
+import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.dto.BulkTaskRequestDTO;
+import com.example.AppNotiDo.dto.BulkTaskResultDTO;
+import com.example.AppNotiDo.repository.NotificationOutboxRepository;
+import com.example.AppNotiDo.repository.NotificationRepository;
+import com.example.AppNotiDo.repository.SubtaskRepository;
+import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.repository.UserRepository;
+import com.example.AppNotiDo.scheduler.DeadlineWheel;
+import com.example.AppNotiDo.security.CurrentUserCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Actions groupées sur les tâches : résultat par item, effets de bord (échéances, récurrence,
+ * suppression sans orphelin) et nombre de requêtes indépendant de la taille de la sélection.
+ * Les jobs planifiés sont espacés pour que leurs requêtes ne faussent pas les statistiques.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "notification.outbox.poll-interval-ms=3600000",
+        "notification.scheduler.interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@Transactional
+@ActiveProfiles("test")
+class TaskBulkUpdateTest {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private SubtaskRepository subtaskRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CurrentUserCache currentUserCache;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    // Les (re)programmations s'appliquent après commit : on vérifie les appels
+    @MockitoSpyBean
+    private DeadlineWheel deadlineWheel;
+
+    private TestUsers users;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        users = new TestUsers(userRepository, currentUserCache);
+        owner = users.create("bulk");
+        users.loginAs(owner);
+    }
+
+    @AfterEach
+    void tearDown() {
+        users.tearDown();
+    }
+
+    private Task task(User user, String title, TaskStatus status) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setStatus(status);
+        task.setPriority(TaskPriority.MEDIUM);
+        task.setUser(user);
+        task.setDueDate(LocalDateTime.now().plusDays(1).withNano(0));
+        return taskRepository.save(task);
+    }
+
+    private List<Long> tasks(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(task(owner, "Tâche " + i, TaskStatus.TODO).getId());
+        }
+        return ids;
+    }
+
+    private static BulkTaskRequestDTO request(List<Long> ids) {
+        BulkTaskRequestDTO request = new BulkTaskRequestDTO();
+        request.setTaskIds(ids);
+        return request;
+    }
+
+    private Task reload(Long id) {
+        return taskRepository.findById(id).orElseThrow();
+    }
+
+    @Test
+    void patch_ReportsForeignAndMissingTasksPerItem() {
+        Task own = task(owner, "À moi", TaskStatus.TODO);
+        Task foreign = task(users.create("other"), "À un autre", TaskStatus.TODO);
+        long missing = foreign.getId() + 1_000;
+
+        BulkTaskRequestDTO request = request(List.of(own.getId(), foreign.getId(), missing, own.getId()));
+        request.setPriority("HIGH");
+        BulkTaskResultDTO result = taskService.bulkUpdate(request);
+
+        // Ids dédoublonnés, ordre de la requête conservé
+        assertEquals(3, result.getRequested());
+        assertEquals(1, result.getSucceeded());
+        assertEquals(List.of(
+                        new BulkTaskResultDTO.ItemResult(own.getId(), true, null),
+                        new BulkTaskResultDTO.ItemResult(foreign.getId(), false, "Task not found"),
+                        new BulkTaskResultDTO.ItemResult(missing, false, "Task not found")),
+                result.getItems());
+        assertEquals(TaskPriority.HIGH, reload(own.getId()).getPriority());
+        assertEquals(TaskPriority.MEDIUM, reload(foreign.getId()).getPriority());
+    }
+
+    @Test
+    void bulkUpdate_RejectsEmptyAndOversizedSelections() {
+        assertThrows(IllegalArgumentException.class, () -> taskService.bulkUpdate(request(List.of())));
+        List<Long> tooMany = LongStream.rangeClosed(1, 501).boxed().toList();
+        assertThrows(IllegalArgumentException.class, () -> taskService.bulkUpdate(request(tooMany)));
+    }
+
+    @Test
+    void bulkUpdate_RejectsARequestThatChangesNothing() {
+        Task own = task(owner, "À moi", TaskStatus.TODO);
+        BulkTaskRequestDTO request = request(List.of(own.getId()));
+        request.setDelete(false);
+        request.setRemoveFromProject(false);
+
+        assertThrows(IllegalArgumentException.class, () -> taskService.bulkUpdate(request));
+    }
+
+    @Test
+    void statusChange_ReschedulesDeadlinesAndCompletesTemplates() {
+        Task open = task(owner, "Ouverte", TaskStatus.TODO);
+        Task done = task(owner, "Déjà faite", TaskStatus.DONE);
+        Task template = task(owner, "Revue quotidienne", TaskStatus.TODO);
+        template.setRecurrenceType(RecurrenceType.DAILY);
+        template.setRecurrenceInterval(1);
+        template.setIsRecurringTemplate(true);
+        template.setNextOccurrence(template.getDueDate().plusDays(1));
+        taskRepository.saveAndFlush(template);
+
+        BulkTaskRequestDTO complete = request(List.of(open.getId(), done.getId(), template.getId()));
+        complete.setStatus("DONE");
+        taskService.bulkUpdate(complete);
+
+        // Échéances retirées des tâches terminées, occurrence suivante créée pour le template
+        verify(deadlineWheel).schedule(argThat(t -> t.getId().equals(open.getId()) && t.getStatus() == TaskStatus.DONE));
+        verify(deadlineWheel).schedule(argThat(t -> t.getId().equals(template.getId()) && t.getStatus() == TaskStatus.DONE));
+        assertEquals(1, taskRepository.findOccurrencesOf(List.of(template.getId()),
+                template.getDueDate(), template.getDueDate().plusDays(30)).size());
+        assertEquals(TaskStatus.DONE, reload(done.getId()).getStatus());
+
+        // Réouverture : les échéances sont réarmées
+        BulkTaskRequestDTO reopen = request(List.of(open.getId()));
+        reopen.setStatus("IN_PROGRESS");
+        taskService.bulkUpdate(reopen);
+
+        verify(deadlineWheel).schedule(argThat(t -> t.getId().equals(open.getId()) && t.getStatus() == TaskStatus.IN_PROGRESS));
+        assertEquals(TaskStatus.IN_PROGRESS, reload(open.getId()).getStatus());
+    }
+
+    @Test
+    void delete_LeavesNoOrphans() {
+        Task first = taskService.createTask(newTask("Première"));
+        Task second = taskService.createTask(newTask("Seconde"));
+        Task kept = taskService.createTask(newTask("Conservée"));
+        List<Long> ids = List.of(first.getId(), second.getId());
+        for (Task task : List.of(first, second, kept)) {
+            Subtask subtask = new Subtask();
+            subtask.setTitle("Étape");
+            subtask.setTask(task);
+            subtaskRepository.save(subtask);
+            notificationRepository.save(new Notification(owner, task, "Rappel", "Bientôt", NotificationType.REMINDER));
+        }
+        // Occurrence d'un template supprimé : conservée, mais détachée
+        Task occurrence = task(owner, "Occurrence", TaskStatus.TODO);
+        occurrence.setParentTask(first);
+        taskRepository.saveAndFlush(occurrence);
+
+        // Occurrence déjà chargée dans la session : ne doit pas garder son template supprimé
+        Task loadedOccurrence = reload(occurrence.getId());
+
+        BulkTaskRequestDTO delete = request(ids);
+        delete.setDelete(true);
+        BulkTaskResultDTO result = taskService.bulkUpdate(delete);
+
+        assertEquals(2, result.getSucceeded());
+        ids.forEach(id -> {
+            assertTrue(taskRepository.findById(id).isEmpty());
+            assertEquals(0, subtaskRepository.countByTaskId(id));
+            verify(deadlineWheel).cancel(id);
+        });
+        assertEquals(0, notificationRepository.countByTaskIdInAndIsReadFalse(ids));
+        assertTrue(outboxRepository.findAll().stream().noneMatch(o -> o.getTaskId() != null && ids.contains(o.getTaskId())));
+        Task reloadedOccurrence = reload(occurrence.getId());
+        assertNotSame(loadedOccurrence, reloadedOccurrence);
+        assertNull(reloadedOccurrence.getParentTask());
+
+        // La tâche hors sélection garde tout
+        assertEquals(1, subtaskRepository.countByTaskId(kept.getId()));
+        assertEquals(1, notificationRepository.countByTaskIdAndIsReadFalse(kept.getId()));
+        assertTrue(outboxRepository.findAll().stream().anyMatch(o -> kept.getId().equals(o.getTaskId())));
+    }
+
+    @Test
+    void bulkUpdate_RunsTheSameStatementsWhateverTheSelectionSize() {
+        // Premier lot écarté : il réserve le bloc d'ids de l'outbox
+        statementsToPatch(tasks(1));
+
+        // Propriété, un UPDATE par champ, la notification agrégée
+        assertEquals(4, statementsToPatch(tasks(3)));
+        assertEquals(4, statementsToPatch(tasks(30)));
+        // Propriété, non lues décomptées, notifications, outbox, sous-tâches, occurrences détachées, tâches,
+        // notification agrégée
+        assertEquals(8, statementsToDelete(tasks(3)));
+        assertEquals(8, statementsToDelete(tasks(30)));
+    }
+
+    private long statementsToPatch(List<Long> ids) {
+        BulkTaskRequestDTO request = request(ids);
+        request.setPriority("LOW");
+        request.setTags("lot");
+        return statements(request);
+    }
+
+    private long statementsToDelete(List<Long> ids) {
+        BulkTaskRequestDTO request = request(ids);
+        request.setDelete(true);
+        return statements(request);
+    }
+
+    private long statements(BulkTaskRequestDTO request) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        BulkTaskResultDTO result = taskService.bulkUpdate(request);
+        entityManager.flush();
+
+        assertEquals(request.getTaskIds().size(), result.getSucceeded());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void bulkEndpoint_ReturnsPerItemResults() throws Exception {
+        Task own = task(owner, "À moi", TaskStatus.TODO);
+        long missing = own.getId() + 1_000;
+        Cookie token = new Cookie("token", jwtService.generateToken(owner));
+
+        mockMvc.perform(post("/api/tasks/bulk")
+                        .cookie(token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"taskIds\": [" + own.getId() + ", " + missing + "], \"status\": \"IN_PROGRESS\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(2))
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.items[0].success").value(true))
+                .andExpect(jsonPath("$.items[1].taskId").value(missing))
+                .andExpect(jsonPath("$.items[1].error").value("Task not found"));
+        assertEquals(TaskStatus.IN_PROGRESS, reload(own.getId()).getStatus());
+
+        mockMvc.perform(post("/api/tasks/bulk")
+                        .cookie(token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"taskIds\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static Task newTask(String title) {
+        Task task = new Task();
+        task.setTitle(title);
+        return task;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.AppNotiDo.service;
+
+import com.example.AppNotiDo.domain.GlobalRole;
+import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.repository.UserRepository;
+import com.example.AppNotiDo.security.CurrentUserCache;
+import com.example.AppNotiDo.security.JwtUserPrincipal;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utilisateurs des tests transactionnels : création, connexion et nettoyage en fin de test
+ */
+class TestUsers {
+
+    private final UserRepository userRepository;
+    private final CurrentUserCache currentUserCache;
+    private final List<User> users = new ArrayList<>();
+
+    TestUsers(UserRepository userRepository, CurrentUserCache currentUserCache) {
+        this.userRepository = userRepository;
+        this.currentUserCache = currentUserCache;
+    }
+
+    User create(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret");
+        userRepository.saveAndFlush(user);
+        users.add(user);
+        return user;
+    }
+
+    void loginAs(User user) {
+        JwtUserPrincipal principal = new JwtUserPrincipal(user.getId(), user.getUsername(), GlobalRole.USER);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    // À appeler en @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        // Les utilisateurs sont annulés avec la transaction du test
+        users.forEach(u -> currentUserCache.invalidate(u.getId()));
+    }
+}
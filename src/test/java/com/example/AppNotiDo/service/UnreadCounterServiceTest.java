@@ -0,0 +1,91 @@
+package com.example.AppNotiDo.service;
+
+import com.example.AppNotiDo.dto.UnreadCountDTO;
+import com.example.AppNotiDo.repository.MessageRepository;
+import com.example.AppNotiDo.repository.NotificationRepository;
+import com.example.AppNotiDo.service.UnreadCounterService.Kind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class UnreadCounterServiceTest {
+
+    private NotificationRepository notificationRepository;
+    private UnreadCounterService counters;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        counters = new UnreadCounterService(notificationRepository, mock(MessageRepository.class), 2);
+    }
+
+    @Test
+    void get_LoadsOnceThenAppliesIncrements() {
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(3L);
+
+        assertEquals(3, counters.get(Kind.NOTIFICATION, 1L));
+        counters.add(Kind.NOTIFICATION, 1L, 2);
+        counters.add(Kind.NOTIFICATION, 1L, -10);
+        assertEquals(0, counters.get(Kind.NOTIFICATION, 1L));
+
+        counters.add(Kind.NOTIFICATION, 1L, 1);
+        assertEquals(1, counters.get(Kind.NOTIFICATION, 1L));
+        verify(notificationRepository, times(1)).countByUserIdAndIsReadFalse(1L);
+    }
+
+    @Test
+    void cacheIsBoundedAndReconciled() {
+        when(notificationRepository.countByUserIdAndIsReadFalse(anyLong())).thenReturn(5L);
+        counters.get(Kind.NOTIFICATION, 1L);
+        counters.get(Kind.NOTIFICATION, 2L);
+        counters.get(Kind.NOTIFICATION, 3L);
+
+        // L'utilisateur 1 a été évincé : il est rechargé
+        counters.get(Kind.NOTIFICATION, 1L);
+        verify(notificationRepository, times(2)).countByUserIdAndIsReadFalse(1L);
+
+        when(notificationRepository.countUnreadByUserIds(anyCollection()))
+                .thenReturn(List.of(new UnreadCountDTO(1L, 7L)));
+        counters.reconcile();
+        assertEquals(7, counters.get(Kind.NOTIFICATION, 1L));
+        assertEquals(0, counters.get(Kind.NOTIFICATION, 3L));
+    }
+
+    @Test
+    void get_DoesNotCacheALoadCrossedByAnIncrement() {
+        // Le compte lu ne voit pas la notification dont l'incrément arrive pendant la requête
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenAnswer(invocation -> {
+            counters.add(Kind.NOTIFICATION, 1L, 1);
+            return 3L;
+        });
+        assertEquals(3, counters.get(Kind.NOTIFICATION, 1L));
+
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(4L);
+        assertEquals(4, counters.get(Kind.NOTIFICATION, 1L));
+        counters.add(Kind.NOTIFICATION, 1L, 1);
+        assertEquals(5, counters.get(Kind.NOTIFICATION, 1L));
+        verify(notificationRepository, times(2)).countByUserIdAndIsReadFalse(1L);
+    }
+
+    @Test
+    void reconcile_KeepsAnIncrementAppliedDuringTheCount() {
+        when(notificationRepository.countByUserIdAndIsReadFalse(anyLong())).thenReturn(3L);
+        counters.get(Kind.NOTIFICATION, 1L);
+        counters.get(Kind.NOTIFICATION, 2L);
+
+        // L'incrément de l'utilisateur 1 est appliqué entre le comptage et son écriture en cache
+        when(notificationRepository.countUnreadByUserIds(anyCollection())).thenAnswer(invocation -> {
+            counters.add(Kind.NOTIFICATION, 1L, 1);
+            return List.of(new UnreadCountDTO(1L, 3L), new UnreadCountDTO(2L, 6L));
+        });
+        counters.reconcile();
+
+        assertEquals(4, counters.get(Kind.NOTIFICATION, 1L));
+        assertEquals(6, counters.get(Kind.NOTIFICATION, 2L));
+    }
+}
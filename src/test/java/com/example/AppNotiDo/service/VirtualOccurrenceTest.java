@@ -0,0 +1,158 @@
+package com.example.AppNotiDo.service;
+
+import com.example.AppNotiDo.domain.GlobalRole;
+import com.example.AppNotiDo.domain.RecurrenceType;
+import com.example.AppNotiDo.domain.Task;
+import com.example.AppNotiDo.domain.TaskStatus;
+import com.example.AppNotiDo.domain.User;
+import com.example.AppNotiDo.dto.TaskOccurrenceDTO;
+import com.example.AppNotiDo.repository.TaskRepository;
+import com.example.AppNotiDo.repository.UserRepository;
+import com.example.AppNotiDo.scheduler.RecurrenceMaterializer;
+import com.example.AppNotiDo.security.CurrentUserCache;
+import com.example.AppNotiDo.security.JwtUserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mode virtuel : aucune occurrence n'est écrite à l'avance, seulement quand l'utilisateur agit dessus
+ */
+@SpringBootTest(properties = "recurrence.virtual-occurrences=true")
+@Transactional
+@ActiveProfiles("test")
+class VirtualOccurrenceTest {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RecurrenceMaterializer recurrenceMaterializer;
+
+    @Autowired
+    private CurrentUserCache currentUserCache;
+
+    private User user;
+    private Task template;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("virtual");
+        user.setEmail("virtual@example.com");
+        user.setPassword("secret");
+        userRepository.saveAndFlush(user);
+
+        JwtUserPrincipal principal = new JwtUserPrincipal(user.getId(), user.getUsername(), GlobalRole.USER);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        start = LocalDateTime.now().plusHours(1).withNano(0);
+        Task task = new Task();
+        task.setTitle("Stand-up");
+        task.setDueDate(start);
+        task.setRecurrenceType(RecurrenceType.DAILY);
+        task.setRecurrenceInterval(1);
+        template = taskService.createTask(task);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        // L'utilisateur est annulé avec la transaction du test
+        currentUserCache.invalidate(user.getId());
+    }
+
+    @Test
+    void completingTemplateOrRunningJob_WritesNoOccurrence() {
+        Task done = new Task();
+        done.setStatus(TaskStatus.DONE);
+        done.setRecurrenceType(RecurrenceType.DAILY);
+        taskService.updateTask(template.getId(), done);
+        recurrenceMaterializer.materializeDueOccurrences();
+
+        assertTrue(taskRepository.findOccurrencesOf(List.of(template.getId()), start, start.plusDays(30)).isEmpty());
+
+        List<TaskOccurrenceDTO> occurrences = taskService.getOccurrences(start, start.plusDays(3), null);
+        assertEquals(List.of(start.plusDays(1), start.plusDays(2), start.plusDays(3)),
+                occurrences.stream().map(TaskOccurrenceDTO::getDueDate).toList());
+        assertTrue(occurrences.stream().allMatch(o -> o.getTaskId() == null && "TODO".equals(o.getStatus())));
+    }
+
+    @Test
+    void materializeOccurrence_IsIdempotentAndReplacesVirtualOccurrence() {
+        LocalDateTime second = start.plusDays(2);
+
+        Task occurrence = taskService.materializeOccurrence(template.getId(), second);
+        assertEquals(occurrence.getId(), taskService.materializeOccurrence(template.getId(), second).getId());
+        assertEquals(second, occurrence.getOccurrenceDate());
+
+        // Déplacée et terminée par l'utilisateur : reste rattachée à sa date prévue, sans doublon virtuel
+        Task changes = new Task();
+        changes.setDueDate(second.plusHours(5));
+        changes.setStatus(TaskStatus.DONE);
+        taskService.updateTask(occurrence.getId(), changes);
+
+        List<TaskOccurrenceDTO> occurrences = taskService.getOccurrences(start, start.plusDays(3), template.getId());
+        assertEquals(3, occurrences.size());
+        TaskOccurrenceDTO stored = occurrences.get(1);
+        assertEquals(occurrence.getId(), stored.getTaskId());
+        assertEquals(second, stored.getOccurrenceDate());
+        assertEquals(second.plusHours(5), stored.getDueDate());
+        assertEquals("DONE", stored.getStatus());
+        assertNull(occurrences.get(0).getTaskId());
+        assertNull(occurrences.get(2).getTaskId());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> taskService.materializeOccurrence(template.getId(), second.plusHours(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskService.materializeOccurrence(template.getId(), start));
+    }
+
+    @Test
+    void weeklyTemplateWithDays_ListedOccurrencesCanBeMaterialized() {
+        LocalDateTime monday = LocalDateTime.now().plusDays(1).with(TemporalAdjusters.next(DayOfWeek.MONDAY))
+                .withHour(9).withMinute(0).withSecond(0).withNano(0);
+        Task task = new Task();
+        task.setTitle("Sport");
+        task.setDueDate(monday);
+        task.setRecurrenceType(RecurrenceType.WEEKLY);
+        task.setRecurrenceInterval(1);
+        task.setRecurrenceDays("MONDAY,WEDNESDAY");
+        Task weekly = taskService.createTask(task);
+
+        // La plage commence exactement sur une occurrence (mercredi) : elle est listée
+        LocalDateTime wednesday = monday.plusDays(2);
+        List<LocalDateTime> listed = taskService.getOccurrences(wednesday, wednesday.plusDays(7), weekly.getId())
+                .stream().map(TaskOccurrenceDTO::getOccurrenceDate).toList();
+        assertEquals(List.of(wednesday, monday.plusWeeks(1), wednesday.plusWeeks(1)), listed);
+
+        for (LocalDateTime occurrenceDate : listed) {
+            assertEquals(occurrenceDate, taskService.materializeOccurrence(weekly.getId(), occurrenceDate).getOccurrenceDate());
+        }
+        assertTrue(taskService.getOccurrences(wednesday, wednesday.plusDays(7), weekly.getId()).stream()
+                .allMatch(o -> o.getTaskId() != null));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskService.materializeOccurrence(weekly.getId(), monday.plusDays(1)));
+    }
+}
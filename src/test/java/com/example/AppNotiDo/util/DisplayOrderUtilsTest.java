@@ -0,0 +1,46 @@
+package com.example.AppNotiDo.util;
+
+import com.example.AppNotiDo.dto.DisplayOrderDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positions écrites par un réordonnancement : seuls les éléments autorisés dont la position change
+ */
+class DisplayOrderUtilsTest {
+
+    @Test
+    void changedOrders_SkipsIdsThatAreNotAccessible() {
+        List<DisplayOrderDTO> current = List.of(new DisplayOrderDTO(1L, 5), new DisplayOrderDTO(2L, 6));
+
+        // 99 n'appartient pas à l'utilisateur : ignoré, mais il occupe quand même sa position
+        List<DisplayOrderDTO> changes = DisplayOrderUtils.changedOrders(List.of(99L, 2L, 1L), current);
+
+        assertEquals(List.of(new DisplayOrderDTO(2L, 1), new DisplayOrderDTO(1L, 2)), changes);
+    }
+
+    @Test
+    void changedOrders_KeepsTheFirstPositionOfARepeatedId() {
+        List<DisplayOrderDTO> current = List.of(new DisplayOrderDTO(1L, 3), new DisplayOrderDTO(2L, 4));
+
+        List<DisplayOrderDTO> changes = DisplayOrderUtils.changedOrders(List.of(2L, 1L, 2L), current);
+
+        assertEquals(List.of(new DisplayOrderDTO(2L, 0), new DisplayOrderDTO(1L, 1)), changes);
+    }
+
+    @Test
+    void changedOrders_LeavesUnchangedRowsOut() {
+        List<DisplayOrderDTO> current = List.of(new DisplayOrderDTO(1L, 0), new DisplayOrderDTO(2L, 2),
+                new DisplayOrderDTO(3L, 1), new DisplayOrderDTO(4L, null));
+
+        List<DisplayOrderDTO> changes = DisplayOrderUtils.changedOrders(List.of(1L, 2L, 3L, 4L), current);
+
+        // 1 déjà à 0 ; 4 sans position est écrit
+        assertEquals(List.of(new DisplayOrderDTO(2L, 1), new DisplayOrderDTO(3L, 2), new DisplayOrderDTO(4L, 3)),
+                changes);
+        assertTrue(DisplayOrderUtils.changedOrders(List.of(1L, 3L, 2L), current.subList(0, 3)).isEmpty());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.AppNotiDo.util;
+
+import com.example.AppNotiDo.domain.RecurrenceType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exemples repris de la RFC 5545 (section 3.8.5.3) et cas limites du moteur
+ */
+class RRuleTest {
+
+    private static List<LocalDateTime> take(String rule, LocalDateTime start, LocalDateTime from, int max) {
+        Iterator<LocalDateTime> occurrences = RRule.parse(rule).occurrences(start, from);
+        List<LocalDateTime> result = new ArrayList<>();
+        while (result.size() < max && occurrences.hasNext()) {
+            result.add(occurrences.next());
+        }
+        return result;
+    }
+
+    private static LocalDateTime at(int year, int month, int day) {
+        return LocalDateTime.of(year, month, day, 9, 0);
+    }
+
+    @Test
+    void weeklyEveryOtherWeek_WithWeekStartAndCount() {
+        LocalDateTime start = at(1997, 9, 2);
+
+        assertEquals(List.of(at(1997, 9, 2), at(1997, 9, 4), at(1997, 9, 16), at(1997, 9, 18),
+                        at(1997, 9, 30), at(1997, 10, 2), at(1997, 10, 14), at(1997, 10, 16)),
+                take("RRULE:FREQ=WEEKLY;INTERVAL=2;COUNT=8;WKST=SU;BYDAY=TU,TH", start, start, 20));
+    }
+
+    @Test
+    void monthlyFirstAndLastDay() {
+        LocalDateTime start = at(1997, 9, 30);
+
+        assertEquals(List.of(at(1997, 9, 30), at(1997, 10, 1), at(1997, 10, 31), at(1997, 11, 1),
+                        at(1997, 11, 30), at(1997, 12, 1), at(1997, 12, 31), at(1998, 1, 1),
+                        at(1998, 1, 31), at(1998, 2, 1)),
+                take("FREQ=MONTHLY;COUNT=10;BYMONTHDAY=1,-1", start, start, 20));
+    }
+
+    @Test
+    void monthlyByDayOrdinals() {
+        LocalDateTime start = at(2026, 1, 30);
+
+        assertEquals(List.of(at(2026, 1, 30), at(2026, 2, 27), at(2026, 3, 27)),
+                take("FREQ=MONTHLY;BYDAY=-1FR;COUNT=3", start, start, 10));
+        assertEquals(List.of(at(2026, 2, 9), at(2026, 3, 9), at(2026, 4, 13)),
+                take("FREQ=MONTHLY;BYDAY=2MO", start, start, 3));
+    }
+
+    @Test
+    void yearlyByDayOrdinalInYear() {
+        LocalDateTime start = at(1997, 5, 19);
+
+        assertEquals(List.of(at(1997, 5, 19), at(1998, 5, 18), at(1999, 5, 17)),
+                take("FREQ=YEARLY;BYDAY=20MO", start, start, 3));
+    }
+
+    @Test
+    void monthlyOnThe31st_SkipsShortMonths() {
+        LocalDateTime start = at(2026, 1, 31);
+
+        assertEquals(List.of(at(2026, 1, 31), at(2026, 3, 31), at(2026, 5, 31)),
+                take("FREQ=MONTHLY", start, start, 3));
+    }
+
+    @Test
+    void exdateIsSkippedButStillCounted() {
+        LocalDateTime start = at(2026, 3, 1);
+
+        assertEquals(List.of(at(2026, 3, 1), at(2026, 3, 2), at(2026, 3, 4), at(2026, 3, 5)),
+                take("RRULE:FREQ=DAILY;COUNT=5\nEXDATE:20260303T090000", start, start, 10));
+        assertEquals(List.of(at(2026, 3, 1), at(2026, 3, 4)),
+                take("RRULE:FREQ=DAILY;UNTIL=20260304\nEXDATE:20260302,20260303", start, start, 10));
+    }
+
+    @Test
+    void withoutCount_JumpsToRequestedRange() {
+        LocalDateTime start = at(1900, 1, 1);
+
+        assertEquals(List.of(at(2026, 3, 16), at(2026, 3, 18)),
+                take("FREQ=WEEKLY;BYDAY=MO,WE", start, at(2026, 3, 15), 2));
+    }
+
+    @Test
+    void parse_RejectsInvalidOrUnsupportedRules() {
+        assertThrows(IllegalArgumentException.class, () -> RRule.parse("FREQ=HOURLY"));
+        assertThrows(IllegalArgumentException.class, () -> RRule.parse("FREQ=MONTHLY;BYSETPOS=-1"));
+        assertThrows(IllegalArgumentException.class, () -> RRule.parse("FREQ=DAILY;COUNT=3;UNTIL=20260101"));
+        assertThrows(IllegalArgumentException.class, () -> RRule.parse("FREQ=WEEKLY;BYDAY=2MO"));
+        assertThrows(IllegalArgumentException.class, () -> RRule.parse("INTERVAL=2"));
+        assertEquals(RecurrenceType.MONTHLY, RRule.parse("RRULE:FREQ=MONTHLY;BYMONTHDAY=15").getRecurrenceType());
+    }
+}
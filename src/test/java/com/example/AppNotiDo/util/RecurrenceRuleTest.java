@@ -0,0 +1,165 @@
+package com.example.AppNotiDo.util;
+
+import com.example.AppNotiDo.domain.RecurrenceType;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compare le calcul en temps constant à l'ancien calcul pas à pas sur des règles et dates aléatoires
+ * (graine fixe pour des échecs reproductibles).
+ */
+class RecurrenceRuleTest {
+
+    private static final int CASES = 20_000;
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 15, 10, 30);
+
+    @Test
+    void next_MatchesStepByStepImplementation() {
+        Random random = new Random(42);
+        for (int i = 0; i < CASES; i++) {
+            RecurrenceType type = RecurrenceType.values()[1 + random.nextInt(4)];
+            int interval = 1 + random.nextInt(random.nextBoolean() ? 3 : 12);
+            String days = type == RecurrenceType.WEEKLY && random.nextBoolean() ? randomDays(random) : null;
+            Integer dayOfMonth = type == RecurrenceType.MONTHLY && random.nextBoolean() ? 1 + random.nextInt(31) : null;
+            LocalDateTime base = NOW.plusMinutes(random.nextInt(2 * 365 * 24 * 60) - 365 * 24 * 60L);
+
+            LocalDateTime actual = RecurrenceRule.of(type, interval, days, dayOfMonth).next(base, NOW);
+            LocalDateTime expected = legacyNext(type, base, interval, days, dayOfMonth);
+            String label = type + " every " + interval + " days=" + days + " dom=" + dayOfMonth + " base=" + base;
+
+            assertNotNull(actual, label);
+            assertFalse(actual.isBefore(NOW), label);
+            if (expected == null) {
+                // L'ancien calcul abandonnait après 100 jours et renvoyait une date passée
+                assertTrue(Set.of(days.split(",")).contains(actual.getDayOfWeek().name()), label);
+                assertTrue(!actual.isBefore(NOW) && actual.isBefore(NOW.plusDays(7)), label);
+            } else if (type == RecurrenceType.YEARLY && base.getMonth() == Month.FEBRUARY && base.getDayOfMonth() == 29) {
+                // L'ancien calcul dérivait du 29 au 28 février ; la règle repart de la date de base
+                assertEquals(base.plusYears(actual.getYear() - base.getYear()), actual, label);
+            } else {
+                assertEquals(expected, actual, label);
+            }
+        }
+    }
+
+    @Test
+    void next_IsConstantTimeForVeryOldBaseDates() {
+        LocalDateTime base = LocalDateTime.of(1900, 1, 1, 8, 0);
+
+        assertEquals(LocalDateTime.of(2026, 3, 16, 8, 0),
+                RecurrenceRule.of(RecurrenceType.DAILY, 1, null, null).next(base, NOW));
+        assertEquals(LocalDateTime.of(2026, 3, 18, 8, 0),
+                RecurrenceRule.of(RecurrenceType.WEEKLY, 1, "WEDNESDAY, FRIDAY", null).next(base, NOW));
+        assertEquals(LocalDateTime.of(2026, 3, 31, 8, 0),
+                RecurrenceRule.of(RecurrenceType.MONTHLY, 1, null, 31).next(base, NOW));
+    }
+
+    @Test
+    void occurrences_WeeklyWithDaysIncludesFrom() {
+        LocalDateTime monday = LocalDateTime.of(2026, 3, 2, 9, 0);
+        LocalDateTime wednesday = monday.plusDays(2);
+        RecurrenceRule rule = RecurrenceRule.of(RecurrenceType.WEEKLY, 1, "MONDAY,WEDNESDAY", null);
+
+        Iterator<LocalDateTime> slots = rule.occurrences(monday, wednesday);
+        assertEquals(wednesday, slots.next());
+        assertEquals(monday.plusWeeks(1), slots.next());
+        // Même borne que RRULE et que les règles sans jours
+        assertEquals(wednesday, RRule.parse("FREQ=WEEKLY;BYDAY=MO,WE").occurrences(monday, wednesday).next());
+        assertEquals(wednesday, RecurrenceRule.of(RecurrenceType.DAILY, 1, null, null)
+                .occurrences(monday, wednesday).next());
+        // La date de départ elle-même n'est jamais une occurrence
+        assertEquals(wednesday, rule.occurrences(monday, monday).next());
+    }
+
+    @Test
+    void of_ReturnsNullWhenNotRecurringAndRejectsUnknownDays() {
+        assertNull(RecurrenceRule.of(RecurrenceType.NONE, 1, null, null));
+        assertNull(RecurrenceRule.of(null, 1, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> RecurrenceRule.of(RecurrenceType.WEEKLY, 1, "MONDAY,FUNDAY", null));
+    }
+
+    private static String randomDays(Random random) {
+        List<String> days = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (random.nextInt(3) == 0) {
+                days.add(day.name());
+            }
+        }
+        if (days.isEmpty()) {
+            days.add(DayOfWeek.of(1 + random.nextInt(7)).name());
+        }
+        return String.join(",", days);
+    }
+
+    // ========================================
+    // ANCIEN CALCUL PAS À PAS (référence), LocalDateTime.now() remplacé par NOW
+    // ========================================
+
+    // null quand l'ancien calcul hebdomadaire tombait sur son repli après 100 itérations
+    private static LocalDateTime legacyNext(RecurrenceType type, LocalDateTime baseDate, int interval,
+                                            String recurrenceDays, Integer dayOfMonth) {
+        switch (type) {
+            case DAILY: {
+                LocalDateTime next = baseDate.plusDays(interval);
+                while (next.isBefore(NOW)) {
+                    next = next.plusDays(interval);
+                }
+                return next;
+            }
+            case WEEKLY: {
+                if (recurrenceDays == null || recurrenceDays.isEmpty()) {
+                    LocalDateTime next = baseDate.plusWeeks(interval);
+                    while (next.isBefore(NOW)) {
+                        next = next.plusWeeks(interval);
+                    }
+                    return next;
+                }
+                Set<DayOfWeek> days = Arrays.stream(recurrenceDays.split(","))
+                        .map(String::trim)
+                        .map(DayOfWeek::valueOf)
+                        .collect(Collectors.toSet());
+                LocalDateTime next = baseDate;
+                for (int iterations = 0; iterations < 100; iterations++) {
+                    next = next.plusDays(1);
+                    // L'ancien calcul excluait NOW ; la règle l'inclut comme les autres fréquences
+                    if (days.contains(next.getDayOfWeek()) && !next.isBefore(NOW)) {
+                        return next;
+                    }
+                }
+                return null;
+            }
+            case MONTHLY: {
+                int day = dayOfMonth != null ? dayOfMonth : baseDate.getDayOfMonth();
+                LocalDateTime next = baseDate.plusMonths(interval);
+                next = next.withDayOfMonth(Math.min(day, next.toLocalDate().lengthOfMonth()));
+                while (next.isBefore(NOW)) {
+                    next = next.plusMonths(interval);
+                    next = next.withDayOfMonth(Math.min(day, next.toLocalDate().lengthOfMonth()));
+                }
+                return next;
+            }
+            case YEARLY: {
+                LocalDateTime next = baseDate.plusYears(interval);
+                while (next.isBefore(NOW)) {
+                    next = next.plusYears(interval);
+                }
+                return next;
+            }
+            default:
+                return null;
+        }
+    }
+}